@@ -0,0 +1,171 @@
+package dev.asjordi.build;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compiles {@code whois-servers.properties} into the {@code WhoisServerTable} class.
+ * <p>
+ * The generated class holds the domain extensions as a sorted array, searched
+ * with a binary search, and a parallel array of indexes into a deduplicated
+ * array of server hostnames. Because the hostnames are string constants they
+ * are interned by the JVM, and nothing has to be parsed at startup. An entry
+ * may list several comma-separated servers, e.g. a registry and its mirror;
+ * they are kept in the order given.
+ * </p>
+ * <p>
+ * The generator runs during the {@code generate-sources} phase as a single-file
+ * source program, so it needs nothing but the JDK:
+ * <pre>
+ *     java src/build/java/dev/asjordi/build/WhoisServerTableGenerator.java &lt;properties&gt; &lt;output directory&gt;
+ * </pre>
+ * The build fails if an entry is malformed. The output file is only rewritten
+ * when its content changes, so incremental builds are not invalidated.
+ * </p>
+ */
+public class WhoisServerTableGenerator {
+
+    private static final String PACKAGE = "dev.asjordi";
+    private static final String CLASS_NAME = "WhoisServerTable";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: WhoisServerTableGenerator <properties file> <output directory>");
+            System.exit(2);
+        }
+
+        Path propertiesFile = Path.of(args[0]);
+        Path outputDirectory = Path.of(args[1]);
+
+        Map<String, List<String>> mappings = readMappings(propertiesFile);
+        String source = generate(mappings, propertiesFile.getFileName().toString());
+
+        Path outputFile = outputDirectory.resolve(PACKAGE.replace('.', '/')).resolve(CLASS_NAME + ".java");
+        if (Files.exists(outputFile) && Files.readString(outputFile).equals(source)) {
+            System.out.println(CLASS_NAME + " is up to date (" + mappings.size() + " extensions)");
+            return;
+        }
+
+        Files.createDirectories(outputFile.getParent());
+        Files.writeString(outputFile, source, StandardCharsets.UTF_8);
+        System.out.println("Generated " + outputFile + " (" + mappings.size() + " extensions)");
+    }
+
+    private static Map<String, List<String>> readMappings(Path propertiesFile) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(propertiesFile, StandardCharsets.ISO_8859_1)) {
+            properties.load(reader);
+        }
+
+        Map<String, List<String>> mappings = new TreeMap<>();
+        List<String> errors = new ArrayList<>();
+        for (String key : properties.stringPropertyNames()) {
+            String extension = key.strip().toLowerCase(Locale.ROOT);
+            if (!extension.matches("(\\.[a-z0-9-]+)+")) {
+                errors.add("invalid domain extension '" + key + "'");
+                continue;
+            }
+
+            List<String> servers = new ArrayList<>();
+            for (String value : properties.getProperty(key).split(",")) {
+                String server = value.strip().toLowerCase(Locale.ROOT);
+                if (!server.matches("[a-z0-9-]+(\\.[a-z0-9-]+)+")) {
+                    errors.add("invalid WHOIS server '" + server + "' for " + key);
+                } else if (!servers.contains(server)) {
+                    servers.add(server);
+                }
+            }
+            mappings.put(extension, servers);
+        }
+
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(propertiesFile + ": " + String.join("; ", errors));
+        }
+        return mappings;
+    }
+
+    private static String generate(Map<String, List<String>> mappings, String sourceName) {
+        List<String> servers = new ArrayList<>(new TreeSet<>(mappings.values().stream().flatMap(List::stream).toList()));
+
+        StringBuilder java = new StringBuilder();
+        java.append("package ").append(PACKAGE).append(";\n\n");
+        java.append("import java.util.ArrayList;\n");
+        java.append("import java.util.Arrays;\n");
+        java.append("import java.util.List;\n\n");
+        java.append("/**\n");
+        java.append(" * WHOIS server routing table compiled from {@code ").append(sourceName).append("}.\n");
+        java.append(" * <p>\n");
+        java.append(" * Generated by {@code WhoisServerTableGenerator}; do not edit.\n");
+        java.append(" * </p>\n");
+        java.append(" */\n");
+        java.append("final class ").append(CLASS_NAME).append(" {\n\n");
+
+        java.append("    private static final String[] SERVERS = {\n");
+        for (String server : servers) {
+            java.append("            \"").append(server).append("\",\n");
+        }
+        java.append("    };\n\n");
+
+        java.append("    private static final String[] EXTENSIONS = {\n");
+        for (String extension : mappings.keySet()) {
+            java.append("            \"").append(extension).append("\",\n");
+        }
+        java.append("    };\n\n");
+
+        java.append("    private static final short[][] SERVER_INDEXES = {\n");
+        for (List<String> route : mappings.values()) {
+            java.append("            {");
+            for (int i = 0; i < route.size(); i++) {
+                if (i > 0) java.append(", ");
+                java.append(servers.indexOf(route.get(i)));
+            }
+            java.append("},\n");
+        }
+        java.append("    };\n\n");
+
+        java.append("    private static final List<List<String>> ROUTES;\n\n");
+        java.append("    static {\n");
+        java.append("        List<List<String>> routes = new ArrayList<>(SERVER_INDEXES.length);\n");
+        java.append("        for (short[] indexes : SERVER_INDEXES) {\n");
+        java.append("            String[] route = new String[indexes.length];\n");
+        java.append("            for (int i = 0; i < indexes.length; i++) route[i] = SERVERS[indexes[i]];\n");
+        java.append("            routes.add(List.of(route));\n");
+        java.append("        }\n");
+        java.append("        ROUTES = List.copyOf(routes);\n");
+        java.append("    }\n\n");
+
+        java.append("    private ").append(CLASS_NAME).append("() { }\n\n");
+
+        java.append("    /**\n");
+        java.append("     * Returns the WHOIS servers for a lower-case domain extension, primary first.\n");
+        java.append("     *\n");
+        java.append("     * @param extension the extension including the leading dot, e.g. {@code .com}\n");
+        java.append("     * @return the servers, or an empty list if the extension is not in the table\n");
+        java.append("     */\n");
+        java.append("    static List<String> lookup(String extension) {\n");
+        java.append("        int index = Arrays.binarySearch(EXTENSIONS, extension);\n");
+        java.append("        return index >= 0 ? ROUTES.get(index) : List.of();\n");
+        java.append("    }\n\n");
+
+        java.append("    /**\n");
+        java.append("     * Returns the number of extensions in the table.\n");
+        java.append("     *\n");
+        java.append("     * @return the table size\n");
+        java.append("     */\n");
+        java.append("    static int size() {\n");
+        java.append("        return EXTENSIONS.length;\n");
+        java.append("    }\n");
+        java.append("}\n");
+        return java.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package dev.asjordi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Derives how long a WHOIS response may be cached from what the response says.
+ * <p>
+ * A record that has been registered for years, carries registrar locks and
+ * expires far in the future rarely changes and is cached for days. A record in
+ * a transitional EPP state, about to expire or just updated is cached for
+ * minutes. "Not found" answers get a short lifetime because the domain can be
+ * registered at any moment. Responses the parser does not understand (such as
+ * IANA referrals) fall back to the base TTL.
+ * </p>
+ * <p>
+ * The result is always clamped between the minimum and maximum TTL, which are
+ * read from the {@code whois.cache.minTtlMinutes} (default 5) and
+ * {@code whois.cache.maxTtlHours} (default 72) system properties.
+ * </p>
+ */
+public class AdaptiveTtlPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveTtlPolicy.class);
+
+    private static final Set<String> VOLATILE_STATUSES = Set.of(
+            "pendingdelete", "redemptionperiod", "pendingrestore", "pendingtransfer", "pendingrenew",
+            "pendingupdate", "pendingcreate", "addperiod", "transferperiod", "autorenewperiod", "renewperiod");
+    private static final Set<String> LOCK_STATUSES = Set.of(
+            "clienttransferprohibited", "servertransferprohibited", "clientdeleteprohibited",
+            "serverdeleteprohibited", "clientupdateprohibited", "serverupdateprohibited");
+
+    private static final Duration NOT_FOUND_TTL = Duration.ofMinutes(15);
+
+    private final Duration baseTtl;
+    private final Duration minTtl;
+    private final Duration maxTtl;
+    private final Clock clock;
+
+    /**
+     * Creates a policy around the given base TTL, configured from system properties.
+     *
+     * @param baseTtl the TTL used when the response carries no useful signal
+     */
+    public AdaptiveTtlPolicy(Duration baseTtl) {
+        this(baseTtl,
+                Duration.ofMinutes(Long.getLong("whois.cache.minTtlMinutes", 5)),
+                Duration.ofHours(Long.getLong("whois.cache.maxTtlHours", 72)),
+                Clock.systemUTC());
+    }
+
+    AdaptiveTtlPolicy(Duration baseTtl, Duration minTtl, Duration maxTtl, Clock clock) {
+        this.baseTtl = baseTtl;
+        this.minTtl = minTtl;
+        this.maxTtl = maxTtl;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the TTL for a raw WHOIS response.
+     *
+     * @param response the raw response text
+     * @return how long the response may be cached
+     */
+    public Duration ttlFor(String response) {
+        return ttlFor(WhoisRecord.parse(response));
+    }
+
+    /**
+     * Returns the TTL for a parsed WHOIS record.
+     *
+     * @param record the parsed record
+     * @return how long the record may be cached
+     */
+    public Duration ttlFor(WhoisRecord record) {
+        Duration ttl = clamp(computeTtl(record, clock.instant()));
+        logger.atDebug().log("Computed cache TTL {} (notFound={}, statuses={}, expiry={})",
+                ttl, record.notFound(), record.statuses(), record.expiry().orElse(null));
+        return ttl;
+    }
+
+    private Duration computeTtl(WhoisRecord record, Instant now) {
+        if (record.notFound()) return NOT_FOUND_TTL;
+        if (record.hasAnyStatus(VOLATILE_STATUSES)) return minTtl;
+
+        Duration untilExpiry = record.expiry().map(expiry -> Duration.between(now, expiry)).orElse(null);
+        if (untilExpiry != null) {
+            if (untilExpiry.compareTo(Duration.ofDays(1)) <= 0) return minTtl;
+            if (untilExpiry.compareTo(Duration.ofDays(7)) <= 0) return Duration.ofMinutes(30);
+            if (untilExpiry.compareTo(Duration.ofDays(30)) <= 0) return Duration.ofHours(2);
+        }
+
+        Duration sinceUpdate = record.updated().map(updated -> Duration.between(updated, now)).orElse(null);
+        if (sinceUpdate != null) {
+            if (sinceUpdate.compareTo(Duration.ofDays(1)) <= 0) return Duration.ofMinutes(30);
+            if (sinceUpdate.compareTo(Duration.ofDays(7)) <= 0) return Duration.ofHours(2);
+        }
+
+        if (untilExpiry == null) return baseTtl;
+
+        boolean established = record.created()
+                .map(created -> Duration.between(created, now).compareTo(Duration.ofDays(365)) >= 0)
+                .orElse(false);
+        if (established && record.hasAnyStatus(LOCK_STATUSES) && untilExpiry.compareTo(Duration.ofDays(60)) > 0) {
+            return maxTtl;
+        }
+
+        return Duration.ofHours(24);
+    }
+
+    private Duration clamp(Duration ttl) {
+        if (ttl.compareTo(minTtl) < 0) return minTtl;
+        if (ttl.compareTo(maxTtl) > 0) return maxTtl;
+        return ttl;
+    }
+}
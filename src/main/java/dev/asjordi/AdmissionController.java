@@ -0,0 +1,150 @@
+package dev.asjordi;
+
+import dev.asjordi.exceptions.OverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of WHOIS lookups running at once and sheds load beyond that.
+ * <p>
+ * Up to {@code maxInFlight} calls run concurrently. Further calls wait in a
+ * first-come, first-served queue of at most {@code maxQueue} entries, each for
+ * no longer than the queue timeout. A call that finds the queue full, or whose
+ * wait times out, fails immediately with an {@link OverloadedException} instead
+ * of piling up behind the others, so accepted calls keep a stable latency.
+ * </p>
+ * <p>
+ * The retry hint in the exception is derived from a moving average of recent
+ * service times and the current queue length, i.e. roughly how long it takes
+ * for the work ahead of the caller to drain.
+ * </p>
+ * <p>
+ * Configuration is read from system properties:
+ * <ul>
+ *     <li>{@code whois.admission.maxInFlight} - calls allowed to run at once (default 16)</li>
+ *     <li>{@code whois.admission.maxQueue} - calls allowed to wait for a slot (default 64)</li>
+ *     <li>{@code whois.admission.queueTimeoutMillis} - longest wait for a slot (default 2000)</li>
+ * </ul>
+ * </p>
+ */
+public class AdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+    private static final long MIN_RETRY_AFTER_MILLIS = 100;
+    private static final double SERVICE_TIME_ALPHA = 0.2;
+
+    private final int maxInFlight;
+    private final int maxQueue;
+    private final Duration queueTimeout;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile double averageServiceMillis;
+
+    /**
+     * Creates an admission controller configured from system properties.
+     */
+    public AdmissionController() {
+        this(Integer.getInteger("whois.admission.maxInFlight", 16),
+                Integer.getInteger("whois.admission.maxQueue", 64),
+                Duration.ofMillis(Long.getLong("whois.admission.queueTimeoutMillis", 2000)));
+    }
+
+    AdmissionController(int maxInFlight, int maxQueue, Duration queueTimeout) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight must be positive");
+        this.maxInFlight = maxInFlight;
+        this.maxQueue = maxQueue;
+        this.queueTimeout = queueTimeout;
+        this.permits = new Semaphore(maxInFlight, true);
+    }
+
+    /**
+     * Runs the call once a slot is free.
+     *
+     * @param call the work to run
+     * @param <T>  the result type
+     * @return the result of the call
+     * @throws OverloadedException if the queue is full or no slot became free in time
+     */
+    public <T> T execute(Supplier<T> call) throws OverloadedException {
+        acquire();
+
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+            recordServiceTime((System.nanoTime() - start) / 1_000_000.0);
+        }
+    }
+
+    private void acquire() {
+        try {
+            // A zero timeout, unlike tryAcquire(), honours the fair ordering of waiting calls
+            if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) return;
+
+            if (waiting.incrementAndGet() > maxQueue) {
+                waiting.decrementAndGet();
+                throw reject("wait queue full");
+            }
+            try {
+                if (!permits.tryAcquire(queueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw reject("timed out waiting for a slot");
+                }
+            } finally {
+                waiting.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("interrupted while waiting for a slot");
+        }
+    }
+
+    private OverloadedException reject(String reason) {
+        rejected.incrementAndGet();
+        long retryAfter = Math.max(MIN_RETRY_AFTER_MILLIS,
+                Math.round(averageServiceMillis * (waiting.get() + 1) / maxInFlight));
+        logger.atWarn().log("Rejecting WHOIS request ({}), retry after {} ms", reason, retryAfter);
+        return new OverloadedException(retryAfter);
+    }
+
+    private synchronized void recordServiceTime(double millis) {
+        averageServiceMillis = averageServiceMillis == 0
+                ? millis
+                : SERVICE_TIME_ALPHA * millis + (1 - SERVICE_TIME_ALPHA) * averageServiceMillis;
+    }
+
+    /**
+     * Returns the number of calls currently running.
+     *
+     * @return the in-flight count
+     */
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /**
+     * Returns the number of calls currently waiting for a slot.
+     *
+     * @return the queue length
+     */
+    public int queued() {
+        return waiting.get();
+    }
+
+    /**
+     * Returns the number of calls rejected since startup.
+     *
+     * @return the rejection count
+     */
+    public long rejectedCount() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,209 @@
+package dev.asjordi;
+
+import dev.asjordi.AvailabilityDetector.Availability;
+import dev.asjordi.exceptions.OverloadedException;
+import dev.asjordi.exceptions.WhoisQueryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Checks many candidate domains for availability at once.
+ * <p>
+ * A candidate whose WHOIS response is cached is classified from it straight away.
+ * The others first go through a DNS pre-filter: a name that resolves is
+ * registered, so it is reported as taken without touching the registry's WHOIS
+ * quota. The pre-filter asks the system resolver directly rather than the
+ * {@link HostResolver} kept for WHOIS servers, so candidate names are never
+ * held beyond the JVM's own DNS cache. It resolves the absolute name, so
+ * resolver search domains cannot make a free name resolve, and switches itself
+ * off if the resolver rewrites NXDOMAIN answers, which would make every name
+ * look taken. The remaining candidates are checked by {@link WhoisService#queryAvailability},
+ * which uses an RDAP {@code HEAD} request or a port 43 answer read only as far as
+ * needed, each through the {@link AdmissionController}. Checks run concurrently
+ * and stop early once the requested number of available names has been found.
+ * </p>
+ * <p>
+ * Configuration is read from system properties:
+ * <ul>
+ *     <li>{@code whois.availability.concurrency} - candidates checked at once (default 8)</li>
+ *     <li>{@code whois.availability.dnsPrefilter} - whether resolving names count as taken (default true)</li>
+ * </ul>
+ * </p>
+ */
+public class AvailabilityChecker {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityChecker.class);
+
+    /**
+     * The outcome of checking a list of candidates.
+     *
+     * @param availability the verdict per checked candidate, in request order
+     * @param unchecked    the candidates skipped because the limit was reached or the caller stopped
+     */
+    public record Result(Map<String, Availability> availability, List<String> unchecked) {
+
+        /**
+         * Returns the candidates with the given verdict, in request order.
+         *
+         * @param verdict the verdict to select
+         * @return the matching candidates
+         */
+        public List<String> domains(Availability verdict) {
+            return availability.entrySet().stream()
+                    .filter(entry -> entry.getValue() == verdict)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+    }
+
+    private final WhoisService whoisService;
+    private final AdmissionController admissionController;
+    private final Predicate<String> resolves;
+    private final int concurrency;
+
+    /**
+     * Creates a checker configured from system properties.
+     *
+     * @param whoisService        the service that performs the checks
+     * @param admissionController bounds the checks in flight together with other lookups
+     */
+    public AvailabilityChecker(WhoisService whoisService, AdmissionController admissionController) {
+        this(whoisService, admissionController,
+                Boolean.parseBoolean(System.getProperty("whois.availability.dnsPrefilter", "true"))
+                        ? dnsPrefilter(InetAddress::getAllByName)
+                        : domain -> false,
+                Integer.getInteger("whois.availability.concurrency", 8));
+    }
+
+    AvailabilityChecker(WhoisService whoisService, AdmissionController admissionController,
+                        Predicate<String> resolves, int concurrency) {
+        this.whoisService = whoisService;
+        this.admissionController = admissionController;
+        this.resolves = resolves;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Checks one candidate. Failed lookups, including shed and throttled ones,
+     * are reported as unknown rather than thrown.
+     *
+     * @param domain the candidate domain
+     * @return the verdict
+     */
+    public Availability check(String domain) {
+        if (!DomainValidatorUtil.isValidDomain(domain)) return Availability.UNKNOWN;
+
+        Optional<Availability> cached = whoisService.cachedAvailability(domain);
+        if (cached.isPresent()) return cached.get();
+
+        if (resolves.test(DomainSanitizer.sanitize(domain))) {
+            logger.atDebug().log("{} resolves in DNS, reporting it as taken", domain);
+            return Availability.TAKEN;
+        }
+
+        try {
+            return admissionController.execute(() ->
+                    whoisService.queryAvailability(domain, QueryScheduler.Priority.INTERACTIVE));
+        } catch (OverloadedException | WhoisQueryException e) {
+            logger.atWarn().log("Availability of {} is unknown: {}", domain, e.getMessage());
+            return Availability.UNKNOWN;
+        }
+    }
+
+    /**
+     * Checks the candidates concurrently and reports each verdict as it arrives.
+     * Once {@code limit} candidates were found available, or {@code stop} returns
+     * {@code true} after a verdict, candidates that have not started are skipped;
+     * checks already running still complete and are included.
+     *
+     * @param domains  the candidate domains
+     * @param limit    how many available names are enough, or zero for no limit
+     * @param listener receives each candidate and its verdict as soon as it is known, on the checking thread
+     * @param stop     tells whether the caller has lost interest
+     * @return the verdicts and the skipped candidates
+     */
+    public Result checkAll(List<String> domains, int limit, BiConsumer<String, Availability> listener,
+                           BooleanSupplier stop) {
+        Map<String, Availability> verdicts = new ConcurrentHashMap<>();
+        AtomicInteger available = new AtomicInteger();
+        AtomicBoolean stopped = new AtomicBoolean();
+
+        AtomicInteger threads = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, Math.max(1, domains.size())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "whois-availability-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                })) {
+            for (String domain : domains) {
+                executor.execute(() -> {
+                    // Decided before each candidate starts, so no query is sent once the answer is complete
+                    if (stopped.get()) return;
+
+                    Availability verdict = check(domain);
+                    verdicts.put(domain, verdict);
+                    listener.accept(domain, verdict);
+                    boolean enough = verdict == Availability.AVAILABLE && available.incrementAndGet() >= limit && limit > 0;
+                    if (enough || stop.getAsBoolean()) stopped.set(true);
+                });
+            }
+        }
+
+        Map<String, Availability> ordered = new LinkedHashMap<>();
+        List<String> unchecked = new ArrayList<>();
+        for (String domain : domains) {
+            if (verdicts.containsKey(domain)) ordered.put(domain, verdicts.get(domain));
+            else unchecked.add(domain);
+        }
+        if (!unchecked.isEmpty()) logger.atInfo().log("Availability check stopped early, skipped {} candidates", unchecked.size());
+        return new Result(ordered, unchecked);
+    }
+
+    /**
+     * Returns the DNS pre-filter over the given lookup. Before its first answer
+     * it resolves a name that cannot be registered; if that resolves too, the
+     * resolver rewrites NXDOMAIN and the filter never reports a name as taken.
+     */
+    static Predicate<String> dnsPrefilter(HostResolver.Lookup lookup) {
+        AtomicReference<Boolean> trustworthy = new AtomicReference<>();
+        return domain -> {
+            Boolean usable = trustworthy.get();
+            if (usable == null) {
+                boolean rewrites = resolves(lookup, "nxdomain-probe-" + UUID.randomUUID() + ".com");
+                if (trustworthy.compareAndSet(null, !rewrites) && rewrites) {
+                    logger.atWarn().log("The DNS resolver answers for names that do not exist, disabling the availability pre-filter");
+                }
+                usable = trustworthy.get();
+            }
+            return usable && resolves(lookup, domain);
+        };
+    }
+
+    // The trailing dot makes the name absolute, so no search domain is appended to it
+    private static boolean resolves(HostResolver.Lookup lookup, String domain) {
+        try {
+            lookup.resolve(domain + ".");
+            return true;
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package dev.asjordi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Tells from the lines of a WHOIS answer whether a domain is registered.
+ * <p>
+ * Each registry words its "not found" answer differently and starts registered
+ * records with different fields, so the signatures are loaded from
+ * {@code whois-availability-patterns.properties}: the {@code default} patterns
+ * apply to every server and server-specific patterns are checked in addition.
+ * Patterns are matched one line at a time and the first matching line decides,
+ * so a streamed answer can be abandoned as soon as the verdict is known instead
+ * of reading the registry's terms of use that usually follow.
+ * </p>
+ */
+public class AvailabilityDetector {
+
+    /**
+     * Whether a domain can be registered.
+     */
+    public enum Availability {
+        /** The registry has no record of the domain. */
+        AVAILABLE,
+        /** The domain is registered. */
+        TAKEN,
+        /** The answer matched no signature, or the lookup failed. */
+        UNKNOWN
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityDetector.class);
+    private static final String PATTERNS_RESOURCE = "whois-availability-patterns.properties";
+    private static final String DEFAULT_KEY = "default";
+    private static final String AVAILABLE_SUFFIX = ".available";
+    private static final String REGISTERED_SUFFIX = ".registered";
+
+    private final Map<String, Pattern> availablePatterns = new HashMap<>();
+    private final Map<String, Pattern> registeredPatterns = new HashMap<>();
+
+    /**
+     * Creates a detector with the bundled signatures.
+     */
+    public AvailabilityDetector() {
+        this(loadPatterns());
+    }
+
+    AvailabilityDetector(Properties patterns) {
+        for (String key : patterns.stringPropertyNames()) {
+            Map<String, Pattern> target;
+            String server;
+            if (key.endsWith(AVAILABLE_SUFFIX)) {
+                target = availablePatterns;
+                server = key.substring(0, key.length() - AVAILABLE_SUFFIX.length());
+            } else if (key.endsWith(REGISTERED_SUFFIX)) {
+                target = registeredPatterns;
+                server = key.substring(0, key.length() - REGISTERED_SUFFIX.length());
+            } else {
+                logger.atWarn().log("Ignoring availability pattern with unknown key: {}", key);
+                continue;
+            }
+
+            try {
+                target.put(server.toLowerCase(Locale.ROOT), Pattern.compile(patterns.getProperty(key), Pattern.CASE_INSENSITIVE));
+            } catch (PatternSyntaxException e) {
+                logger.atError()
+                        .setMessage("Ignoring invalid availability pattern {}")
+                        .addArgument(key)
+                        .setCause(e)
+                        .log();
+            }
+        }
+        logger.atDebug().log("Loaded availability patterns for {} WHOIS servers", availablePatterns.size());
+    }
+
+    private static Properties loadPatterns() {
+        Properties properties = new Properties();
+        try (InputStream input = AvailabilityDetector.class.getClassLoader().getResourceAsStream(PATTERNS_RESOURCE)) {
+            if (input != null) {
+                properties.load(input);
+            } else {
+                logger.atWarn().log("Availability patterns file not found, every answer is classified as unknown");
+            }
+        } catch (IOException e) {
+            logger.atError()
+                    .setMessage("Error loading availability patterns file")
+                    .setCause(e)
+                    .log();
+        }
+        return properties;
+    }
+
+    /**
+     * Classifies one line of an answer.
+     *
+     * @param whoisServer the server that answered, or {@code null} if unknown
+     * @param line        one line of the raw answer
+     * @return the verdict the line gives, or {@link Availability#UNKNOWN} if it gives none
+     */
+    public Availability classifyLine(String whoisServer, String line) {
+        if (matches(availablePatterns, whoisServer, line)) return Availability.AVAILABLE;
+        if (matches(registeredPatterns, whoisServer, line)) return Availability.TAKEN;
+        return Availability.UNKNOWN;
+    }
+
+    /**
+     * Classifies a complete or partly read answer by its first decisive line.
+     * RDAP answers are classified by their error code instead.
+     *
+     * @param whoisServer the server that answered, or {@code null} if unknown
+     * @param response    the raw answer, possibly {@code null}
+     * @return the verdict
+     */
+    public Availability classify(String whoisServer, String response) {
+        if (response == null || response.isBlank()) return Availability.UNKNOWN;
+        if (response.stripLeading().startsWith("{")) {
+            return WhoisRecord.isNotFound(response) ? Availability.AVAILABLE : Availability.TAKEN;
+        }
+
+        for (String line : response.split("\\R")) {
+            Availability availability = classifyLine(whoisServer, line);
+            if (availability != Availability.UNKNOWN) return availability;
+        }
+        return Availability.UNKNOWN;
+    }
+
+    private static boolean matches(Map<String, Pattern> patterns, String whoisServer, String line) {
+        Pattern serverPattern = whoisServer == null ? null : patterns.get(whoisServer.toLowerCase(Locale.ROOT));
+        Pattern defaultPattern = patterns.get(DEFAULT_KEY);
+        return serverPattern != null && serverPattern.matcher(line).find()
+                || defaultPattern != null && defaultPattern.matcher(line).find();
+    }
+}
@@ -0,0 +1,526 @@
+package dev.asjordi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.asjordi.exceptions.ThrottledException;
+import dev.asjordi.exceptions.WhoisQueryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Command-line entry point that looks up a large list of domains and writes the
+ * results as NDJSON, one JSON object per line.
+ * <p>
+ * The input file is streamed line by line (blank lines and lines starting with
+ * {@code #} are skipped), so its size is not limited by memory. Up to
+ * {@code concurrency} lookups run at once; the reader only takes the next domain
+ * when a lookup slot is free and lookups only finish once their result has been
+ * written, so a slow disk or a slow registry holds the whole pipeline back
+ * instead of buffering results. Lookups run in the {@linkplain QueryScheduler.Priority#BACKGROUND
+ * background lane} and therefore stay within each registry's rate budget. A
+ * lookup that fails, because the registry throttles, the rate budget runs out or
+ * the connection drops, is retried a few times with a growing delay before an
+ * error record is written.
+ * </p>
+ * <p>
+ * Every {@code checkpointEvery} results the output is forced to disk and a
+ * checkpoint, {@code <output>.checkpoint}, is replaced atomically. It records
+ * the input line up to which every domain is done, the few later lines that are
+ * also done and the length of the output at that point. An interrupted run that
+ * is started again with the same arguments truncates the output to the last
+ * complete record, recovers the records written after the checkpoint and only
+ * looks up the domains that have no record yet. With {@code --retry-errors} the
+ * domains whose latest record is an error are looked up again as well; their new
+ * record is appended, so the last record of a line is the one that counts.
+ * </p>
+ * <pre>
+ *     java -cp whois-mcp.jar dev.asjordi.BulkLookup domains.txt results.ndjson [--concurrency 8] [--checkpoint-every 500] [--raw] [--retry-errors]
+ * </pre>
+ */
+public class BulkLookup {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkLookup.class);
+    private static final String USAGE =
+            "Usage: BulkLookup <input> <output> [--concurrency N] [--checkpoint-every N] [--raw] [--retry-errors]";
+    private static final int MAX_RETRIES = 3;
+    private static final Duration DEFAULT_RETRY_DELAY = Duration.ofSeconds(1);
+
+    /**
+     * The settings of a bulk run.
+     *
+     * @param input           the file with one domain per line
+     * @param output          the NDJSON file results are appended to
+     * @param concurrency     the number of lookups running at once
+     * @param checkpointEvery the number of results between checkpoints
+     * @param includeRaw      whether records carry the raw WHOIS response
+     * @param retryErrors     whether a resumed run looks up the domains whose latest record is an error again
+     */
+    public record Options(Path input, Path output, int concurrency, int checkpointEvery, boolean includeRaw,
+                          boolean retryErrors) {
+
+        public Options {
+            if (concurrency < 1) throw new IllegalArgumentException("concurrency must be positive");
+            if (checkpointEvery < 1) throw new IllegalArgumentException("checkpointEvery must be positive");
+        }
+
+        /**
+         * Returns the checkpoint file kept next to the output.
+         *
+         * @return the checkpoint path
+         */
+        public Path checkpointFile() {
+            return output.resolveSibling(output.getFileName() + ".checkpoint");
+        }
+    }
+
+    /**
+     * Counts of what a bulk run did.
+     *
+     * @param lookedUp the number of domains looked up in this run
+     * @param failed   the number of those lookups that ended in an error record
+     * @param resumed  the number of input lines skipped because an earlier run already handled them
+     */
+    public record Summary(long lookedUp, long failed, long resumed) { }
+
+    private final WhoisService whoisService;
+    private final Options options;
+    private final Duration retryDelay;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile boolean stopped;
+
+    /**
+     * Creates a bulk run over the given service.
+     *
+     * @param whoisService the service performing the lookups
+     * @param options      the run settings
+     */
+    public BulkLookup(WhoisService whoisService, Options options) {
+        this(whoisService, options, DEFAULT_RETRY_DELAY);
+    }
+
+    BulkLookup(WhoisService whoisService, Options options, Duration retryDelay) {
+        this.whoisService = whoisService;
+        this.options = options;
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Runs a bulk lookup from the command line.
+     *
+     * @param args {@code <input> <output>} followed by the optional flags
+     */
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        var bulk = new BulkLookup(new WhoisService(), options);
+        Runtime.getRuntime().addShutdownHook(new Thread(bulk::stop, "whois-bulk-stop"));
+        try {
+            Summary summary = bulk.run();
+            logger.atInfo().log("Bulk lookup finished: {} looked up, {} failed, {} already done",
+                    summary.lookedUp(), summary.failed(), summary.resumed());
+        } catch (IOException e) {
+            logger.atError()
+                    .setMessage("Bulk lookup aborted, rerun to resume from the last checkpoint")
+                    .setCause(e)
+                    .log();
+            System.exit(1);
+        }
+    }
+
+    static Options parseArguments(String[] args) {
+        Path input = null;
+        Path output = null;
+        int concurrency = 8;
+        int checkpointEvery = 500;
+        boolean includeRaw = false;
+        boolean retryErrors = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--concurrency" -> concurrency = intArgument(args, ++i, "--concurrency");
+                case "--checkpoint-every" -> checkpointEvery = intArgument(args, ++i, "--checkpoint-every");
+                case "--raw" -> includeRaw = true;
+                case "--retry-errors" -> retryErrors = true;
+                default -> {
+                    if (args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    if (input == null) input = Path.of(args[i]);
+                    else if (output == null) output = Path.of(args[i]);
+                    else throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+                }
+            }
+        }
+        if (output == null) throw new IllegalArgumentException("Input and output files are required");
+        return new Options(input, output, concurrency, checkpointEvery, includeRaw, retryErrors);
+    }
+
+    private static int intArgument(String[] args, int index, String option) {
+        if (index >= args.length) throw new IllegalArgumentException("Missing value for " + option);
+        try {
+            return Integer.parseInt(args[index]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + args[index]);
+        }
+    }
+
+    /**
+     * Asks a running bulk lookup to stop taking new domains and waits until the
+     * lookups in flight are written and a final checkpoint is saved.
+     */
+    public void stop() {
+        stopped = true;
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Looks up every domain of the input that has no record in the output yet.
+     *
+     * @return what the run did
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    public Summary run() throws IOException {
+        try {
+            Progress progress = recover();
+            long resumed = progress.doneCount();
+            logger.atInfo().log("Bulk lookup of {} into {}: {} domains already done",
+                    options.input(), options.output(), resumed);
+
+            try (var sink = new Sink(progress)) {
+                lookupAll(sink, progress);
+                return new Summary(sink.lookedUp, sink.failed, resumed);
+            }
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    private void lookupAll(Sink sink, Progress progress) throws IOException {
+        Semaphore slots = new Semaphore(options.concurrency());
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(options.concurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "whois-bulk-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (BufferedReader reader = Files.newBufferedReader(options.input())) {
+            long lineNumber = 0;
+            String line;
+            while (!stopped && sink.failure == null && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (progress.isDone(lineNumber)) continue;
+
+                String domain = line.strip();
+                if (domain.isEmpty() || domain.startsWith("#")) {
+                    sink.skip(lineNumber);
+                    continue;
+                }
+
+                slots.acquire();
+                long number = lineNumber;
+                executor.execute(() -> {
+                    try {
+                        sink.write(lookup(number, domain));
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+            slots.acquire(options.concurrency());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (sink.failure != null) throw sink.failure;
+        if (stopped) logger.atInfo().log("Bulk lookup stopped, rerun to resume");
+    }
+
+    private ObjectNode lookup(long lineNumber, String domain) {
+        ObjectNode record = mapper.createObjectNode();
+        record.put("line", lineNumber);
+        record.put("domain", domain);
+
+        if (!DomainValidatorUtil.isValidDomain(domain)) {
+            return record.put("status", "invalid");
+        }
+
+        try {
+            Optional<String> response = queryWithRetry(domain);
+            if (response.isEmpty()) return record.put("status", "no_data");
+
+            String raw = response.get();
+            if (WhoisRecord.isNotFound(raw)) {
+                record.put("status", "not_found");
+            } else {
+                WhoisRecord parsed = WhoisRecord.parse(raw);
+                record.put("status", "registered");
+                parsed.registrar().ifPresent(registrar -> record.put("registrar", registrar));
+                parsed.created().ifPresent(created -> record.put("created", created.toString()));
+                parsed.expiry().ifPresent(expiry -> record.put("expiry", expiry.toString()));
+                parsed.nameServers().forEach(record.putArray("nameServers")::add);
+                parsed.statuses().forEach(record.putArray("statuses")::add);
+            }
+            if (options.includeRaw()) record.put("response", raw);
+        } catch (WhoisQueryException e) {
+            logger.atWarn().log("Bulk lookup of {} failed: {}", domain, e.getMessage());
+            record.put("status", "error");
+            record.put("error", e.getMessage());
+        } catch (RuntimeException e) {
+            // Every line needs a record, otherwise the checkpoint watermark would never pass it
+            logger.atError()
+                    .setMessage("Bulk lookup of {} failed unexpectedly")
+                    .addArgument(domain)
+                    .setCause(e)
+                    .log();
+            record.put("status", "error");
+            record.put("error", String.valueOf(e));
+        }
+        return record;
+    }
+
+    /**
+     * Queries the domain, retrying failures that are likely temporary: a throttled
+     * registry after the delay it asked for, anything else (an exhausted rate
+     * budget, a dropped connection) after a delay that doubles with each attempt.
+     */
+    private Optional<String> queryWithRetry(String domain) throws WhoisQueryException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return whoisService.performWhoisQuery(domain, QueryScheduler.Priority.BACKGROUND);
+            } catch (WhoisQueryException e) {
+                if (attempt > MAX_RETRIES || stopped) throw e;
+                long delay = e instanceof ThrottledException throttled
+                        ? throttled.getRetryAfterMillis()
+                        : retryDelay.toMillis() << (attempt - 1);
+                logger.atDebug().log("Bulk lookup of {} failed, retrying in {} ms: {}", domain, delay, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the checkpoint, if any, and the records written after it, and cuts
+     * off a record that was only partly written when the previous run ended.
+     * When errors are retried the records before the checkpoint are read as well,
+     * to find the lines whose latest record is an error.
+     */
+    private Progress recover() throws IOException {
+        Progress progress = new Progress();
+        Path output = options.output();
+        if (!Files.exists(output)) return progress;
+
+        long offset = 0;
+        Path checkpointFile = options.checkpointFile();
+        if (Files.isRegularFile(checkpointFile)) {
+            JsonNode checkpoint = mapper.readTree(checkpointFile.toFile());
+            long bytes = checkpoint.path("outputBytes").asLong();
+            if (bytes <= Files.size(output)) {
+                offset = bytes;
+                progress.watermark = checkpoint.path("watermark").asLong(1);
+                checkpoint.path("completed").forEach(line -> progress.completed.add(line.asLong()));
+            } else {
+                logger.atWarn().log("Checkpoint {} does not match {}, rescanning the output", checkpointFile, output);
+            }
+        }
+
+        long start = options.retryErrors() ? 0 : offset;
+        long end = offset;
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.READ);
+             InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(start)))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long position = start;
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                JsonNode record = readRecord(line.toByteArray());
+                line.reset();
+                if (position <= offset) {
+                    // The checkpoint already covers these records, they are only read for their status
+                    if (record != null) noteStatus(progress, record);
+                    continue;
+                }
+                if (record == null) break;
+                progress.markDone(record.get("line").asLong());
+                if (options.retryErrors()) noteStatus(progress, record);
+                end = position;
+            }
+        }
+        if (!progress.retry.isEmpty()) {
+            logger.atInfo().log("Retrying {} domains that failed in an earlier run", progress.retry.size());
+        }
+
+        if (end < Files.size(output)) {
+            logger.atInfo().log("Dropping {} bytes of incomplete output from {}", Files.size(output) - end, output);
+        }
+        progress.outputBytes = end;
+        return progress;
+    }
+
+    private JsonNode readRecord(byte[] bytes) {
+        try {
+            JsonNode record = mapper.readTree(bytes);
+            return record != null && record.has("line") ? record : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void noteStatus(Progress progress, JsonNode record) {
+        long lineNumber = record.get("line").asLong();
+        if (isError(record)) progress.retry.add(lineNumber);
+        else progress.retry.remove(lineNumber);
+    }
+
+    private static boolean isError(JsonNode record) {
+        return "error".equals(record.path("status").asText());
+    }
+
+    /**
+     * Which input lines are done: every line below the watermark, plus the
+     * completed lines above it, except the failed lines that are to be retried.
+     * Lookups finish out of order, so the completed set holds roughly as many
+     * lines as there are lookups in flight.
+     */
+    private static final class Progress {
+        private long watermark = 1;
+        private final TreeSet<Long> completed = new TreeSet<>();
+        private final Set<Long> retry = new HashSet<>();
+        private long outputBytes;
+
+        private synchronized boolean isDone(long line) {
+            return (line < watermark || completed.contains(line)) && !retry.contains(line);
+        }
+
+        private synchronized void markDone(long line) {
+            retry.remove(line);
+            if (line < watermark) return;
+            completed.add(line);
+            while (completed.remove(watermark)) watermark++;
+        }
+
+        private synchronized long doneCount() {
+            return watermark - 1 + completed.size() - retry.size();
+        }
+    }
+
+    /**
+     * Appends records to the output and writes the checkpoints. All writes are
+     * serialized, so workers wait here when the disk falls behind.
+     */
+    private final class Sink implements AutoCloseable {
+        private final Progress progress;
+        private final FileChannel channel;
+        private final OutputStream out;
+        private long position;
+        private long sinceCheckpoint;
+        private long lookedUp;
+        private long failed;
+        private volatile IOException failure;
+
+        private Sink(Progress progress) throws IOException {
+            this.progress = progress;
+            this.channel = FileChannel.open(options.output(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.truncate(progress.outputBytes);
+            channel.position(progress.outputBytes);
+            this.position = progress.outputBytes;
+            this.out = new BufferedOutputStream(Channels.newOutputStream(channel));
+        }
+
+        private synchronized void write(ObjectNode record) {
+            if (failure != null) return;
+            try {
+                byte[] bytes = mapper.writeValueAsBytes(record);
+                out.write(bytes);
+                out.write('\n');
+                position += bytes.length + 1;
+
+                lookedUp++;
+                if (isError(record)) failed++;
+                progress.markDone(record.get("line").asLong());
+                if (++sinceCheckpoint >= options.checkpointEvery()) checkpoint();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private synchronized void skip(long lineNumber) {
+            progress.markDone(lineNumber);
+        }
+
+        private void checkpoint() throws IOException {
+            out.flush();
+            channel.force(false);
+
+            ObjectNode checkpoint = mapper.createObjectNode();
+            synchronized (progress) {
+                checkpoint.put("watermark", progress.watermark);
+                progress.completed.forEach(checkpoint.putArray("completed")::add);
+            }
+            checkpoint.put("outputBytes", position);
+
+            Path file = options.checkpointFile().toAbsolutePath();
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temporary, mapper.writeValueAsBytes(checkpoint));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            sinceCheckpoint = 0;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            try {
+                if (failure == null) checkpoint();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
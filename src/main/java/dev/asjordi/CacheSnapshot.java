@@ -0,0 +1,197 @@
+package dev.asjordi;
+
+import dev.asjordi.exceptions.CacheSnapshotException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes and reads binary snapshots of the WHOIS caches for warm starts.
+ * <p>
+ * A snapshot holds the server mappings the {@link WhoisCache} learned from IANA
+ * referrals and the live entries of the {@link WhoisResponseCache}, each with its
+ * absolute expiry. The layout is:
+ * <pre>
+ *     int    magic ("WHSN")
+ *     short  format version
+ *     long   creation time (epoch millis)
+ *     int    mapping count, then per mapping: string extension, string server
+ *     int    entry count, then per entry: string domain, long expiresAt, int length, UTF-8 response
+ * </pre>
+ * where a string is an unsigned short length followed by UTF-8 bytes.
+ * </p>
+ * <p>
+ * Snapshots are written to a temporary file and moved into place, so a reader
+ * never sees a partial file. On load the file is memory-mapped and entries that
+ * have expired are skipped by position without decoding their bodies, so the
+ * pages holding stale responses are never touched. Live responses are decoded
+ * and copied into the response cache during the load.
+ * </p>
+ */
+public final class CacheSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshot.class);
+
+    private static final int MAGIC = 0x5748534E;
+    private static final short VERSION = 1;
+
+    private CacheSnapshot() { }
+
+    /**
+     * Counts of what a snapshot operation wrote or restored.
+     *
+     * @param mappings the number of learned server mappings
+     * @param entries  the number of cached responses
+     * @param skipped  the number of responses skipped because they had expired or were already cached
+     */
+    public record Summary(int mappings, int entries, int skipped) { }
+
+    /**
+     * Writes the learned mappings and live cached responses of the service to a file.
+     *
+     * @param file         the snapshot file
+     * @param whoisService the service whose caches are saved
+     * @return what was written
+     * @throws CacheSnapshotException if the file cannot be written
+     */
+    public static Summary save(Path file, WhoisService whoisService) throws CacheSnapshotException {
+        Map<String, String> mappings = whoisService.getWhoisCache().getLearnedServers();
+        List<WhoisResponseCache.CachedResponse> entries = whoisService.getResponseCache().entries();
+        logger.atInfo().log("Writing cache snapshot to {} ({} mappings, {} entries)", file, mappings.size(), entries.size());
+
+        Path absolute = file.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try {
+            if (absolute.getParent() != null) Files.createDirectories(absolute.getParent());
+
+            try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                output.writeInt(MAGIC);
+                output.writeShort(VERSION);
+                output.writeLong(System.currentTimeMillis());
+
+                output.writeInt(mappings.size());
+                for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+                    writeString(output, mapping.getKey());
+                    writeString(output, mapping.getValue());
+                }
+
+                output.writeInt(entries.size());
+                for (WhoisResponseCache.CachedResponse entry : entries) {
+                    byte[] body = entry.response().getBytes(StandardCharsets.UTF_8);
+                    writeString(output, entry.domain());
+                    output.writeLong(entry.expiresAt());
+                    output.writeInt(body.length);
+                    output.write(body);
+                }
+            }
+
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.atError()
+                    .setMessage("Failed to write cache snapshot: {}")
+                    .addArgument(file)
+                    .setCause(e)
+                    .log();
+            throw new CacheSnapshotException("Failed to write cache snapshot to " + file, e);
+        }
+
+        return new Summary(mappings.size(), entries.size(), 0);
+    }
+
+    /**
+     * Loads a snapshot into the caches of the service and files the restored
+     * responses in its expiry index.
+     *
+     * @param file         the snapshot file
+     * @param whoisService the service whose caches are warmed
+     * @return what was restored
+     * @throws CacheSnapshotException if the file cannot be read or is not a valid snapshot
+     */
+    public static Summary load(Path file, WhoisService whoisService) throws CacheSnapshotException {
+        logger.atInfo().log("Loading cache snapshot from {}", file);
+        WhoisCache whoisCache = whoisService.getWhoisCache();
+        WhoisResponseCache responseCache = whoisService.getResponseCache();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC) throw new CacheSnapshotException("Not a cache snapshot: " + file);
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new CacheSnapshotException("Unsupported cache snapshot version " + version + ": " + file);
+            }
+            long createdAt = buffer.getLong();
+
+            int mappingCount = buffer.getInt();
+            for (int i = 0; i < mappingCount; i++) {
+                whoisCache.learnWhoisServer(readString(buffer), readString(buffer));
+            }
+
+            long now = System.currentTimeMillis();
+            int restored = 0;
+            int skipped = 0;
+            int entryCount = buffer.getInt();
+            for (int i = 0; i < entryCount; i++) {
+                String domain = readString(buffer);
+                long expiresAt = buffer.getLong();
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new CacheSnapshotException("Corrupt cache snapshot entry for " + domain + " in " + file);
+                }
+
+                if (expiresAt <= now) {
+                    buffer.position(buffer.position() + length);
+                    skipped++;
+                    continue;
+                }
+
+                byte[] body = new byte[length];
+                buffer.get(body);
+                String response = new String(body, StandardCharsets.UTF_8);
+                if (responseCache.restore(domain, response, expiresAt)) {
+                    whoisService.getExpiryIndex().update(domain, response);
+                    restored++;
+                } else {
+                    skipped++;
+                }
+            }
+
+            logger.atInfo().log("Loaded cache snapshot created at {}: {} mappings, {} entries, {} skipped",
+                    Instant.ofEpochMilli(createdAt), mappingCount, restored, skipped);
+            return new Summary(mappingCount, restored, skipped);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            logger.atError()
+                    .setMessage("Failed to read cache snapshot: {}")
+                    .addArgument(file)
+                    .setCause(e)
+                    .log();
+            throw new CacheSnapshotException("Failed to read cache snapshot from " + file, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,157 @@
+package dev.asjordi;
+
+import org.apache.commons.validator.routines.InetAddressValidator;
+
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An IPv4 or IPv6 network block in CIDR notation, e.g. {@code 192.0.2.0/24}.
+ * <p>
+ * The address is always the network address: host bits beyond the prefix are
+ * cleared on construction, so {@code 192.0.2.7/24} and {@code 192.0.2.0/24} are
+ * equal.
+ * </p>
+ *
+ * @param network      the network address
+ * @param prefixLength the number of leading bits that identify the network
+ */
+public record Cidr(InetAddress network, int prefixLength) {
+
+    public Cidr {
+        int bits = network.getAddress().length * 8;
+        if (prefixLength < 0 || prefixLength > bits) {
+            throw new IllegalArgumentException("Invalid prefix length " + prefixLength + " for " + network.getHostAddress());
+        }
+        network = toAddress(mask(network.getAddress(), prefixLength));
+    }
+
+    /**
+     * Parses a block such as {@code 192.0.2.0/24} or {@code 2001:db8::/32}. Trailing
+     * zero octets of an IPv4 network may be omitted, as in {@code 200.160/20}.
+     * Only address literals are accepted, so parsing never triggers a DNS lookup.
+     *
+     * @param text the block in CIDR notation
+     * @return the parsed block
+     * @throws IllegalArgumentException if the text is not a valid block
+     */
+    public static Cidr parse(String text) {
+        int slash = text.indexOf('/');
+        if (slash < 0) throw new IllegalArgumentException("Missing prefix length: " + text);
+
+        String address = text.substring(0, slash).strip();
+        if (!address.contains(":")) address = padIpv4(address);
+        try {
+            return new Cidr(parseAddress(address), Integer.parseInt(text.substring(slash + 1).strip()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid prefix length: " + text, e);
+        }
+    }
+
+    /**
+     * Parses an IPv4 or IPv6 address literal without ever consulting DNS.
+     *
+     * @param text the address literal
+     * @return the address
+     * @throws IllegalArgumentException if the text is not an address literal
+     */
+    public static InetAddress parseAddress(String text) {
+        String address = text.strip();
+        if (!InetAddressValidator.getInstance().isValid(address)) {
+            throw new IllegalArgumentException("Not an IP address: " + text);
+        }
+        try {
+            return InetAddress.getByName(address);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Not an IP address: " + text, e);
+        }
+    }
+
+    /**
+     * Returns the smallest set of blocks that exactly covers an address range,
+     * such as the {@code 193.0.0.0 - 193.0.7.255} ranges of RIPE-style answers.
+     *
+     * @param first the first address of the range
+     * @param last  the last address of the range, of the same family
+     * @return the covering blocks in address order
+     */
+    public static List<Cidr> fromRange(InetAddress first, InetAddress last) {
+        int bits = first.getAddress().length * 8;
+        if (last.getAddress().length * 8 != bits) throw new IllegalArgumentException("Mixed address families");
+
+        BigInteger start = new BigInteger(1, first.getAddress());
+        BigInteger end = new BigInteger(1, last.getAddress());
+        List<Cidr> blocks = new ArrayList<>();
+        while (start.compareTo(end) <= 0) {
+            // Largest block aligned at start that does not reach past end
+            int size = start.signum() == 0 ? bits : start.getLowestSetBit();
+            while (size > 0 && start.add(BigInteger.ONE.shiftLeft(size)).subtract(BigInteger.ONE).compareTo(end) > 0) {
+                size--;
+            }
+            blocks.add(new Cidr(toAddress(toBytes(start, bits / 8)), bits - size));
+            start = start.add(BigInteger.ONE.shiftLeft(size));
+        }
+        return blocks;
+    }
+
+    /**
+     * Returns whether the address lies inside this block.
+     *
+     * @param address the address to check
+     * @return {@code true} if the address belongs to the block
+     */
+    public boolean contains(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return bytes.length == network.getAddress().length
+                && Arrays.equals(mask(bytes, prefixLength), network.getAddress());
+    }
+
+    /**
+     * Returns the number of addresses in the block, as a power of two.
+     *
+     * @return the number of host bits
+     */
+    public int hostBits() {
+        return network.getAddress().length * 8 - prefixLength;
+    }
+
+    @Override
+    public String toString() {
+        return network.getHostAddress() + "/" + prefixLength;
+    }
+
+    private static String padIpv4(String address) {
+        String[] octets = address.split("\\.", -1);
+        if (octets.length >= 4) return address;
+        return address + ".0".repeat(4 - octets.length);
+    }
+
+    private static byte[] mask(byte[] address, int prefixLength) {
+        byte[] masked = address.clone();
+        for (int i = 0; i < masked.length; i++) {
+            int keep = Math.max(0, Math.min(8, prefixLength - i * 8));
+            masked[i] &= (byte) (0xFF00 >> keep);
+        }
+        return masked;
+    }
+
+    private static byte[] toBytes(BigInteger value, int length) {
+        byte[] raw = value.toByteArray();
+        byte[] bytes = new byte[length];
+        int copy = Math.min(raw.length, length);
+        System.arraycopy(raw, raw.length - copy, bytes, length - copy, copy);
+        return bytes;
+    }
+
+    private static InetAddress toAddress(byte[] bytes) {
+        try {
+            return InetAddress.getByAddress(bytes);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid address length: " + bytes.length, e);
+        }
+    }
+}
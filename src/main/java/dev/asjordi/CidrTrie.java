@@ -0,0 +1,185 @@
+package dev.asjordi;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A longest-prefix-match table of {@link Cidr} blocks.
+ * <p>
+ * The table is a path-compressed binary (radix) trie with one root per address
+ * family. Every node stands for a prefix and has at most two children, one per
+ * value of the next bit; chains of single-child nodes are collapsed into their
+ * last node, so the depth is bounded by the number of stored blocks rather than
+ * by the 32 or 128 bits of an address. A lookup walks from the root towards the
+ * address and remembers the deepest block with a value, so it costs at most one
+ * node visit per stored enclosing block.
+ * </p>
+ *
+ * @param <V> the type of the values stored per block
+ */
+public class CidrTrie<V> {
+
+    private Node<V> ipv4Root;
+    private Node<V> ipv6Root;
+    private int size;
+
+    /**
+     * Stores a value for the block, replacing a previous value for the same block.
+     *
+     * @param cidr  the block
+     * @param value the value
+     */
+    public synchronized void put(Cidr cidr, V value) {
+        byte[] key = cidr.network().getAddress();
+        int length = cidr.prefixLength();
+
+        Node<V> parent = null;
+        Node<V> node = root(key);
+        while (node != null) {
+            int common = commonPrefix(node.key, node.cidr.prefixLength(), key, length);
+            if (common == node.cidr.prefixLength() && common == length) {
+                if (node.value == null) size++;
+                node.value = value;
+                return;
+            }
+            if (common < node.cidr.prefixLength()) {
+                // The new block branches off, or is a prefix of, this node's prefix
+                Node<V> split;
+                if (common == length) {
+                    split = new Node<>(cidr, value);
+                } else {
+                    split = new Node<>(new Cidr(cidr.network(), common), null);
+                    split.setChild(bit(key, common), new Node<>(cidr, value));
+                }
+                split.setChild(bit(node.key, common), node);
+                replace(parent, node, split, key);
+                size++;
+                return;
+            }
+            parent = node;
+            node = node.child(bit(key, node.cidr.prefixLength()));
+        }
+
+        replace(parent, null, new Node<>(cidr, value), key);
+        size++;
+    }
+
+    /**
+     * Removes the value stored for exactly this block.
+     *
+     * @param cidr the block
+     * @return the removed value, or empty if the block had none
+     */
+    public synchronized Optional<V> remove(Cidr cidr) {
+        byte[] key = cidr.network().getAddress();
+        int length = cidr.prefixLength();
+
+        Node<V> grandparent = null;
+        Node<V> parent = null;
+        Node<V> node = root(key);
+        while (node != null && node.cidr.prefixLength() <= length
+                && commonPrefix(node.key, node.cidr.prefixLength(), key, length) == node.cidr.prefixLength()) {
+            if (node.cidr.prefixLength() == length) break;
+            grandparent = parent;
+            parent = node;
+            node = node.child(bit(key, node.cidr.prefixLength()));
+        }
+        if (node == null || !node.cidr.equals(cidr) || node.value == null) return Optional.empty();
+
+        V removed = node.value;
+        node.value = null;
+        size--;
+
+        // Drop the node if it no longer branches, then its parent if that became a bare pass-through
+        if (node.zero == null || node.one == null) {
+            replace(parent, node, node.zero != null ? node.zero : node.one, key);
+            if (parent != null && parent.value == null && (parent.zero == null || parent.one == null)) {
+                replace(grandparent, parent, parent.zero != null ? parent.zero : parent.one, key);
+            }
+        }
+        return Optional.of(removed);
+    }
+
+    /**
+     * Finds the most specific stored block containing the address.
+     *
+     * @param address the address to look up
+     * @return the block and its value, or empty if no stored block contains the address
+     */
+    public synchronized Optional<Map.Entry<Cidr, V>> longestMatch(InetAddress address) {
+        byte[] key = address.getAddress();
+        int length = key.length * 8;
+
+        Node<V> best = null;
+        Node<V> node = root(key);
+        while (node != null && commonPrefix(node.key, node.cidr.prefixLength(), key, length) == node.cidr.prefixLength()) {
+            if (node.value != null) best = node;
+            if (node.cidr.prefixLength() == length) break;
+            node = node.child(bit(key, node.cidr.prefixLength()));
+        }
+        return best == null ? Optional.empty() : Optional.of(Map.entry(best.cidr, best.value));
+    }
+
+    /**
+     * Returns the number of blocks with a value.
+     *
+     * @return the number of stored blocks
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private Node<V> root(byte[] key) {
+        return key.length == 4 ? ipv4Root : ipv6Root;
+    }
+
+    private void replace(Node<V> parent, Node<V> current, Node<V> replacement, byte[] key) {
+        if (parent == null) {
+            if (key.length == 4) ipv4Root = replacement;
+            else ipv6Root = replacement;
+        } else if (current == null) {
+            parent.setChild(bit(key, parent.cidr.prefixLength()), replacement);
+        } else if (parent.zero == current) {
+            parent.zero = replacement;
+        } else {
+            parent.one = replacement;
+        }
+    }
+
+    private static int bit(byte[] key, int index) {
+        return (key[index >> 3] >> (7 - (index & 7))) & 1;
+    }
+
+    private static int commonPrefix(byte[] a, int aLength, byte[] b, int bLength) {
+        int max = Math.min(aLength, bLength);
+        for (int i = 0; i * 8 < max; i++) {
+            int difference = (a[i] ^ b[i]) & 0xFF;
+            if (difference != 0) return Math.min(max, i * 8 + Integer.numberOfLeadingZeros(difference) - 24);
+        }
+        return max;
+    }
+
+    private static final class Node<V> {
+        private final Cidr cidr;
+        private final byte[] key;
+        private V value;
+        private Node<V> zero;
+        private Node<V> one;
+
+        private Node(Cidr cidr, V value) {
+            this.cidr = cidr;
+            this.key = cidr.network().getAddress();
+            this.value = value;
+        }
+
+        private Node<V> child(int bit) {
+            return bit == 0 ? zero : one;
+        }
+
+        private void setChild(int bit, Node<V> child) {
+            if (bit == 0) zero = child;
+            else one = child;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package dev.asjordi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Keeps the domains looked up so far ordered by their expiry date.
+ * <p>
+ * Every response the {@link WhoisService} caches is parsed and its expiry date
+ * filed in a concurrent skip list sorted by date, so "which domains expire
+ * within N days" is a range scan that costs {@code O(log n)} plus the size of
+ * the answer and never touches the network. A second map from domain to its
+ * filed date lets a newer lookup move the domain in place, and drops it when
+ * the registry reports it as no longer registered.
+ * </p>
+ * <p>
+ * The index outlives entries evicted from the response cache, since its
+ * entries are tiny. It holds at most {@code whois.expiry.maxDomains} domains
+ * (default 100000); beyond that the domain expiring last is dropped, as it is
+ * the least relevant to an "expiring soon" query.
+ * </p>
+ */
+public class ExpiryIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiryIndex.class);
+
+    /**
+     * A domain and the expiry date found in its latest response.
+     *
+     * @param domain the sanitized domain
+     * @param expiry the expiry date
+     */
+    public record Entry(String domain, Instant expiry) { }
+
+    private static final Comparator<Entry> BY_EXPIRY =
+            Comparator.comparing(Entry::expiry).thenComparing(Entry::domain);
+
+    private final ConcurrentSkipListSet<Entry> byExpiry = new ConcurrentSkipListSet<>(BY_EXPIRY);
+    private final Map<String, Instant> expiries = new ConcurrentHashMap<>();
+    private final int maxDomains;
+    private final Clock clock;
+
+    /**
+     * Creates an index configured from system properties.
+     */
+    public ExpiryIndex() {
+        this(Integer.getInteger("whois.expiry.maxDomains", 100_000), Clock.systemUTC());
+    }
+
+    ExpiryIndex(int maxDomains, Clock clock) {
+        this.maxDomains = maxDomains;
+        this.clock = clock;
+    }
+
+    /**
+     * Files the expiry date of a freshly fetched response, replacing the date
+     * filed for the domain before. Responses without an expiry date, or saying
+     * the domain is not registered, remove the domain from the index.
+     *
+     * @param domain   the sanitized domain
+     * @param response the raw WHOIS or RDAP response
+     */
+    public void update(String domain, String response) {
+        update(domain, WhoisRecord.parse(response));
+    }
+
+    /**
+     * Files the expiry date of an already parsed response, like {@link #update(String, String)}.
+     *
+     * @param domain the sanitized domain
+     * @param record the parsed WHOIS or RDAP response
+     */
+    public void update(String domain, WhoisRecord record) {
+        update(domain, record.notFound() ? Optional.empty() : record.expiry());
+    }
+
+    /**
+     * Files or removes the expiry date of a domain.
+     *
+     * @param domain the sanitized domain
+     * @param expiry the expiry date, or empty to remove the domain
+     */
+    public void update(String domain, Optional<Instant> expiry) {
+        // compute() serializes updates per domain, so the set and the map never disagree about it
+        expiries.compute(domain, (key, previous) -> {
+            if (previous != null) byExpiry.remove(new Entry(key, previous));
+            expiry.ifPresent(date -> byExpiry.add(new Entry(key, date)));
+            return expiry.orElse(null);
+        });
+
+        while (expiries.size() > maxDomains) {
+            Entry last = byExpiry.pollLast();
+            if (last == null) break;
+            expiries.remove(last.domain(), last.expiry());
+            logger.atDebug().log("Expiry index full, dropped {} expiring {}", last.domain(), last.expiry());
+        }
+    }
+
+    /**
+     * Returns the domains whose expiry date is before the deadline, soonest first.
+     * Domains that have already expired are included.
+     *
+     * @param deadline the exclusive upper bound
+     * @return the matching entries in expiry order
+     */
+    public List<Entry> expiringBefore(Instant deadline) {
+        return List.copyOf(byExpiry.headSet(new Entry("", deadline), false));
+    }
+
+    /**
+     * Returns the domains that expire within the given time from now, soonest first.
+     *
+     * @param window how far ahead to look
+     * @return the matching entries in expiry order
+     */
+    public List<Entry> expiringWithin(Duration window) {
+        return expiringBefore(clock.instant().plus(window));
+    }
+
+    /**
+     * Returns the expiry date filed for a domain.
+     *
+     * @param domain the sanitized domain
+     * @return the expiry date, or empty if the domain is not indexed
+     */
+    public Optional<Instant> expiry(String domain) {
+        return Optional.ofNullable(expiries.get(domain));
+    }
+
+    /**
+     * Returns the number of indexed domains.
+     *
+     * @return the number of domains with a known expiry date
+     */
+    public int size() {
+        return expiries.size();
+    }
+}
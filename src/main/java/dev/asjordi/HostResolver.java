@@ -0,0 +1,169 @@
+package dev.asjordi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Caches the addresses of WHOIS server hostnames so DNS stays off the query path.
+ * <p>
+ * Successful lookups are kept for the positive TTL and failed lookups for the
+ * shorter negative TTL, so an unresolvable server fails fast instead of waiting
+ * for a resolver timeout on every query. When a positive entry expires it is
+ * still served for the stale window while a background thread resolves the
+ * host again (stale-while-revalidate); only a host that was never resolved, or
+ * whose entry is older than the stale window, is resolved on the caller's thread.
+ * At most one background refresh per host is in flight at a time.
+ * </p>
+ * <p>
+ * Configuration is read from system properties:
+ * <ul>
+ *     <li>{@code whois.dns.ttlSeconds} - how long a resolved address is fresh (default 300)</li>
+ *     <li>{@code whois.dns.negativeTtlSeconds} - how long a failed lookup is remembered (default 30)</li>
+ *     <li>{@code whois.dns.staleSeconds} - how long an expired address may still be served while it is refreshed (default 3600)</li>
+ * </ul>
+ * </p>
+ */
+public class HostResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(HostResolver.class);
+
+    /**
+     * Resolves a hostname to its addresses.
+     */
+    @FunctionalInterface
+    interface Lookup {
+        InetAddress[] resolve(String host) throws UnknownHostException;
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Lookup lookup;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final Duration staleWindow;
+    private final Clock clock;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a resolver backed by the system resolver and configured from system properties.
+     */
+    public HostResolver() {
+        this(InetAddress::getAllByName,
+                Duration.ofSeconds(Long.getLong("whois.dns.ttlSeconds", 300)),
+                Duration.ofSeconds(Long.getLong("whois.dns.negativeTtlSeconds", 30)),
+                Duration.ofSeconds(Long.getLong("whois.dns.staleSeconds", 3600)),
+                Clock.systemUTC());
+    }
+
+    HostResolver(Lookup lookup, Duration ttl, Duration negativeTtl, Duration staleWindow, Clock clock) {
+        this.lookup = lookup;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.staleWindow = staleWindow;
+        this.clock = clock;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "whois-dns");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns an address for the host, from the cache when possible.
+     *
+     * @param host the hostname to resolve
+     * @return the first address of the host
+     * @throws UnknownHostException if the host cannot be resolved, or recently could not be
+     */
+    public InetAddress resolve(String host) throws UnknownHostException {
+        long now = clock.millis();
+        Entry entry = entries.get(host);
+
+        if (entry != null && now < entry.expiresAt()) {
+            return entry.address(host);
+        }
+
+        if (entry != null && entry.isPositive() && now < entry.expiresAt() + staleWindow.toMillis()) {
+            logger.atDebug().log("Serving stale address for {} while it is refreshed", host);
+            refreshInBackground(host);
+            return entry.address(host);
+        }
+
+        return resolveNow(host).address(host);
+    }
+
+    /**
+     * Resolves the given hosts in the background, so their first query does not wait for DNS.
+     *
+     * @param hosts the hostnames to pre-resolve
+     */
+    public void prefetch(Collection<String> hosts) {
+        logger.atDebug().log("Prefetching addresses of {} WHOIS servers", hosts.size());
+        hosts.forEach(this::refreshInBackground);
+    }
+
+    /**
+     * Returns the number of hosts currently cached, including failed lookups.
+     *
+     * @return the number of cached hosts
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void refreshInBackground(String host) {
+        if (!refreshing.add(host)) return;
+
+        executor.execute(() -> {
+            try {
+                resolveNow(host);
+            } finally {
+                refreshing.remove(host);
+            }
+        });
+    }
+
+    private Entry resolveNow(String host) {
+        Entry entry;
+        try {
+            InetAddress[] addresses = lookup.resolve(host);
+            entry = new Entry(addresses[0], null, clock.millis() + ttl.toMillis());
+            logger.atDebug().log("Resolved WHOIS server {} to {}", host, addresses[0].getHostAddress());
+        } catch (UnknownHostException e) {
+            Entry previous = entries.get(host);
+            if (previous != null && previous.isPositive()
+                    && clock.millis() < previous.expiresAt() + staleWindow.toMillis()) {
+                // Keep serving the last known address while the resolver is failing
+                logger.atWarn().log("Could not refresh address of {}, keeping the stale one", host);
+                return previous;
+            }
+            entry = new Entry(null, e.getMessage(), clock.millis() + negativeTtl.toMillis());
+            logger.atWarn().log("Host resolution failed for WHOIS server {}, caching the failure", host);
+        }
+        entries.put(host, entry);
+        return entry;
+    }
+
+    private record Entry(InetAddress address, String failure, long expiresAt) {
+
+        boolean isPositive() {
+            return address != null;
+        }
+
+        InetAddress address(String host) throws UnknownHostException {
+            if (address != null) return address;
+            throw new UnknownHostException(failure != null ? failure : host);
+        }
+    }
+}
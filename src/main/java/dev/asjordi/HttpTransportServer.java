@@ -0,0 +1,136 @@
+package dev.asjordi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.asjordi.exceptions.McpException;
+import io.modelcontextprotocol.server.transport.HttpServletSseServerTransportProvider;
+import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee10.servlet.ServletHolder;
+import org.eclipse.jetty.server.NetworkConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves the MCP server over HTTP with Server-Sent Events on an embedded Jetty.
+ * <p>
+ * In this mode a single long-running process serves any number of MCP clients,
+ * which then share the WHOIS caches, rate limits and refresh-ahead scheduler
+ * instead of each client starting its own JVM. Clients open an SSE stream at
+ * {@value #SSE_ENDPOINT} and post their messages to {@value #MESSAGE_ENDPOINT}.
+ * </p>
+ * <p>
+ * SSE streams are asynchronous and do not hold a Jetty thread; the pool only
+ * bounds the threads handling concurrent HTTP requests. Configuration is read from
+ * the {@code whois.http.host} (default {@code 127.0.0.1}), {@code whois.http.port}
+ * (default 8080) and {@code whois.http.maxThreads} (default 64) system properties.
+ * </p>
+ */
+public class HttpTransportServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpTransportServer.class);
+
+    static final String SSE_ENDPOINT = "/sse";
+    static final String MESSAGE_ENDPOINT = "/mcp/message";
+
+    private final HttpServletSseServerTransportProvider transportProvider;
+    private final Server server;
+
+    /**
+     * Creates a server configured from system properties.
+     *
+     * @param objectMapper the mapper used to (de)serialize MCP messages
+     */
+    public HttpTransportServer(ObjectMapper objectMapper) {
+        this(objectMapper,
+                System.getProperty("whois.http.host", "127.0.0.1"),
+                Integer.getInteger("whois.http.port", 8080),
+                Integer.getInteger("whois.http.maxThreads", 64));
+    }
+
+    HttpTransportServer(ObjectMapper objectMapper, String host, int port, int maxThreads) {
+        this.transportProvider = HttpServletSseServerTransportProvider.builder()
+                .objectMapper(objectMapper)
+                .sseEndpoint(SSE_ENDPOINT)
+                .messageEndpoint(MESSAGE_ENDPOINT)
+                .build();
+
+        QueuedThreadPool threadPool = new QueuedThreadPool(maxThreads, Math.min(8, maxThreads));
+        threadPool.setName("whois-http");
+        threadPool.setDaemon(true);
+
+        this.server = new Server(threadPool);
+        ServerConnector connector = new ServerConnector(server);
+        connector.setHost(host);
+        connector.setPort(port);
+        server.addConnector(connector);
+
+        ServletContextHandler context = new ServletContextHandler();
+        context.setContextPath("/");
+        ServletHolder holder = new ServletHolder(transportProvider);
+        holder.setAsyncSupported(true);
+        context.addServlet(holder, "/*");
+        server.setHandler(context);
+    }
+
+    /**
+     * Returns the transport provider to build the MCP server with. The MCP server
+     * must be built before {@link #start()} is called.
+     *
+     * @return the SSE transport provider
+     */
+    public HttpServletSseServerTransportProvider getTransportProvider() {
+        return transportProvider;
+    }
+
+    /**
+     * Starts accepting HTTP connections.
+     *
+     * @throws McpException if the server cannot be started
+     */
+    public void start() throws McpException {
+        try {
+            server.start();
+            logger.atInfo().log("WHOIS MCP server listening on http://{}:{}{}",
+                    ((NetworkConnector) server.getConnectors()[0]).getHost(), getPort(), SSE_ENDPOINT);
+        } catch (Exception e) {
+            logger.atError()
+                    .setMessage("Failed to start HTTP transport")
+                    .setCause(e)
+                    .log();
+            throw new McpException("Failed to start HTTP transport", e);
+        }
+    }
+
+    /**
+     * Returns the port the server is bound to, which is useful when port 0 was requested.
+     *
+     * @return the local port, or -1 if the server is not started
+     */
+    public int getPort() {
+        return ((NetworkConnector) server.getConnectors()[0]).getLocalPort();
+    }
+
+    /**
+     * Blocks until the server stops.
+     *
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public void join() throws InterruptedException {
+        server.join();
+    }
+
+    @Override
+    public void close() {
+        try {
+            transportProvider.closeGracefully().block();
+            server.stop();
+        } catch (Exception e) {
+            logger.atWarn()
+                    .setMessage("Error stopping HTTP transport")
+                    .setCause(e)
+                    .log();
+        }
+    }
+}
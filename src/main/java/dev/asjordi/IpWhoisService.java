@@ -0,0 +1,355 @@
+package dev.asjordi;
+
+import dev.asjordi.exceptions.InvalidQueryException;
+import dev.asjordi.exceptions.WhoisQueryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Performs WHOIS queries for IP addresses and autonomous system numbers.
+ * <p>
+ * IP queries are routed to the Regional Internet Registry that holds the address:
+ * the blocks of the bundled {@code rir-allocations.txt} table are kept in a
+ * {@link CidrTrie} and the most specific block containing the address names the
+ * server. Addresses outside every block go to IANA; the block and registry from
+ * its referral are added to the table, so the next address in that block is
+ * routed directly. A {@code ReferralServer} in a registry's answer, as ARIN gives
+ * for legacy space managed elsewhere, is followed once.
+ * </p>
+ * <p>
+ * Answers are cached per network block rather than per address: the most
+ * specific {@code NetRange}, {@code CIDR}, {@code inetnum} or {@code inet6num}
+ * block of the answer that contains the queried address is stored in a second
+ * trie, and any later address inside that block is answered from memory. AS
+ * numbers are routed by the AS blocks learned from IANA referrals and cached
+ * per number.
+ * </p>
+ * <p>
+ * Queries go through the {@link WhoisService}, so they share its per-server rate
+ * budgets, throttle detection, server statistics and address resolution.
+ * Configuration is read from system properties:
+ * <ul>
+ *     <li>{@code whois.ip.cacheTtlMinutes} - how long an answer is reused (default 1440)</li>
+ *     <li>{@code whois.ip.cacheSize} - most blocks and AS numbers kept in the cache (default 10000)</li>
+ * </ul>
+ * </p>
+ */
+public class IpWhoisService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IpWhoisService.class);
+    private static final String ROUTES_RESOURCE = "rir-allocations.txt";
+    private static final String ARIN_WHOIS_SERVER = "whois.arin.net";
+    private static final long MAX_ASN = 4_294_967_295L;
+
+    private static final Pattern ASN_PATTERN = Pattern.compile("(?i)(?:AS)?(\\d{1,10})");
+    private static final Pattern NETBLOCK_PATTERN = Pattern.compile(
+            "^(?:NetRange|CIDR|inetnum|inet6num):\\s*(.+?)\\s*$", Pattern.MULTILINE | Pattern.CASE_INSENSITIVE);
+    private static final Pattern AS_BLOCK_PATTERN = Pattern.compile(
+            "^as-block:\\s*(?:AS)?(\\d+)\\s*-\\s*(?:AS)?(\\d+)\\s*$", Pattern.MULTILINE | Pattern.CASE_INSENSITIVE);
+    private static final Pattern REFERRAL_SERVER_PATTERN = Pattern.compile(
+            "^ReferralServer:\\s*whois://([^\\s:/]+)", Pattern.MULTILINE | Pattern.CASE_INSENSITIVE);
+
+    private final WhoisService whoisService;
+    private final CidrTrie<String> routes;
+    private final TreeMap<Long, AsBlock> asBlocks = new TreeMap<>();
+    private final CidrTrie<CachedAnswer> netblockCache = new CidrTrie<>();
+    private final LinkedHashMap<Cidr, Boolean> netblockOrder = new LinkedHashMap<>();
+    private final LinkedHashMap<Long, CachedAnswer> asnCache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Clock clock;
+
+    /**
+     * Creates a service with the bundled routing table, configured from system properties.
+     *
+     * @param whoisService the service that sends the queries
+     */
+    public IpWhoisService(WhoisService whoisService) {
+        this(whoisService, loadRoutes(), Duration.ofMinutes(Long.getLong("whois.ip.cacheTtlMinutes", 1440)),
+                Integer.getInteger("whois.ip.cacheSize", 10000), Clock.systemUTC());
+    }
+
+    IpWhoisService(WhoisService whoisService, CidrTrie<String> routes, Duration ttl, int maxEntries, Clock clock) {
+        this.whoisService = whoisService;
+        this.routes = routes;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    private record CachedAnswer(String response, Instant expiresAt) { }
+
+    private record AsBlock(long first, long last, String whoisServer) { }
+
+    /**
+     * Loads the bundled routing table of RIR allocations.
+     *
+     * @return the table mapping blocks to WHOIS servers
+     */
+    static CidrTrie<String> loadRoutes() {
+        CidrTrie<String> routes = new CidrTrie<>();
+        try (InputStream input = IpWhoisService.class.getClassLoader().getResourceAsStream(ROUTES_RESOURCE)) {
+            if (input == null) {
+                logger.atWarn().log("RIR allocation table not found, IP queries start at IANA");
+                return routes;
+            }
+            var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] fields = line.split("\\s+");
+                try {
+                    routes.put(Cidr.parse(fields[0]), fields[1].toLowerCase());
+                } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                    logger.atWarn().log("Ignoring invalid RIR allocation entry: {}", line);
+                }
+            }
+        } catch (IOException e) {
+            logger.atError()
+                    .setMessage("Error loading RIR allocation table")
+                    .setCause(e)
+                    .log();
+        }
+        logger.atDebug().log("Loaded {} RIR allocation blocks", routes.size());
+        return routes;
+    }
+
+    /**
+     * Performs a WHOIS query for an IP address or an AS number.
+     *
+     * @param query    an IPv4 or IPv6 address, or an AS number such as {@code AS15169}
+     * @param progress receives a short description of each step
+     * @return the raw WHOIS response, or empty if the registry sent none
+     * @throws InvalidQueryException if the query is neither an address nor an AS number
+     * @throws WhoisQueryException   if the address is reserved or the query fails
+     */
+    public Optional<String> performIpWhoisQuery(String query, Consumer<String> progress)
+            throws InvalidQueryException, WhoisQueryException {
+        if (query == null || query.isBlank()) throw new InvalidQueryException("Query is blank");
+        String trimmed = query.strip();
+
+        Matcher asn = ASN_PATTERN.matcher(trimmed);
+        if (asn.matches()) {
+            long number = Long.parseLong(asn.group(1));
+            if (number > MAX_ASN) throw new InvalidQueryException("Invalid AS number: " + query);
+            return queryAsn(number, progress);
+        }
+
+        InetAddress address;
+        try {
+            address = Cidr.parseAddress(trimmed);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidQueryException("Not an IP address or AS number: " + query);
+        }
+        return queryAddress(address, progress);
+    }
+
+    private Optional<String> queryAddress(InetAddress address, Consumer<String> progress) throws WhoisQueryException {
+        String text = address.getHostAddress();
+        // Checked before routing: the RIR table maps whole /8s such as 10/8 and 192/8 to a registry
+        if (isReserved(address)) {
+            throw new WhoisQueryException(text + " is a private or reserved address without public WHOIS data");
+        }
+
+        Optional<Map.Entry<Cidr, CachedAnswer>> cached = netblockCache.longestMatch(address);
+        if (cached.isPresent() && cached.get().getValue().expiresAt().isAfter(clock.instant())) {
+            logger.atInfo().log("IP WHOIS answer for {} served from cache of {}", text, cached.get().getKey());
+            progress.accept("served from cache of " + cached.get().getKey());
+            return Optional.of(cached.get().getValue().response());
+        }
+
+        String whoisServer = routes.longestMatch(address)
+                .map(Map.Entry::getValue)
+                .orElse(WhoisService.IANA_WHOIS_SERVER);
+        Optional<String> result = whoisService.query(whoisServer, addressQuery(whoisServer, text),
+                QueryScheduler.Priority.INTERACTIVE, progress);
+
+        if (result.isPresent() && WhoisService.IANA_WHOIS_SERVER.equals(whoisServer)) {
+            Optional<String> referral = WhoisService.findReferral(result.get());
+            if (referral.isPresent()) {
+                mostSpecificBlock(result.get(), address).forEach(cidr -> routes.put(cidr, referral.get()));
+                logger.atInfo().log("Following IANA referral for {} to {}", text, referral.get());
+                progress.accept("following referral to " + referral.get());
+                whoisServer = referral.get();
+                result = whoisService.query(whoisServer, addressQuery(whoisServer, text),
+                        QueryScheduler.Priority.INTERACTIVE, step -> { });
+            }
+        }
+
+        if (result.isPresent()) {
+            Matcher referral = REFERRAL_SERVER_PATTERN.matcher(result.get());
+            if (referral.find() && !referral.group(1).equalsIgnoreCase(whoisServer)) {
+                String referred = referral.group(1).toLowerCase();
+                logger.atInfo().log("Following {} referral for {} to {}", whoisServer, text, referred);
+                progress.accept("following referral to " + referred);
+                result = whoisService.query(referred, addressQuery(referred, text),
+                        QueryScheduler.Priority.INTERACTIVE, step -> { });
+            }
+        }
+
+        result.ifPresent(response -> cacheNetblock(address, response));
+        return result;
+    }
+
+    private Optional<String> queryAsn(long number, Consumer<String> progress) throws WhoisQueryException {
+        synchronized (asnCache) {
+            CachedAnswer cached = asnCache.get(number);
+            if (cached != null && cached.expiresAt().isAfter(clock.instant())) {
+                progress.accept("served from cache");
+                return Optional.of(cached.response());
+            }
+        }
+
+        String whoisServer = asBlockServer(number).orElse(WhoisService.IANA_WHOIS_SERVER);
+        Optional<String> result = whoisService.query(whoisServer, asnQuery(whoisServer, number),
+                QueryScheduler.Priority.INTERACTIVE, progress);
+
+        if (result.isPresent() && WhoisService.IANA_WHOIS_SERVER.equals(whoisServer)) {
+            Optional<String> referral = WhoisService.findReferral(result.get());
+            if (referral.isPresent()) {
+                learnAsBlock(result.get(), number, referral.get());
+                progress.accept("following referral to " + referral.get());
+                result = whoisService.query(referral.get(), asnQuery(referral.get(), number),
+                        QueryScheduler.Priority.INTERACTIVE, step -> { });
+            }
+        }
+
+        result.ifPresent(response -> {
+            synchronized (asnCache) {
+                asnCache.put(number, new CachedAnswer(response, clock.instant().plus(ttl)));
+                if (asnCache.size() > maxEntries) {
+                    Iterator<Long> eldest = asnCache.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        });
+        return result;
+    }
+
+    // ARIN expects a type flag, the other registries take the bare address or number
+    private static String addressQuery(String whoisServer, String address) {
+        return ARIN_WHOIS_SERVER.equals(whoisServer) ? "n + " + address : address;
+    }
+
+    private static String asnQuery(String whoisServer, long number) {
+        return ARIN_WHOIS_SERVER.equals(whoisServer) ? "a " + number : "AS" + number;
+    }
+
+    private synchronized Optional<String> asBlockServer(long number) {
+        Map.Entry<Long, AsBlock> entry = asBlocks.floorEntry(number);
+        return entry != null && number <= entry.getValue().last()
+                ? Optional.of(entry.getValue().whoisServer())
+                : Optional.empty();
+    }
+
+    private synchronized void learnAsBlock(String response, long number, String whoisServer) {
+        Matcher matcher = AS_BLOCK_PATTERN.matcher(response);
+        while (matcher.find()) {
+            long first = Long.parseLong(matcher.group(1));
+            long last = Long.parseLong(matcher.group(2));
+            if (first <= number && number <= last) {
+                asBlocks.put(first, new AsBlock(first, last, whoisServer));
+                logger.atDebug().log("Learned AS{}-AS{} -> {}", first, last, whoisServer);
+                return;
+            }
+        }
+    }
+
+    private void cacheNetblock(InetAddress address, String response) {
+        List<Cidr> blocks = mostSpecificBlock(response, address);
+        if (blocks.isEmpty()) blocks = List.of(new Cidr(address, address.getAddress().length * 8));
+
+        CachedAnswer answer = new CachedAnswer(response, clock.instant().plus(ttl));
+        synchronized (netblockOrder) {
+            for (Cidr block : blocks) {
+                netblockCache.put(block, answer);
+                netblockOrder.remove(block);
+                netblockOrder.put(block, Boolean.TRUE);
+            }
+            Iterator<Cidr> eldest = netblockOrder.keySet().iterator();
+            while (netblockOrder.size() > maxEntries) {
+                netblockCache.remove(eldest.next());
+                eldest.remove();
+            }
+        }
+        logger.atDebug().log("Cached IP WHOIS answer for {} under {}", address.getHostAddress(), blocks);
+    }
+
+    /**
+     * Finds the network blocks of a WHOIS answer and returns the most specific one
+     * that contains the address. ARIN lists a block as a range and as CIDRs, the
+     * other registries as a range or a single CIDR; ranges that are not a single
+     * CIDR are returned as the CIDRs that cover them.
+     *
+     * @param response the raw WHOIS answer
+     * @param address  the queried address
+     * @return the CIDRs of the most specific block containing the address, or an empty list
+     */
+    static List<Cidr> mostSpecificBlock(String response, InetAddress address) {
+        List<Cidr> best = List.of();
+        int bestPrefix = -1;
+
+        Matcher matcher = NETBLOCK_PATTERN.matcher(response);
+        while (matcher.find()) {
+            List<Cidr> blocks = parseBlocks(matcher.group(1));
+            for (Cidr block : blocks) {
+                if (block.contains(address) && block.prefixLength() > bestPrefix) {
+                    best = blocks;
+                    bestPrefix = block.prefixLength();
+                }
+            }
+        }
+        return best;
+    }
+
+    private static List<Cidr> parseBlocks(String value) {
+        try {
+            int dash = value.indexOf(" - ");
+            if (dash > 0) {
+                return Cidr.fromRange(Cidr.parseAddress(value.substring(0, dash)),
+                        Cidr.parseAddress(value.substring(dash + 3)));
+            }
+            List<Cidr> blocks = new ArrayList<>();
+            for (String part : value.split(",")) {
+                if (part.contains("/")) blocks.add(Cidr.parse(part.strip()));
+            }
+            return blocks;
+        } catch (IllegalArgumentException e) {
+            logger.atDebug().log("Ignoring unparseable network block: {}", value);
+            return List.of();
+        }
+    }
+
+    private static boolean isReserved(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        boolean uniqueLocal = address instanceof Inet6Address && (bytes[0] & 0xFE) == 0xFC;
+        // 100.64.0.0/10, the shared address space of carrier-grade NAT
+        boolean sharedAddressSpace = address instanceof Inet4Address && bytes[0] == 100 && (bytes[1] & 0xC0) == 0x40;
+        return address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress() || uniqueLocal || sharedAddressSpace;
+    }
+}
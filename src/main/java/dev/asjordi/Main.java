@@ -1,19 +1,49 @@
 package dev.asjordi;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.asjordi.AvailabilityDetector.Availability;
+import dev.asjordi.exceptions.CacheSnapshotException;
 import dev.asjordi.exceptions.DomainValidationException;
+import dev.asjordi.exceptions.InvalidQueryException;
+import dev.asjordi.exceptions.OverloadedException;
 import dev.asjordi.exceptions.WhoisQueryException;
 import io.modelcontextprotocol.server.McpServer;
 import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.server.McpSyncServer;
 import io.modelcontextprotocol.server.McpSyncServerExchange;
 import io.modelcontextprotocol.server.transport.StdioServerTransportProvider;
 import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Main application class for the WHOIS MCP server.
@@ -23,52 +53,224 @@ import java.util.Map;
  * communication and exposes a tool for querying WHOIS information for domains.
  * </p>
  * <p>
+ * With {@code -Dwhois.transport=sse} the server instead listens for HTTP/SSE
+ * connections through an {@link HttpTransportServer}, so one process and its
+ * caches are shared by many clients.
+ * </p>
+ * <p>
  * The server implementation utilizes the MCP framework to handle requests and
  * responses in a standardized format, making it compatible with MCP clients.
  * </p>
+ * <p>
+ * When the {@code whois.snapshot.file} system property is set, the caches are
+ * loaded from that snapshot at startup and written back on shutdown.
+ * </p>
+ * <p>
+ * When the {@code whois.trace.file} system property is set, every domain lookup
+ * of {@code get_whois} and {@code whois_diff} is appended to that file by a
+ * {@link TraceRecorder}.
+ * </p>
  */
 public class Main {
 
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
-    private static final WhoisService whoisService = new WhoisService();
+    private static final String DEFAULT_PREFETCH_TLDS = "com,net,org,io,co,dev,app";
+
+    // Replaced by main() with a future that the warm-up completes once the cache snapshot is restored
+    private static volatile CompletableFuture<Void> cachesRestored = CompletableFuture.completedFuture(null);
+
+    /**
+     * Holds the WHOIS components so they are built on first use rather than when
+     * {@code Main} is loaded, keeping their initialization off the path to the
+     * first MCP response.
+     */
+    private static final class Services {
+        private static final WhoisService WHOIS_SERVICE = new WhoisService();
+        private static final WhoisDiffTracker DIFF_TRACKER = new WhoisDiffTracker();
+        private static final AdmissionController ADMISSION_CONTROLLER = new AdmissionController();
+        private static final IpWhoisService IP_WHOIS_SERVICE = new IpWhoisService(WHOIS_SERVICE);
+        private static final AvailabilityChecker AVAILABILITY_CHECKER =
+                new AvailabilityChecker(WHOIS_SERVICE, ADMISSION_CONTROLLER);
+        private static final TraceRecorder TRACE_RECORDER = TraceRecorder.fromSystemProperties();
+    }
 
     /**
      * The entry point of the application.
      * <p>
      * Initializes and starts the MCP server with the WHOIS tool specification.
-     * The server communicates over standard input/output and provides domain
-     * WHOIS lookup capabilities.
+     * The server communicates over standard input/output, or over HTTP/SSE when
+     * the {@code whois.transport} system property is {@code sse}, and provides
+     * domain WHOIS lookup capabilities.
      * </p>
      *
      * @param args Command line arguments (not used)
      */
-    public static void main(String[] args) {
-        var transportProvider = new StdioServerTransportProvider(new ObjectMapper());
-        var syncToolSpecification = getSyncToolSpecification();
+    public static void main(String[] args) throws InterruptedException {
+        cachesRestored = new CompletableFuture<>();
+        if ("sse".equalsIgnoreCase(System.getProperty("whois.transport", "stdio"))) {
+            serveOverHttp();
+        } else {
+            createServer(new StdioServerTransportProvider(new ObjectMapper()));
+            warmUpInBackground();
+            logger.atInfo().log("Starting WHOIS server...");
+        }
+    }
+
+    /**
+     * Serves the MCP server over HTTP/SSE. Jetty is only packaged in the
+     * {@code -sse} jar, so the plain jar reports how to get it instead.
+     */
+    private static void serveOverHttp() throws InterruptedException {
+        HttpTransportServer httpServer;
+        try {
+            httpServer = new HttpTransportServer(new ObjectMapper());
+        } catch (NoClassDefFoundError e) {
+            logger.atError().log("The HTTP/SSE transport needs Jetty, which is only included in whois-mcp-<version>-sse.jar");
+            System.exit(1);
+            return;
+        }
+
+        createServer(httpServer.getTransportProvider());
+        httpServer.start();
+        warmUpInBackground();
+        logger.atInfo().log("Starting WHOIS server on HTTP/SSE transport...");
+        httpServer.join();
+    }
 
-        McpServer.sync(transportProvider)
+    private static void watchServerOverrides(WhoisCache whoisCache) {
+        try {
+            new ServerMappingWatcher(whoisCache).start();
+        } catch (IOException e) {
+            logger.atError()
+                    .setMessage("Cannot watch WHOIS server override file, changes require a restart")
+                    .setCause(e)
+                    .log();
+        }
+    }
+
+    /**
+     * Builds the WHOIS components, restores the cache snapshot, pre-resolves the
+     * busiest WHOIS servers, watches the server override file and starts the
+     * refresh-ahead scheduler on a background thread, so the server can answer
+     * {@code initialize} and {@code tools/list} right away. A tool call that
+     * needs the WHOIS service and arrives earlier waits until the snapshot has
+     * been restored; the remaining steps carry on concurrently with it.
+     */
+    private static void warmUpInBackground() {
+        Thread thread = new Thread(() -> {
+            WhoisService service = Services.WHOIS_SERVICE;
+            try {
+                getSnapshotFile().ifPresent(file -> restoreSnapshot(file, service));
+            } finally {
+                cachesRestored.complete(null);
+            }
+            service.prefetchHotServers(getPrefetchExtensions(), Integer.getInteger("whois.dns.prefetchLimit", 16));
+
+            if (service.getWhoisCache().getOverrideFile().isPresent()) {
+                watchServerOverrides(service.getWhoisCache());
+            }
+
+            if (Boolean.parseBoolean(System.getProperty("whois.refresh.enabled", "true"))) {
+                new RefreshAheadScheduler(service).start();
+            }
+            logger.atDebug().log("WHOIS components initialized");
+        }, "whois-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static WhoisService whoisService() {
+        cachesRestored.join();
+        return Services.WHOIS_SERVICE;
+    }
+
+    private static AdmissionController admissionController() {
+        return Services.ADMISSION_CONTROLLER;
+    }
+
+    private static WhoisDiffTracker diffTracker() {
+        return Services.DIFF_TRACKER;
+    }
+
+    private static IpWhoisService ipWhoisService() {
+        return Services.IP_WHOIS_SERVICE;
+    }
+
+    private static AvailabilityChecker availabilityChecker() {
+        cachesRestored.join();
+        return Services.AVAILABILITY_CHECKER;
+    }
+
+    private static TraceRecorder traceRecorder() {
+        return Services.TRACE_RECORDER;
+    }
+
+    /**
+     * Builds the MCP server with all WHOIS tools on the given transport.
+     *
+     * @param transportProvider the transport the server communicates over
+     * @return the running MCP server
+     */
+    static McpSyncServer createServer(McpServerTransportProvider transportProvider) {
+        return McpServer.sync(transportProvider)
                 .serverInfo("whois-mcp-server", "0.0.1")
                 .capabilities(McpSchema.ServerCapabilities.builder()
                         .tools(true)
                         .logging()
                         .build())
-                .tools(syncToolSpecification)
+                .tools(getSyncToolSpecification(), getIpWhoisToolSpecification(), getAvailabilityToolSpecification(),
+                        getSnapshotToolSpecification(), getDiffToolSpecification(), getExpiringToolSpecification())
                 .build();
+    }
+
+    private static Optional<Path> getSnapshotFile() {
+        return Optional.ofNullable(System.getProperty("whois.snapshot.file"))
+                .filter(value -> !value.isBlank())
+                .map(Path::of);
+    }
+
+    private static List<String> getPrefetchExtensions() {
+        return Arrays.stream(System.getProperty("whois.dns.prefetchTlds", DEFAULT_PREFETCH_TLDS).split(","))
+                .map(String::strip)
+                .filter(tld -> !tld.isEmpty())
+                .map(tld -> tld.startsWith(".") ? tld : "." + tld)
+                .toList();
+    }
+
+    private static void restoreSnapshot(Path snapshotFile, WhoisService service) {
+        if (Files.isRegularFile(snapshotFile)) {
+            try {
+                CacheSnapshot.load(snapshotFile, service);
+            } catch (CacheSnapshotException e) {
+                logger.atWarn().log("Starting with empty caches: {}", e.getMessage());
+            }
+        } else {
+            logger.atInfo().log("No cache snapshot found at {}", snapshotFile);
+        }
 
-        logger.atInfo().log("Starting WHOIS server...");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                CacheSnapshot.save(snapshotFile, service);
+            } catch (CacheSnapshotException e) {
+                logger.atError().log("Could not save cache snapshot on shutdown: {}", e.getMessage());
+            }
+        }, "whois-snapshot"));
     }
 
     /**
      * Creates and returns the specification for the WHOIS tool.
      * <p>
      * This method defines the schema and behavior of the WHOIS lookup tool,
-     * including the expected input format (a domain name) and the processing
-     * logic that performs the actual WHOIS query.
+     * including the expected input format (a domain name, or a list of domains)
+     * and the processing logic that performs the actual WHOIS queries.
      * </p>
      * <p>
-     * The tool validates the provided domain, performs the WHOIS query using
+     * The tool validates the provided domains, performs the WHOIS queries using
      * the WhoisService, and returns the results in a format compatible with
-     * the MCP specification.
+     * the MCP specification. While it works, each server queried, each referral
+     * followed and, for several domains, each finished result is sent to the
+     * client as a logging notification through {@link ToolProgress}, so early
+     * results are available before the call completes.
      * </p>
      *
      * @return A tool specification that can be registered with the MCP server
@@ -82,42 +284,401 @@ public class Main {
                 "domain" : {
                   "type" : "string",
                   "description": "The domain to lookup WHOIS information for"
+                },
+                "domains" : {
+                  "type" : "array",
+                  "items" : { "type" : "string" },
+                  "description": "Several domains to lookup; results are streamed as notifications as they complete"
                 }
-              },
-              "required": ["domain"]
+              }
             }
         """;
 
         return new McpServerFeatures.SyncToolSpecification(
                 new McpSchema.Tool(
                         "get_whois",
-                        "Get WHOIS information for a domain",
+                        "Get WHOIS information for a domain or a list of domains",
                         schema
                 ),
                 (McpSyncServerExchange exchange, Map<String, Object> args) -> {
 
-                    String domain = (String) args.get("domain");
+                    List<String> domains = requestedDomains(args);
+                    if (domains.isEmpty()) {
+                        return errorResult("Error: a domain or a list of domains is required");
+                    }
+                    int maxDomains = Integer.getInteger("whois.multi.maxDomains", 50);
+                    if (domains.size() > maxDomains) {
+                        return errorResult("Error: at most " + maxDomains + " domains can be looked up in one call");
+                    }
+
+                    ToolProgress progress = ToolProgress.of(exchange, "get_whois");
+                    if (domains.size() == 1) {
+                        var result = lookup(domains.get(0), progress);
+                        return new McpSchema.CallToolResult(List.of(new McpSchema.TextContent(result.text())), result.error());
+                    }
+                    return lookupAll(domains, progress);
+                }
+        );
+    }
+
+    /**
+     * The outcome of looking up one domain of a {@code get_whois} call.
+     *
+     * @param domain the requested domain
+     * @param text   the WHOIS response or the error message
+     * @param error  whether the lookup failed
+     */
+    private record LookupResult(String domain, String text, boolean error) { }
+
+    private static List<String> requestedDomains(Map<String, Object> args) {
+        Set<String> domains = new LinkedHashSet<>();
+        if (args.get("domain") instanceof String domain) domains.add(domain);
+        if (args.get("domains") instanceof List<?> list) {
+            list.stream()
+                    .filter(String.class::isInstance)
+                    .map(String.class::cast)
+                    .forEach(domains::add);
+        }
+        return new ArrayList<>(domains);
+    }
+
+    private static LookupResult lookup(String domain, ToolProgress progress) {
+        try {
+            var info = tracedLookup(domain, false, step -> progress.step(domain, step));
+
+            if (info.isPresent()) {
+                logger.atInfo().log("WHOIS information retrieved for domain: {}", domain);
+                return new LookupResult(domain, info.get(), false);
+            } else {
+                logger.atInfo().log("No WHOIS information available for domain: {}", domain);
+                return new LookupResult(domain, "No WHOIS information available for " + domain, false);
+            }
+        } catch (OverloadedException e) {
+            return new LookupResult(domain, "Error: " + e.getMessage(), true);
+        } catch (DomainValidationException | WhoisQueryException e) {
+            logger.atError()
+                    .setMessage("Error processing domain: {}")
+                    .addArgument(domain)
+                    .setCause(e)
+                    .log();
+            return new LookupResult(domain, "Error: " + e.getMessage(), true);
+        }
+    }
+
+    /**
+     * Validates and looks up a domain, recording the lookup in the trace when
+     * {@code whois.trace.file} is set. Cache hits are answered right away; only
+     * lookups that query the registry go through the admission controller, so
+     * its service-time average reflects registry-bound work. A fresh lookup
+     * skips the response cache and always asks the registry.
+     */
+    private static Optional<String> tracedLookup(String domain, boolean fresh, Consumer<String> progress) {
+        TraceRecorder.Call call = traceRecorder().start(domain);
+        try {
+            if (!DomainValidatorUtil.isValidDomain(domain)) {
+                throw new DomainValidationException("Invalid domain: " + domain);
+            }
+
+            Consumer<String> observed = call.observe(progress);
+            Optional<String> info = fresh ? Optional.empty() : whoisService().cachedResponse(domain, observed);
+            if (info.isEmpty()) {
+                info = admissionController().execute(() -> whoisService().performFreshWhoisQuery(
+                        domain, QueryScheduler.Priority.INTERACTIVE, observed, call::responseTime));
+            }
+            call.finish(info);
+            return info;
+        } catch (RuntimeException e) {
+            call.fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up several domains concurrently and reports each result as soon as it
+     * is ready. If the client stops receiving notifications, lookups that have
+     * not started yet are skipped so they do not use up registry quota. The final
+     * result holds one text per domain in request order.
+     */
+    private static McpSchema.CallToolResult lookupAll(List<String> domains, ToolProgress progress) {
+        int total = domains.size();
+        int concurrency = Math.min(total, Integer.getInteger("whois.multi.concurrency", 4));
+        Map<String, LookupResult> results = new HashMap<>();
+
+        AtomicInteger threads = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "whois-multi-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        })) {
+            CompletionService<LookupResult> completion = new ExecutorCompletionService<>(executor);
+            List<Future<LookupResult>> futures = domains.stream()
+                    .map(domain -> completion.submit(() -> lookup(domain, progress)))
+                    .toList();
+
+            for (int i = 0; i < total; i++) {
+                Future<LookupResult> future = completion.take();
+                if (future.isCancelled()) continue;
+
+                LookupResult result = future.get();
+                results.put(result.domain(), result);
+                progress.result(result.domain(), results.size(), total, result.text(), result.error());
+                if (progress.isCancelled()) futures.forEach(pending -> pending.cancel(false));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.atError()
+                    .setMessage("Unexpected failure during multi-domain lookup")
+                    .setCause(e.getCause())
+                    .log();
+        }
+
+        List<McpSchema.Content> contents = new ArrayList<>();
+        for (String domain : domains) {
+            LookupResult result = results.getOrDefault(domain,
+                    new LookupResult(domain, "Error: lookup cancelled", true));
+            contents.add(new McpSchema.TextContent("=== " + domain + " ===\n" + result.text()));
+        }
+        boolean allFailed = domains.stream().allMatch(domain -> !results.containsKey(domain) || results.get(domain).error());
+        return new McpSchema.CallToolResult(contents, allFailed);
+    }
+
+    /**
+     * Creates the specification for the IP address and AS number WHOIS tool.
+     * <p>
+     * The query is routed to the responsible Regional Internet Registry by the
+     * {@link IpWhoisService}; answers are cached per network block.
+     * </p>
+     *
+     * @return A tool specification that can be registered with the MCP server
+     */
+    private static McpServerFeatures.SyncToolSpecification getIpWhoisToolSpecification() {
+        var schema = """
+            {
+              "type" : "object",
+              "id" : "urn:jsonschema:IpWhoisRequest",
+              "properties" : {
+                "query" : {
+                  "type" : "string",
+                  "description": "An IPv4 or IPv6 address, or an AS number such as AS15169"
+                }
+              },
+              "required": ["query"]
+            }
+        """;
+
+        return new McpServerFeatures.SyncToolSpecification(
+                new McpSchema.Tool(
+                        "get_ip_whois",
+                        "Get WHOIS information for an IP address or autonomous system number from the responsible regional registry",
+                        schema
+                ),
+                (McpSyncServerExchange exchange, Map<String, Object> args) -> {
+
+                    String query = (String) args.get("query");
+                    ToolProgress progress = ToolProgress.of(exchange, "get_ip_whois");
 
                     try {
-                        if (!DomainValidatorUtil.isValidDomain(domain)) {
-                            throw new DomainValidationException("Invalid domain: " + domain);
-                        }
+                        var info = admissionController().execute(() ->
+                                ipWhoisService().performIpWhoisQuery(query, step -> progress.step(query, step)));
+                        return new McpSchema.CallToolResult(
+                                List.of(new McpSchema.TextContent(info.orElse("No WHOIS information available for " + query))),
+                                false
+                        );
+                    } catch (OverloadedException e) {
+                        return overloadedResult(e);
+                    } catch (InvalidQueryException | WhoisQueryException e) {
+                        logger.atError()
+                                .setMessage("Error processing IP WHOIS query: {}")
+                                .addArgument(query)
+                                .setCause(e)
+                                .log();
+                        return errorResult("Error: " + e.getMessage());
+                    }
+                }
+        );
+    }
+
+    /**
+     * Creates the specification for the bulk availability check tool.
+     * <p>
+     * The candidates are checked concurrently by the {@link AvailabilityChecker},
+     * each verdict is streamed as a notification, and the result is a compact JSON
+     * object listing the candidates per verdict. With a {@code limit}, candidates
+     * not yet started once that many available names were found are listed as
+     * {@code unchecked}.
+     * </p>
+     *
+     * @return A tool specification that can be registered with the MCP server
+     */
+    private static McpServerFeatures.SyncToolSpecification getAvailabilityToolSpecification() {
+        var schema = """
+            {
+              "type" : "object",
+              "id" : "urn:jsonschema:AvailabilityRequest",
+              "properties" : {
+                "domains" : {
+                  "type" : "array",
+                  "items" : { "type" : "string" },
+                  "description": "The candidate domains to check"
+                },
+                "limit" : {
+                  "type" : "integer",
+                  "description": "Stop once this many available domains were found"
+                }
+              },
+              "required": ["domains"]
+            }
+        """;
 
-                        var info = whoisService.performWhoisQuery(domain);
+        return new McpServerFeatures.SyncToolSpecification(
+                new McpSchema.Tool(
+                        "check_availability",
+                        "Check which of many candidate domains are available for registration",
+                        schema
+                ),
+                (McpSyncServerExchange exchange, Map<String, Object> args) -> {
+
+                    List<String> domains = requestedDomains(args);
+                    if (domains.isEmpty()) {
+                        return errorResult("Error: a list of domains is required");
+                    }
+                    int maxDomains = Integer.getInteger("whois.availability.maxDomains", 200);
+                    if (domains.size() > maxDomains) {
+                        return errorResult("Error: at most " + maxDomains + " domains can be checked in one call");
+                    }
+                    int limit = args.get("limit") instanceof Number number ? number.intValue() : 0;
+
+                    ToolProgress progress = ToolProgress.of(exchange, "check_availability");
+                    AtomicInteger completed = new AtomicInteger();
+                    var result = availabilityChecker().checkAll(domains, limit,
+                            (domain, verdict) -> progress.result(domain, completed.incrementAndGet(), domains.size(),
+                                    verdict.name().toLowerCase(Locale.ROOT), false),
+                            progress::isCancelled);
 
-                        if (info.isPresent()) {
-                            logger.atInfo().log("WHOIS information retrieved for domain: {}", domain);
-                            List<McpSchema.Content> contents = new ArrayList<>();
-                            contents.add(new McpSchema.TextContent(info.get()));
+                    Map<String, List<String>> summary = new LinkedHashMap<>();
+                    for (Availability verdict : Availability.values()) {
+                        summary.put(verdict.name().toLowerCase(Locale.ROOT), result.domains(verdict));
+                    }
+                    if (!result.unchecked().isEmpty()) summary.put("unchecked", result.unchecked());
 
-                            return new McpSchema.CallToolResult(contents, false);
-                        } else {
-                            logger.atInfo().log("No WHOIS information available for domain: {}", domain);
+                    try {
+                        return new McpSchema.CallToolResult(
+                                List.of(new McpSchema.TextContent(new ObjectMapper().writeValueAsString(summary))), false);
+                    } catch (JsonProcessingException e) {
+                        return errorResult("Error: " + e.getMessage());
+                    }
+                }
+        );
+    }
+
+    /**
+     * Creates the specification for the tool that writes a cache snapshot on demand.
+     * <p>
+     * The snapshot is written to the file configured by the {@code whois.snapshot.file}
+     * system property; clients cannot choose the path.
+     * </p>
+     *
+     * @return A tool specification that can be registered with the MCP server
+     */
+    private static McpServerFeatures.SyncToolSpecification getSnapshotToolSpecification() {
+        var schema = """
+            {
+              "type" : "object",
+              "id" : "urn:jsonschema:SnapshotRequest",
+              "properties" : { }
+            }
+        """;
+
+        return new McpServerFeatures.SyncToolSpecification(
+                new McpSchema.Tool(
+                        "save_cache_snapshot",
+                        "Save the WHOIS response cache and learned server mappings to the configured snapshot file",
+                        schema
+                ),
+                (McpSyncServerExchange exchange, Map<String, Object> args) -> {
+                    Optional<Path> snapshotFile = getSnapshotFile();
+                    if (snapshotFile.isEmpty()) {
+                        return new McpSchema.CallToolResult(
+                                List.of(new McpSchema.TextContent("Error: no snapshot file configured (set whois.snapshot.file)")),
+                                true
+                        );
+                    }
+
+                    try {
+                        var summary = CacheSnapshot.save(snapshotFile.get(), whoisService());
+                        logger.atInfo().log("Cache snapshot saved on demand to {}", snapshotFile.get());
+                        return new McpSchema.CallToolResult(
+                                List.of(new McpSchema.TextContent("Saved " + summary.entries() + " cached responses and "
+                                        + summary.mappings() + " learned server mappings to " + snapshotFile.get())),
+                                false
+                        );
+                    } catch (CacheSnapshotException e) {
+                        logger.atError()
+                                .setMessage("Error saving cache snapshot")
+                                .setCause(e)
+                                .log();
+                        return new McpSchema.CallToolResult(
+                                List.of(new McpSchema.TextContent("Error: " + e.getMessage())),
+                                true
+                        );
+                    }
+                }
+        );
+    }
+
+    /**
+     * Creates the specification for the change-detection tool.
+     * <p>
+     * The tool always queries the registry, bypassing the response cache, and
+     * instead of the full response returns only the sections that changed since
+     * the previous call for the same domain, or "unchanged".
+     * </p>
+     *
+     * @return A tool specification that can be registered with the MCP server
+     */
+    private static McpServerFeatures.SyncToolSpecification getDiffToolSpecification() {
+        var schema = """
+            {
+              "type" : "object",
+              "id" : "urn:jsonschema:WhoisDiffRequest",
+              "properties" : {
+                "domain" : {
+                  "type" : "string",
+                  "description": "The domain to check for WHOIS changes"
+                }
+              },
+              "required": ["domain"]
+            }
+        """;
+
+        return new McpServerFeatures.SyncToolSpecification(
+                new McpSchema.Tool(
+                        "whois_diff",
+                        "Report which WHOIS fields (nameservers, status, registrar, expiry) changed since the last check of a domain",
+                        schema
+                ),
+                (McpSyncServerExchange exchange, Map<String, Object> args) -> {
+
+                    String domain = (String) args.get("domain");
+
+                    try {
+                        var info = tracedLookup(domain, true, step -> { });
+                        if (info.isEmpty()) {
                             return new McpSchema.CallToolResult(
                                     List.of(new McpSchema.TextContent("No WHOIS information available for " + domain)),
                                     false
                             );
                         }
+
+                        String sanitized = DomainSanitizer.sanitize(domain);
+                        var diff = diffTracker().diff(sanitized, WhoisRecord.parse(info.get()));
+                        return new McpSchema.CallToolResult(
+                                List.of(new McpSchema.TextContent(formatDiff(sanitized, diff))),
+                                false
+                        );
+                    } catch (OverloadedException e) {
+                        return overloadedResult(e);
                     } catch (DomainValidationException | WhoisQueryException e) {
                         logger.atError()
                                 .setMessage("Error processing domain: {}")
@@ -132,4 +693,95 @@ public class Main {
                 }
         );
     }
+
+    /**
+     * Creates the specification for the tool that lists domains expiring soon.
+     * <p>
+     * The answer comes from the {@link ExpiryIndex} of every domain looked up so
+     * far, so it costs no WHOIS queries; domains never looked up are not known.
+     * </p>
+     *
+     * @return A tool specification that can be registered with the MCP server
+     */
+    private static McpServerFeatures.SyncToolSpecification getExpiringToolSpecification() {
+        var schema = """
+            {
+              "type" : "object",
+              "id" : "urn:jsonschema:WhoisExpiringRequest",
+              "properties" : {
+                "days" : {
+                  "type" : "integer",
+                  "description": "List domains expiring within this many days, including already expired ones"
+                }
+              },
+              "required": ["days"]
+            }
+        """;
+
+        return new McpServerFeatures.SyncToolSpecification(
+                new McpSchema.Tool(
+                        "whois_expiring",
+                        "List previously looked-up domains that expire within a number of days, without querying WHOIS",
+                        schema
+                ),
+                (McpSyncServerExchange exchange, Map<String, Object> args) -> {
+
+                    if (!(args.get("days") instanceof Number days) || days.intValue() < 0) {
+                        return errorResult("Error: days must be a non-negative number");
+                    }
+
+                    ExpiryIndex index = whoisService().getExpiryIndex();
+                    var expiring = index.expiringWithin(Duration.ofDays(days.intValue()));
+                    return new McpSchema.CallToolResult(
+                            List.of(new McpSchema.TextContent(formatExpiring(expiring, days.intValue(), index.size()))),
+                            false
+                    );
+                }
+        );
+    }
+
+    /**
+     * Builds the result returned when a lookup is shed. The message keeps the
+     * {@code Error:} prefix of other failures and ends with the retry hint, so
+     * clients can parse the delay.
+     */
+    private static McpSchema.CallToolResult overloadedResult(OverloadedException e) {
+        return errorResult("Error: " + e.getMessage());
+    }
+
+    private static McpSchema.CallToolResult errorResult(String message) {
+        return new McpSchema.CallToolResult(List.of(new McpSchema.TextContent(message)), true);
+    }
+
+    private static String formatExpiring(List<ExpiryIndex.Entry> expiring, int days, int indexed) {
+        StringBuilder text = new StringBuilder()
+                .append(expiring.size()).append(" of ").append(indexed)
+                .append(" known domains expire within ").append(days).append(" days");
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        for (ExpiryIndex.Entry entry : expiring) {
+            LocalDate date = LocalDate.ofInstant(entry.expiry(), ZoneOffset.UTC);
+            long remaining = ChronoUnit.DAYS.between(today, date);
+            text.append('\n').append(date).append("  ").append(entry.domain())
+                    .append(remaining < 0 ? "  (expired " + -remaining + " days ago)" : "  (in " + remaining + " days)");
+        }
+        return text.toString();
+    }
+
+    private static String formatDiff(String domain, WhoisDiffTracker.Diff diff) {
+        if (diff.unchanged()) return domain + ": unchanged";
+
+        StringBuilder text = new StringBuilder(domain);
+        if (diff.baseline()) {
+            text.append(": baseline recorded");
+            diff.current().forEach((section, value) ->
+                    text.append('\n').append(section.label()).append(": ").append(value));
+        } else {
+            text.append(": changed");
+            diff.changes().forEach((section, change) ->
+                    text.append('\n').append(section.label()).append(": ")
+                            .append(change.previous()).append(" -> ").append(change.current()));
+        }
+        return text.toString();
+    }
 }
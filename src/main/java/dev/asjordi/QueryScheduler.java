@@ -0,0 +1,232 @@
+package dev.asjordi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out the per-server rate budget of a {@link ServerRateLimiter} to queries
+ * of two priorities, so background sweeps never starve interactive lookups.
+ * <p>
+ * Every WHOIS server has an interactive and a background lane. A query that finds
+ * its server idle takes a token straight away; otherwise it joins the tail of its
+ * lane and waits, up to a deadline, for a token to be granted to it. Because the
+ * lanes are separate, an interactive query overtakes every background query that
+ * is already waiting.
+ * </p>
+ * <p>
+ * When both lanes have waiters, tokens are shared by smooth weighted round-robin
+ * according to the lane weights, e.g. nine interactive grants for every background
+ * grant with the default 9:1, so background work still progresses under
+ * interactive load. While no interactive query is waiting, background queries
+ * only take tokens above an interactive reserve: a sweep can use the whole
+ * sustained rate but always leaves part of the burst for the next interactive
+ * lookup.
+ * </p>
+ * <p>
+ * Configuration is read from system properties:
+ * <ul>
+ *     <li>{@code whois.scheduler.interactiveWeight} - share of contended tokens for interactive queries (default 9)</li>
+ *     <li>{@code whois.scheduler.backgroundWeight} - share of contended tokens for background queries (default 1)</li>
+ *     <li>{@code whois.scheduler.interactiveReserve} - fraction of each bucket kept for interactive queries (default 0.25)</li>
+ *     <li>{@code whois.scheduler.interactiveMaxWaitMillis} - longest an interactive query waits for a token (default 1000)</li>
+ *     <li>{@code whois.scheduler.backgroundMaxWaitMillis} - longest a background query waits for a token (default 30000)</li>
+ * </ul>
+ * </p>
+ */
+public class QueryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryScheduler.class);
+
+    /**
+     * The lane a query is scheduled in.
+     */
+    public enum Priority {
+        /** Lookups a client is waiting for. */
+        INTERACTIVE,
+        /** Refresh-ahead, bulk and other work nobody is waiting for. */
+        BACKGROUND
+    }
+
+    private final Map<String, Lanes> lanes = new ConcurrentHashMap<>();
+    private final ServerRateLimiter rateLimiter;
+    private final int interactiveWeight;
+    private final int backgroundWeight;
+    private final double reserveFraction;
+    private final Duration interactiveMaxWait;
+    private final Duration backgroundMaxWait;
+
+    /**
+     * Creates a scheduler over the given limiter configured from system properties.
+     *
+     * @param rateLimiter the per-server token buckets to share
+     */
+    public QueryScheduler(ServerRateLimiter rateLimiter) {
+        this(rateLimiter,
+                Integer.getInteger("whois.scheduler.interactiveWeight", 9),
+                Integer.getInteger("whois.scheduler.backgroundWeight", 1),
+                Double.parseDouble(System.getProperty("whois.scheduler.interactiveReserve", "0.25")),
+                Duration.ofMillis(Long.getLong("whois.scheduler.interactiveMaxWaitMillis", 1000)),
+                Duration.ofMillis(Long.getLong("whois.scheduler.backgroundMaxWaitMillis", 30000)));
+    }
+
+    QueryScheduler(ServerRateLimiter rateLimiter, int interactiveWeight, int backgroundWeight, double reserveFraction,
+                   Duration interactiveMaxWait, Duration backgroundMaxWait) {
+        if (interactiveWeight < 1 || backgroundWeight < 1) throw new IllegalArgumentException("weights must be positive");
+        this.rateLimiter = rateLimiter;
+        this.interactiveWeight = interactiveWeight;
+        this.backgroundWeight = backgroundWeight;
+        this.reserveFraction = reserveFraction;
+        this.interactiveMaxWait = interactiveMaxWait;
+        this.backgroundMaxWait = backgroundMaxWait;
+    }
+
+    /**
+     * Waits for a token for a query to the server, up to the configured wait of its lane.
+     *
+     * @param whoisServer the WHOIS server hostname
+     * @param priority    the lane of the query
+     * @return {@code true} if a token was granted, {@code false} if the deadline passed first
+     */
+    public boolean acquire(String whoisServer, Priority priority) {
+        return acquire(whoisServer, priority, priority == Priority.INTERACTIVE ? interactiveMaxWait : backgroundMaxWait);
+    }
+
+    /**
+     * Waits for a token for a query to the server.
+     *
+     * @param whoisServer the WHOIS server hostname
+     * @param priority    the lane of the query
+     * @param maxWait     how long to wait for a token; {@link Duration#ZERO} only takes a spare one
+     * @return {@code true} if a token was granted, {@code false} if the deadline passed first
+     */
+    public boolean acquire(String whoisServer, Priority priority, Duration maxWait) {
+        Lanes server = lanes.computeIfAbsent(whoisServer, Lanes::new);
+        long deadline = System.nanoTime() + maxWait.toNanos();
+
+        synchronized (server) {
+            if (server.isIdle() && takeToken(server, priority)) return true;
+
+            Waiter waiter = new Waiter();
+            server.lane(priority).addLast(waiter);
+            try {
+                while (true) {
+                    dispatch(server);
+                    if (waiter.granted) return true;
+
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        server.lane(priority).remove(waiter);
+                        logger.atDebug().log("No {} rate budget for WHOIS server {} within {}", priority, whoisServer, maxWait);
+                        return false;
+                    }
+                    long untilToken = rateLimiter.millisUntilAvailable(whoisServer,
+                            server.interactive.isEmpty() ? reserve(whoisServer) : 0);
+                    server.wait(Math.max(1, Math.min(TimeUnit.NANOSECONDS.toMillis(remaining), untilToken)));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                server.lane(priority).remove(waiter);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of queries waiting for the server in the given lane.
+     *
+     * @param whoisServer the WHOIS server hostname
+     * @param priority    the lane
+     * @return the number of waiting queries
+     */
+    public int waiting(String whoisServer, Priority priority) {
+        Lanes server = lanes.get(whoisServer);
+        if (server == null) return 0;
+        synchronized (server) {
+            return server.lane(priority).size();
+        }
+    }
+
+    // Grants available tokens to waiting queries; called with the server's monitor held
+    private void dispatch(Lanes server) {
+        boolean granted = false;
+        while (!server.isIdle()) {
+            boolean contended = server.isContended();
+            Priority next = server.next(interactiveWeight, backgroundWeight);
+            if (!takeToken(server, next)) break;
+
+            server.lane(next).pollFirst().granted = true;
+            // Credits only accrue while both lanes compete for tokens
+            if (contended) server.charge(next, interactiveWeight, backgroundWeight);
+            granted = true;
+        }
+        if (granted) server.notifyAll();
+    }
+
+    private boolean takeToken(Lanes server, Priority priority) {
+        boolean keepReserve = priority == Priority.BACKGROUND && server.interactive.isEmpty();
+        return rateLimiter.tryAcquire(server.name, keepReserve ? reserve(server.name) : 0);
+    }
+
+    // The reserve follows the server's current, possibly reduced, capacity
+    private double reserve(String whoisServer) {
+        double capacity = rateLimiter.capacity(whoisServer);
+        return Math.min(capacity * reserveFraction, Math.max(0, capacity - 1));
+    }
+
+    private static final class Waiter {
+        private boolean granted;
+    }
+
+    /**
+     * The two lanes of one server plus the running credits of the smooth weighted
+     * round-robin that picks which lane the next token goes to.
+     */
+    private static final class Lanes {
+        private final String name;
+        private final Deque<Waiter> interactive = new ArrayDeque<>();
+        private final Deque<Waiter> background = new ArrayDeque<>();
+        private int interactiveCredit;
+        private int backgroundCredit;
+
+        private Lanes(String name) {
+            this.name = name;
+        }
+
+        private Deque<Waiter> lane(Priority priority) {
+            return priority == Priority.INTERACTIVE ? interactive : background;
+        }
+
+        private boolean isIdle() {
+            return interactive.isEmpty() && background.isEmpty();
+        }
+
+        private boolean isContended() {
+            return !interactive.isEmpty() && !background.isEmpty();
+        }
+
+        private Priority next(int interactiveWeight, int backgroundWeight) {
+            if (background.isEmpty()) return Priority.INTERACTIVE;
+            if (interactive.isEmpty()) return Priority.BACKGROUND;
+            return interactiveCredit + interactiveWeight >= backgroundCredit + backgroundWeight
+                    ? Priority.INTERACTIVE
+                    : Priority.BACKGROUND;
+        }
+
+        private void charge(Priority chosen, int interactiveWeight, int backgroundWeight) {
+            interactiveCredit += interactiveWeight;
+            backgroundCredit += backgroundWeight;
+            if (chosen == Priority.INTERACTIVE) {
+                interactiveCredit -= interactiveWeight + backgroundWeight;
+            } else {
+                backgroundCredit -= interactiveWeight + backgroundWeight;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package dev.asjordi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Maps top-level domains to the base URL of their RDAP service.
+ * <p>
+ * The mapping is read from an IANA RDAP bootstrap file for the DNS (RFC 9224),
+ * whose {@code services} array lists groups of TLDs with the base URLs that
+ * serve them. A subset is bundled as {@code rdap-dns-bootstrap.json}; the full
+ * file published by IANA can be used instead by pointing the
+ * {@code whois.rdap.bootstrapFile} system property at a downloaded copy. When a
+ * service lists several URLs, the first HTTPS one is used.
+ * </p>
+ */
+public class RdapBootstrap {
+
+    private static final Logger logger = LoggerFactory.getLogger(RdapBootstrap.class);
+    private static final String BOOTSTRAP_RESOURCE = "rdap-dns-bootstrap.json";
+
+    private final Map<String, URI> baseUrls;
+
+    /**
+     * Creates a bootstrap from the configured file, or the bundled one.
+     */
+    public RdapBootstrap() {
+        this(load());
+    }
+
+    RdapBootstrap(Map<String, URI> baseUrls) {
+        this.baseUrls = Map.copyOf(baseUrls);
+        logger.atDebug().log("Loaded RDAP base URLs for {} TLDs", this.baseUrls.size());
+    }
+
+    /**
+     * Returns the RDAP base URL for a domain extension.
+     *
+     * @param extension the extension, with or without the leading dot
+     * @return the base URL, ending with a slash, or empty if the TLD has no known RDAP service
+     */
+    public Optional<URI> baseUrl(String extension) {
+        String tld = extension.substring(extension.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return Optional.ofNullable(baseUrls.get(tld));
+    }
+
+    /**
+     * Returns the number of TLDs with a known RDAP service.
+     *
+     * @return the number of mapped TLDs
+     */
+    public int size() {
+        return baseUrls.size();
+    }
+
+    /**
+     * Parses a bootstrap file in the IANA format.
+     *
+     * @param input the JSON document
+     * @return the base URL per TLD
+     * @throws IOException if the document cannot be read
+     */
+    static Map<String, URI> parse(InputStream input) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(input);
+        Map<String, URI> baseUrls = new HashMap<>();
+
+        for (JsonNode service : root.path("services")) {
+            URI baseUrl = null;
+            for (JsonNode url : service.path(1)) {
+                String text = url.asText();
+                if (baseUrl == null || text.startsWith("https://") && !"https".equals(baseUrl.getScheme())) {
+                    baseUrl = URI.create(text.endsWith("/") ? text : text + "/");
+                }
+            }
+            if (baseUrl == null) continue;
+            for (JsonNode tld : service.path(0)) baseUrls.put(tld.asText().toLowerCase(Locale.ROOT), baseUrl);
+        }
+        return baseUrls;
+    }
+
+    private static Map<String, URI> load() {
+        String file = System.getProperty("whois.rdap.bootstrapFile");
+        try (InputStream input = file != null && !file.isBlank()
+                ? Files.newInputStream(Path.of(file))
+                : RdapBootstrap.class.getClassLoader().getResourceAsStream(BOOTSTRAP_RESOURCE)) {
+            if (input == null) {
+                logger.atWarn().log("RDAP bootstrap file not found, RDAP is disabled");
+                return Map.of();
+            }
+            return parse(input);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.atError()
+                    .setMessage("Error loading RDAP bootstrap file, RDAP is disabled")
+                    .setCause(e)
+                    .log();
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package dev.asjordi;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.asjordi.exceptions.ThrottledException;
+import dev.asjordi.exceptions.WhoisQueryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.IDN;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Looks domains up over RDAP, the JSON-over-HTTPS successor of port 43 WHOIS.
+ * <p>
+ * All lookups share one {@link HttpClient} that prefers HTTP/2, so each registry
+ * is reached over a persistent connection on which concurrent lookups are
+ * multiplexed, instead of the new TCP connection every port 43 query needs.
+ * The client is only created by the first RDAP lookup.
+ * </p>
+ * <p>
+ * Which TLDs use RDAP is a policy set with the {@code whois.rdap.tlds} system
+ * property: empty (the default) keeps every TLD on port 43, {@code *} uses RDAP
+ * for every TLD the {@link RdapBootstrap} knows, and a comma-separated list such
+ * as {@code com,net,dev} enables it for those TLDs only. The request timeout is
+ * {@code whois.rdap.timeoutMillis} (default 10000).
+ * </p>
+ */
+public class RdapClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(RdapClient.class);
+    private static final String RDAP_MEDIA_TYPE = "application/rdap+json";
+    private static final String NOT_FOUND_BODY = "{\"errorCode\":404,\"title\":\"Not Found\"}";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final RdapBootstrap bootstrap;
+    private final Set<String> rdapTlds;
+    private final boolean allTlds;
+    private final Duration timeout;
+    private volatile HttpClient httpClient;
+
+    /**
+     * Creates a client with the bundled bootstrap, configured from system properties.
+     */
+    public RdapClient() {
+        this(new RdapBootstrap(), System.getProperty("whois.rdap.tlds", ""),
+                Duration.ofMillis(Long.getLong("whois.rdap.timeoutMillis", 10000)));
+    }
+
+    RdapClient(RdapBootstrap bootstrap, String policy, Duration timeout) {
+        this.bootstrap = bootstrap;
+        this.allTlds = policy.strip().equals("*");
+        this.rdapTlds = Arrays.stream(policy.split(","))
+                .map(tld -> tld.strip().toLowerCase(Locale.ROOT))
+                .map(tld -> tld.startsWith(".") ? tld.substring(1) : tld)
+                .filter(tld -> !tld.isEmpty() && !tld.equals("*"))
+                .collect(Collectors.toUnmodifiableSet());
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns the RDAP base URL to use for a domain extension, if the policy
+     * selects RDAP for it and the bootstrap knows its service.
+     *
+     * @param extension the domain extension, including the leading dot
+     * @return the base URL, or empty if the extension is queried over port 43
+     */
+    public Optional<URI> endpointFor(String extension) {
+        if (!allTlds && rdapTlds.isEmpty()) return Optional.empty();
+
+        String tld = extension.substring(extension.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        if (!allTlds && !rdapTlds.contains(tld)) return Optional.empty();
+        return bootstrap.baseUrl(tld);
+    }
+
+    /**
+     * Fetches the RDAP domain object.
+     *
+     * @param baseUrl the RDAP base URL of the domain's registry
+     * @param domain  the sanitized domain
+     * @return the JSON domain object, or an RDAP error object with {@code errorCode} 404 if the
+     *         domain is not registered
+     * @throws ThrottledException  if the server answers 429 Too Many Requests
+     * @throws WhoisQueryException if the server cannot be reached or answers with another error
+     */
+    public Optional<String> lookupDomain(URI baseUrl, String domain) throws WhoisQueryException {
+        HttpResponse<String> response = send(domainRequest(baseUrl, domain).GET().build(),
+                HttpResponse.BodyHandlers.ofString(), domain);
+        return switch (response.statusCode()) {
+            case 200 -> Optional.of(response.body());
+            case 404 -> Optional.of(isNotFoundObject(response.body()) ? response.body() : NOT_FOUND_BODY);
+            default -> throw failure(response);
+        };
+    }
+
+    // Some servers answer 404 with an HTML page or a bare JSON value, which must not be mistaken for a domain object
+    private static boolean isNotFoundObject(String body) {
+        try {
+            JsonNode node = MAPPER.readTree(body);
+            return node != null && node.isObject() && node.path("errorCode").asInt() == 404;
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Asks whether the domain is registered with a {@code HEAD} request, which
+     * RDAP servers answer with the status code alone, so no domain object is
+     * transferred.
+     *
+     * @param baseUrl the RDAP base URL of the domain's registry
+     * @param domain  the sanitized domain
+     * @return {@code true} if the domain is registered, {@code false} if it is not
+     * @throws ThrottledException  if the server answers 429 Too Many Requests
+     * @throws WhoisQueryException if the server cannot be reached or answers with another status
+     */
+    public boolean isRegistered(URI baseUrl, String domain) throws WhoisQueryException {
+        HttpResponse<Void> response = send(domainRequest(baseUrl, domain).method("HEAD", HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.discarding(), domain);
+        return switch (response.statusCode()) {
+            case 200 -> true;
+            case 404 -> false;
+            default -> throw failure(response);
+        };
+    }
+
+    private HttpRequest.Builder domainRequest(URI baseUrl, String domain) {
+        return HttpRequest.newBuilder(baseUrl.resolve("domain/" + IDN.toASCII(domain)))
+                .header("Accept", RDAP_MEDIA_TYPE + ", application/json")
+                .timeout(timeout);
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler, String domain)
+            throws WhoisQueryException {
+        URI uri = request.uri();
+        try {
+            logger.atDebug().log("Sending RDAP {} request: {}", request.method(), uri);
+            HttpResponse<T> response = client().send(request, bodyHandler);
+            logger.atInfo().log("RDAP server {} answered {} over {} for domain: {}",
+                    uri.getHost(), response.statusCode(), response.version(), domain);
+            return response;
+        } catch (IOException e) {
+            logger.atError()
+                    .setMessage("RDAP request failed: {}")
+                    .addArgument(uri)
+                    .setCause(e)
+                    .log();
+            throw new WhoisQueryException("Connection failed to RDAP server " + uri.getHost(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WhoisQueryException("Interrupted while waiting for RDAP server " + uri.getHost(), e);
+        }
+    }
+
+    private static WhoisQueryException failure(HttpResponse<?> response) {
+        String host = response.uri().getHost();
+        if (response.statusCode() == 429) return new ThrottledException(host, retryAfterMillis(response));
+        return new WhoisQueryException("RDAP server " + host + " answered HTTP " + response.statusCode());
+    }
+
+    private HttpClient client() {
+        HttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = httpClient;
+                if (client == null) {
+                    client = HttpClient.newBuilder()
+                            .version(HttpClient.Version.HTTP_2)
+                            .followRedirects(HttpClient.Redirect.NORMAL)
+                            .connectTimeout(timeout)
+                            .build();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private static long retryAfterMillis(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After")
+                .map(value -> {
+                    try {
+                        return Long.parseLong(value.strip()) * 1000;
+                    } catch (NumberFormatException e) {
+                        return 0L;
+                    }
+                })
+                .orElse(0L);
+    }
+}
@@ -0,0 +1,162 @@
+package dev.asjordi;
+
+import dev.asjordi.exceptions.McpException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Re-queries cached WHOIS responses shortly before they expire, so hot and
+ * watched domains never see a cold miss.
+ * <p>
+ * Every scan interval the scheduler looks for cache entries that expire within
+ * the refresh window and were either accessed within the hot window or are on
+ * the configured watchlist. Each of them is refreshed after a random delay
+ * spread over the first half of its remaining lifetime, which keeps entries
+ * cached at the same time from being refreshed in lockstep. Refreshes go through
+ * {@link WhoisService#refresh(String)} and are skipped while the WHOIS server has
+ * no spare rate budget.
+ * </p>
+ * <p>
+ * Configuration is read from system properties:
+ * <ul>
+ *     <li>{@code whois.refresh.scanSeconds} - how often to scan the cache (default 30)</li>
+ *     <li>{@code whois.refresh.windowSeconds} - how long before expiry an entry becomes eligible (default 300)</li>
+ *     <li>{@code whois.refresh.hotSeconds} - how recently an entry must have been read to count as hot (default 900)</li>
+ *     <li>{@code whois.refresh.watchlist} - comma-separated domains that are always refreshed</li>
+ * </ul>
+ * </p>
+ */
+public class RefreshAheadScheduler implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshAheadScheduler.class);
+
+    private final WhoisService whoisService;
+    private final WhoisResponseCache responseCache;
+    private final Set<String> watchlist;
+    private final Duration scanInterval;
+    private final Duration refreshWindow;
+    private final Duration hotWindow;
+    private final Clock clock;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Creates a scheduler for the given service configured from system properties.
+     *
+     * @param whoisService the service whose response cache is kept warm
+     */
+    public RefreshAheadScheduler(WhoisService whoisService) {
+        this(whoisService,
+                parseWatchlist(System.getProperty("whois.refresh.watchlist", "")),
+                Duration.ofSeconds(Long.getLong("whois.refresh.scanSeconds", 30)),
+                Duration.ofSeconds(Long.getLong("whois.refresh.windowSeconds", 300)),
+                Duration.ofSeconds(Long.getLong("whois.refresh.hotSeconds", 900)),
+                Clock.systemUTC());
+    }
+
+    RefreshAheadScheduler(WhoisService whoisService, Set<String> watchlist, Duration scanInterval,
+                          Duration refreshWindow, Duration hotWindow, Clock clock) {
+        this.whoisService = whoisService;
+        this.responseCache = whoisService.getResponseCache();
+        this.watchlist = watchlist;
+        this.scanInterval = scanInterval;
+        this.refreshWindow = refreshWindow;
+        this.hotWindow = hotWindow;
+        this.clock = clock;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "whois-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the periodic scans.
+     */
+    public void start() {
+        long initialDelay = ThreadLocalRandom.current().nextLong(scanInterval.toMillis() + 1);
+        executor.scheduleWithFixedDelay(this::scan, initialDelay, scanInterval.toMillis(), TimeUnit.MILLISECONDS);
+        logger.atInfo().log("Refresh-ahead scheduler started (scan={}, window={}, hot={}, watchlist={})",
+                scanInterval, refreshWindow, hotWindow, watchlist.size());
+    }
+
+    /**
+     * Schedules a jittered refresh for every eligible entry that is not already pending.
+     */
+    void scan() {
+        long now = clock.millis();
+        for (WhoisResponseCache.RefreshCandidate candidate : selectCandidates(now)) {
+            if (pending.add(candidate.domain())) {
+                long delay = jitterDelay(candidate, now);
+                logger.atDebug().log("Scheduling refresh of {} in {} ms", candidate.domain(), delay);
+                executor.schedule(() -> refresh(candidate.domain()), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Returns the cache entries that are close to expiry and hot or watched.
+     *
+     * @param now the current time in epoch milliseconds
+     * @return the entries to refresh
+     */
+    List<WhoisResponseCache.RefreshCandidate> selectCandidates(long now) {
+        long hotSince = now - hotWindow.toMillis();
+        return responseCache.expiringBefore(now + refreshWindow.toMillis()).stream()
+                .filter(candidate -> watchlist.contains(candidate.domain()) || candidate.lastAccess() >= hotSince)
+                .toList();
+    }
+
+    /**
+     * Returns a random delay within the first half of the entry's remaining lifetime.
+     *
+     * @param candidate the entry to refresh
+     * @param now       the current time in epoch milliseconds
+     * @return the delay in milliseconds
+     */
+    static long jitterDelay(WhoisResponseCache.RefreshCandidate candidate, long now) {
+        long slack = (candidate.expiresAt() - now) / 2;
+        return slack <= 0 ? 0 : ThreadLocalRandom.current().nextLong(slack);
+    }
+
+    private void refresh(String domain) {
+        try {
+            if (!whoisService.refresh(domain)) {
+                logger.atDebug().log("Refresh of {} was not performed", domain);
+            }
+        } catch (McpException e) {
+            logger.atWarn()
+                    .setMessage("Refresh-ahead failed for domain: {}")
+                    .addArgument(domain)
+                    .setCause(e)
+                    .log();
+        } finally {
+            pending.remove(domain);
+        }
+    }
+
+    static Set<String> parseWatchlist(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(domain -> !domain.isEmpty())
+                .map(DomainSanitizer::sanitize)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
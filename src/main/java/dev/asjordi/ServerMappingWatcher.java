@@ -0,0 +1,177 @@
+package dev.asjordi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the WHOIS server override file and hot-reloads it into a {@link WhoisCache}.
+ * <p>
+ * The parent directory of the override file is registered with a {@link WatchService},
+ * because editors and deployment tools usually replace a file rather than write
+ * it in place. Bursts of events are coalesced: after the first event the watcher
+ * waits for the events to stop for the debounce interval, re-reads the file until
+ * two reads one interval apart match and then calls
+ * {@link WhoisCache#reloadOverrides()} once. A reload that fails is logged and the
+ * watch carries on. Parsing happens on the watcher thread, and the cache publishes
+ * the result with a single atomic swap, so in-flight lookups are never blocked.
+ * </p>
+ */
+public class ServerMappingWatcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerMappingWatcher.class);
+    private static final int MAX_STABILITY_CHECKS = 10;
+
+    private final WhoisCache whoisCache;
+    private final Path overrideFile;
+    private final Duration debounce;
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Creates a watcher for the override file of the given cache.
+     *
+     * @param whoisCache the cache whose override file is watched
+     * @throws IllegalArgumentException if the cache has no override file
+     */
+    public ServerMappingWatcher(WhoisCache whoisCache) {
+        this(whoisCache, Duration.ofMillis(200));
+    }
+
+    ServerMappingWatcher(WhoisCache whoisCache, Duration debounce) {
+        this.whoisCache = whoisCache;
+        this.overrideFile = whoisCache.getOverrideFile()
+                .map(path -> path.toAbsolutePath().normalize())
+                .orElseThrow(() -> new IllegalArgumentException("No WHOIS server override file configured"));
+        this.debounce = debounce;
+    }
+
+    /**
+     * Registers the watch and starts the background thread.
+     *
+     * @throws IOException if the directory of the override file cannot be watched
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) return;
+
+        WatchService service = FileSystems.getDefault().newWatchService();
+        overrideFile.getParent().register(service,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        watchService = service;
+
+        thread = new Thread(() -> watch(service), "whois-mapping-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.atInfo().log("Watching WHOIS server override file {}", overrideFile);
+    }
+
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = drain(key);
+
+                // Coalesce the burst of events a single save usually produces
+                while (changed) {
+                    WatchKey next = service.poll(debounce.toMillis(), TimeUnit.MILLISECONDS);
+                    if (next == null) break;
+                    drain(next);
+                }
+
+                if (changed) reload();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.atDebug().log("WHOIS server override watcher closed");
+        }
+    }
+
+    private void reload() throws InterruptedException {
+        logger.atDebug().log("WHOIS server override file changed, reloading");
+        try {
+            if (!awaitStableContent()) {
+                logger.atWarn().log("WHOIS server override file {} is still being written, reloading it anyway", overrideFile);
+            }
+            whoisCache.reloadOverrides();
+        } catch (RuntimeException e) {
+            // A failed reload must not end the watcher, or later edits would be ignored without a trace
+            logger.atError()
+                    .setMessage("Failed to reload WHOIS server override file {}")
+                    .addArgument(overrideFile)
+                    .setCause(e)
+                    .log();
+        }
+    }
+
+    /**
+     * Waits until two reads of the override file one debounce interval apart
+     * return the same bytes, so a file written in place in several chunks is not
+     * loaded half-written when the part written so far happens to be valid.
+     *
+     * @return {@code true} if the content settled within the attempt limit
+     */
+    private boolean awaitStableContent() throws InterruptedException {
+        byte[] previous = readOverrideFile();
+        for (int attempt = 0; attempt < MAX_STABILITY_CHECKS; attempt++) {
+            TimeUnit.MILLISECONDS.sleep(debounce.toMillis());
+            byte[] current = readOverrideFile();
+            if (previous != null && Arrays.equals(previous, current)) return true;
+            previous = current;
+        }
+        return false;
+    }
+
+    private byte[] readOverrideFile() {
+        try {
+            return Files.readAllBytes(overrideFile);
+        } catch (IOException e) {
+            // Missing for a moment while it is being replaced
+            return null;
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || overrideFile.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Stops watching the override file.
+     */
+    @Override
+    public synchronized void close() {
+        if (watchService == null) return;
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.atWarn()
+                    .setMessage("Error closing WHOIS server override watcher")
+                    .setCause(e)
+                    .log();
+        }
+        thread = null;
+        watchService = null;
+    }
+}
@@ -0,0 +1,246 @@
+package dev.asjordi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Keeps a token bucket per WHOIS server so that outbound queries stay within the
+ * rate each registry tolerates.
+ * <p>
+ * Every server gets its own bucket holding up to {@code queriesPerMinute} tokens,
+ * refilled continuously. {@link QueryScheduler} builds its priority lanes on top
+ * of these buckets: queries wait for a token, and background work such as
+ * refresh-ahead only proceeds when {@link #tryAcquire(String)} finds a spare one.
+ * An interactive query that waited too long is sent anyway and
+ * {@linkplain #record(String) records} its use of the budget, which may leave the
+ * bucket in debt, so background work is held back until the overage is repaid.
+ * </p>
+ * <p>
+ * The rate of each bucket adapts to the registry (AIMD): every answered query
+ * raises it by a small additive step up to the configured rate, and every
+ * {@linkplain #onThrottled(String) throttled} answer halves it and empties the
+ * bucket. A throttled server is additionally blocked for an exponential backoff
+ * with jitter, doubling with each consecutive throttled answer, so the query
+ * rate converges on what the registry allows.
+ * </p>
+ * <p>
+ * The adaptation is configured with system properties:
+ * <ul>
+ *     <li>{@code whois.throttle.minPerMinute} - lowest rate a throttled server is reduced to (default 2)</li>
+ *     <li>{@code whois.throttle.backoffBaseMillis} - backoff after the first throttled answer (default 1000)</li>
+ *     <li>{@code whois.throttle.backoffMaxMillis} - longest backoff (default 300000)</li>
+ * </ul>
+ * </p>
+ */
+public class ServerRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerRateLimiter.class);
+    private static final int DEFAULT_QUERIES_PER_MINUTE = 60;
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double INCREASE_PER_SUCCESS = 1.0;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final double queriesPerMinute;
+    private final double minQueriesPerMinute;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final Clock clock;
+    private final DoubleSupplier jitter;
+
+    /**
+     * Creates a limiter configured from the {@code whois.ratelimit.perMinute} system property.
+     */
+    public ServerRateLimiter() {
+        this(Integer.getInteger("whois.ratelimit.perMinute", DEFAULT_QUERIES_PER_MINUTE), Clock.systemUTC());
+    }
+
+    /**
+     * Creates a limiter allowing the given number of queries per minute and server.
+     *
+     * @param queriesPerMinute the sustained rate and burst size per server
+     * @param clock            the clock used to refill the buckets
+     */
+    ServerRateLimiter(double queriesPerMinute, Clock clock) {
+        this(queriesPerMinute, clock, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    ServerRateLimiter(double queriesPerMinute, Clock clock, DoubleSupplier jitter) {
+        if (queriesPerMinute <= 0) throw new IllegalArgumentException("queriesPerMinute must be positive");
+        this.queriesPerMinute = queriesPerMinute;
+        this.minQueriesPerMinute = Math.min(queriesPerMinute,
+                Double.parseDouble(System.getProperty("whois.throttle.minPerMinute", "2")));
+        this.backoffBase = Duration.ofMillis(Long.getLong("whois.throttle.backoffBaseMillis", 1000));
+        this.backoffMax = Duration.ofMillis(Long.getLong("whois.throttle.backoffMaxMillis", 300_000));
+        this.clock = clock;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Takes a token for the server if one is available.
+     *
+     * @param whoisServer the WHOIS server hostname
+     * @return {@code true} if the query may proceed, {@code false} if the budget is exhausted
+     */
+    public boolean tryAcquire(String whoisServer) {
+        return tryAcquire(whoisServer, 0);
+    }
+
+    /**
+     * Takes a token for the server only if at least {@code reserve} tokens remain afterwards.
+     *
+     * @param whoisServer the WHOIS server hostname
+     * @param reserve     the number of tokens that must be left in the bucket
+     * @return {@code true} if the query may proceed, {@code false} if the budget above the reserve is exhausted
+     */
+    public boolean tryAcquire(String whoisServer, double reserve) {
+        boolean acquired = bucket(whoisServer).tryTake(clock.millis(), reserve);
+        if (!acquired) logger.atDebug().log("Rate limit reached for WHOIS server: {}", whoisServer);
+        return acquired;
+    }
+
+    /**
+     * Returns how long it takes until a token above the reserve is available.
+     *
+     * @param whoisServer the WHOIS server hostname
+     * @param reserve     the number of tokens that must be left in the bucket
+     * @return the wait in milliseconds, {@code 0} if a token is available now
+     */
+    public long millisUntilAvailable(String whoisServer, double reserve) {
+        return bucket(whoisServer).millisUntil(clock.millis(), reserve);
+    }
+
+    /**
+     * Returns the current burst size of the server's bucket, which equals its current per-minute rate.
+     *
+     * @param whoisServer the WHOIS server hostname
+     * @return the bucket capacity in tokens
+     */
+    public double capacity(String whoisServer) {
+        return bucket(whoisServer).rate();
+    }
+
+    /**
+     * Consumes a token for a query that is sent regardless of the remaining budget.
+     * An empty bucket goes into debt, by at most one minute of its current rate.
+     *
+     * @param whoisServer the WHOIS server hostname
+     */
+    public void record(String whoisServer) {
+        bucket(whoisServer).charge(clock.millis());
+    }
+
+    /**
+     * Raises the server's rate by the additive step after an answered query.
+     *
+     * @param whoisServer the WHOIS server hostname
+     */
+    public void onSuccess(String whoisServer) {
+        bucket(whoisServer).increase(INCREASE_PER_SUCCESS, queriesPerMinute);
+    }
+
+    /**
+     * Halves the server's rate and blocks it for an exponential backoff with jitter.
+     *
+     * @param whoisServer the WHOIS server hostname
+     * @return the backoff in milliseconds
+     */
+    public long onThrottled(String whoisServer) {
+        long backoff = bucket(whoisServer).decrease(clock.millis(), DECREASE_FACTOR, minQueriesPerMinute,
+                backoffBase.toMillis(), backoffMax.toMillis(), jitter.getAsDouble());
+        logger.atWarn().log("WHOIS server {} is throttling, reducing rate to {} per minute and backing off {} ms",
+                whoisServer, String.format("%.1f", capacity(whoisServer)), backoff);
+        return backoff;
+    }
+
+    /**
+     * Returns how much of the server's current backoff is left.
+     *
+     * @param whoisServer the WHOIS server hostname
+     * @return the remaining backoff in milliseconds, {@code 0} if the server is not backing off
+     */
+    public long backoffRemaining(String whoisServer) {
+        Bucket bucket = buckets.get(whoisServer);
+        return bucket == null ? 0 : bucket.backoffRemaining(clock.millis());
+    }
+
+    private Bucket bucket(String whoisServer) {
+        return buckets.computeIfAbsent(whoisServer, server -> new Bucket(queriesPerMinute, clock.millis()));
+    }
+
+    private static final class Bucket {
+        private double rate;
+        private double tokens;
+        private long lastRefill;
+        private long blockedUntil;
+        private int consecutiveThrottles;
+
+        private Bucket(double queriesPerMinute, long now) {
+            this.rate = queriesPerMinute;
+            this.tokens = queriesPerMinute;
+            this.lastRefill = now;
+        }
+
+        private synchronized double rate() {
+            return rate;
+        }
+
+        private synchronized boolean tryTake(long now, double reserve) {
+            if (now < blockedUntil) return false;
+            refill(now);
+            if (tokens >= 1.0 + reserve) {
+                tokens -= 1.0;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized void charge(long now) {
+            refill(now);
+            tokens = Math.max(-rate, tokens - 1.0);
+        }
+
+        private synchronized long millisUntil(long now, double reserve) {
+            refill(now);
+            double missing = 1.0 + reserve - tokens;
+            long untilToken = missing <= 0 ? 0 : (long) Math.ceil(missing / (rate / 60_000.0));
+            return Math.max(untilToken, blockedUntil - now);
+        }
+
+        private synchronized long backoffRemaining(long now) {
+            return Math.max(0, blockedUntil - now);
+        }
+
+        private synchronized void increase(double step, double maxRate) {
+            consecutiveThrottles = 0;
+            rate = Math.min(maxRate, rate + step);
+        }
+
+        private synchronized long decrease(long now, double factor, double minRate, long baseMillis, long maxMillis,
+                                           double jitter) {
+            rate = Math.max(minRate, rate * factor);
+            tokens = 0;
+            lastRefill = now;
+
+            // Equal jitter: half the exponential backoff plus a random part of the other half
+            int exponent = Math.min(consecutiveThrottles++, 30);
+            long backoff = Math.min(maxMillis, baseMillis << exponent);
+            long delay = backoff / 2 + (long) (jitter * (backoff / 2));
+            blockedUntil = Math.max(blockedUntil, now + delay);
+            return delay;
+        }
+
+        private void refill(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(rate, tokens + (now - lastRefill) * rate / 60_000.0);
+                lastRefill = now;
+            }
+        }
+    }
+}
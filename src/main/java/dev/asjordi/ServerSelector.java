@@ -0,0 +1,148 @@
+package dev.asjordi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Chooses between the WHOIS servers configured for a domain extension based on
+ * how they have performed so far.
+ * <p>
+ * For every server the selector keeps an exponentially weighted moving average
+ * (EWMA) of the latency of successful queries and of the error rate. A query is
+ * routed to the fastest healthy server, i.e. the one with the lowest latency
+ * average among those whose error rate is below the unhealthy threshold. If
+ * every candidate is unhealthy the one with the lowest error rate is used.
+ * </p>
+ * <p>
+ * Servers that have never been queried are tried first, so every mirror gets a
+ * sample. After that a small fraction of queries is sent to a random candidate,
+ * which lets a slow or failing server show that it has recovered.
+ * </p>
+ * <p>
+ * Configuration is read from system properties:
+ * <ul>
+ *     <li>{@code whois.routing.alpha} - weight of the newest sample in the averages (default 0.3)</li>
+ *     <li>{@code whois.routing.explorationRate} - fraction of queries sent to a random server (default 0.05)</li>
+ *     <li>{@code whois.routing.maxErrorRate} - error rate above which a server counts as unhealthy (default 0.5)</li>
+ * </ul>
+ * </p>
+ */
+public class ServerSelector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerSelector.class);
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final double alpha;
+    private final double explorationRate;
+    private final double maxErrorRate;
+    private final DoubleSupplier random;
+
+    /**
+     * Creates a selector configured from system properties.
+     */
+    public ServerSelector() {
+        this(Double.parseDouble(System.getProperty("whois.routing.alpha", "0.3")),
+                Double.parseDouble(System.getProperty("whois.routing.explorationRate", "0.05")),
+                Double.parseDouble(System.getProperty("whois.routing.maxErrorRate", "0.5")),
+                () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    ServerSelector(double alpha, double explorationRate, double maxErrorRate, DoubleSupplier random) {
+        if (alpha <= 0 || alpha > 1) throw new IllegalArgumentException("alpha must be in (0, 1]");
+        this.alpha = alpha;
+        this.explorationRate = explorationRate;
+        this.maxErrorRate = maxErrorRate;
+        this.random = random;
+    }
+
+    /**
+     * Picks the server to query from a non-empty list of candidates.
+     *
+     * @param candidates the servers configured for an extension, primary first
+     * @return the chosen server
+     */
+    public String select(List<String> candidates) {
+        if (candidates.size() == 1) return candidates.getFirst();
+
+        for (String candidate : candidates) {
+            if (!stats.containsKey(candidate)) {
+                logger.atDebug().log("Selecting untried WHOIS server {}", candidate);
+                return candidate;
+            }
+        }
+
+        if (random.getAsDouble() < explorationRate) {
+            String candidate = candidates.get((int) (random.getAsDouble() * candidates.size()));
+            logger.atDebug().log("Exploring WHOIS server {}", candidate);
+            return candidate;
+        }
+
+        String best = null;
+        Stats bestStats = null;
+        for (String candidate : candidates) {
+            Stats current = stats.get(candidate);
+            if (bestStats == null || current.isBetterThan(bestStats, maxErrorRate)) {
+                best = candidate;
+                bestStats = current;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Records the outcome of a query.
+     *
+     * @param server  the queried server
+     * @param latency how long the query took
+     * @param success whether the server answered
+     */
+    public void record(String server, Duration latency, boolean success) {
+        double millis = latency.toNanos() / 1_000_000.0;
+        stats.merge(server, Stats.first(millis, success), (previous, ignored) -> previous.update(millis, success, alpha));
+    }
+
+    Optional<Stats> statsFor(String server) {
+        return Optional.ofNullable(stats.get(server));
+    }
+
+    /**
+     * Moving averages for one server. The latency average only includes
+     * successful queries, since failures often end at a timeout or immediately.
+     *
+     * @param latencyMillis EWMA of the latency of successful queries, {@code NaN} until one succeeds
+     * @param errorRate     EWMA of failures, between 0 and 1
+     */
+    record Stats(double latencyMillis, double errorRate) {
+
+        static Stats first(double millis, boolean success) {
+            return new Stats(success ? millis : Double.NaN, success ? 0 : 1);
+        }
+
+        Stats update(double millis, boolean success, double alpha) {
+            double latency = !success ? latencyMillis
+                    : Double.isNaN(latencyMillis) ? millis
+                    : alpha * millis + (1 - alpha) * latencyMillis;
+            return new Stats(latency, alpha * (success ? 0 : 1) + (1 - alpha) * errorRate);
+        }
+
+        boolean isBetterThan(Stats other, double maxErrorRate) {
+            boolean healthy = errorRate < maxErrorRate;
+            boolean otherHealthy = other.errorRate < maxErrorRate;
+            if (healthy != otherHealthy) return healthy;
+            if (!healthy) return errorRate < other.errorRate;
+            return Double.compare(effectiveLatency(), other.effectiveLatency()) < 0;
+        }
+
+        private double effectiveLatency() {
+            return Double.isNaN(latencyMillis) ? Double.MAX_VALUE : latencyMillis;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package dev.asjordi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Recognizes WHOIS answers that are rate-limit notices rather than registry data.
+ * <p>
+ * Many registries do not drop the connection when a client queries too fast;
+ * they answer with a normal-looking body such as "Query rate limit exceeded" or
+ * with nothing at all. The signatures are loaded from
+ * {@code whois-throttle-patterns.properties}: a {@code default} pattern applies
+ * to every server and a server-specific pattern is checked in addition. Only
+ * the start of the response is examined, since throttle notices are short and
+ * regular answers often end with long terms-of-use texts that mention limits.
+ * </p>
+ */
+public class ThrottleDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThrottleDetector.class);
+    private static final String PATTERNS_RESOURCE = "whois-throttle-patterns.properties";
+    private static final String DEFAULT_KEY = "default";
+    private static final int SCAN_LIMIT = 512;
+
+    private final Pattern defaultPattern;
+    private final Map<String, Pattern> serverPatterns;
+
+    /**
+     * Creates a detector with the bundled signatures.
+     */
+    public ThrottleDetector() {
+        this(loadPatterns());
+    }
+
+    ThrottleDetector(Properties patterns) {
+        Map<String, Pattern> servers = new HashMap<>();
+        Pattern fallback = null;
+
+        for (String key : patterns.stringPropertyNames()) {
+            try {
+                Pattern pattern = Pattern.compile(patterns.getProperty(key), Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+                if (DEFAULT_KEY.equals(key)) {
+                    fallback = pattern;
+                } else {
+                    servers.put(key.toLowerCase(), pattern);
+                }
+            } catch (PatternSyntaxException e) {
+                logger.atError()
+                        .setMessage("Ignoring invalid throttle pattern for {}")
+                        .addArgument(key)
+                        .setCause(e)
+                        .log();
+            }
+        }
+
+        this.defaultPattern = fallback;
+        this.serverPatterns = Map.copyOf(servers);
+        logger.atDebug().log("Loaded throttle patterns for {} WHOIS servers", serverPatterns.size());
+    }
+
+    private static Properties loadPatterns() {
+        Properties properties = new Properties();
+        try (InputStream input = ThrottleDetector.class.getClassLoader().getResourceAsStream(PATTERNS_RESOURCE)) {
+            if (input != null) {
+                properties.load(input);
+            } else {
+                logger.atWarn().log("Throttle patterns file not found, only empty answers count as throttled");
+            }
+        } catch (IOException e) {
+            logger.atError()
+                    .setMessage("Error loading throttle patterns file")
+                    .setCause(e)
+                    .log();
+        }
+        return properties;
+    }
+
+    /**
+     * Tells whether a response from the server is a throttle notice.
+     *
+     * @param whoisServer the server that answered
+     * @param response    the raw response, possibly {@code null}
+     * @return {@code true} if the response is empty or matches a throttle signature
+     */
+    public boolean isThrottled(String whoisServer, String response) {
+        if (response == null || response.isBlank()) return true;
+
+        CharSequence head = response.length() > SCAN_LIMIT ? response.subSequence(0, SCAN_LIMIT) : response;
+        Pattern serverPattern = serverPatterns.get(whoisServer.toLowerCase());
+        return serverPattern != null && serverPattern.matcher(head).find()
+                || defaultPattern != null && defaultPattern.matcher(head).find();
+    }
+}
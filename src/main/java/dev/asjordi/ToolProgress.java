@@ -0,0 +1,89 @@
+package dev.asjordi;
+
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Consumer;
+
+/**
+ * Streams the progress of a long-running tool call to the client as MCP logging
+ * notifications, so intermediate steps and early results arrive before the
+ * final {@code CallToolResult}.
+ * <p>
+ * The SDK offers no progress or cancellation API to tool handlers, so this uses
+ * the {@code notifications/message} channel the server already declares with
+ * its logging capability; the notification's logger is the tool name. When a
+ * notification cannot be delivered, the client is assumed to be gone: the call
+ * is marked {@linkplain #isCancelled() cancelled} and further notifications are
+ * dropped, which lets the handler skip work nobody waits for anymore.
+ * </p>
+ */
+public class ToolProgress {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolProgress.class);
+
+    private final String tool;
+    private final Consumer<McpSchema.LoggingMessageNotification> sink;
+    private volatile boolean cancelled;
+
+    ToolProgress(String tool, Consumer<McpSchema.LoggingMessageNotification> sink) {
+        this.tool = tool;
+        this.sink = sink;
+    }
+
+    /**
+     * Creates a reporter that notifies the client of the given exchange.
+     *
+     * @param exchange the exchange passed to the tool handler
+     * @param tool     the name of the tool being called
+     * @return the progress reporter
+     */
+    public static ToolProgress of(McpSyncServerExchange exchange, String tool) {
+        return new ToolProgress(tool, exchange::loggingNotification);
+    }
+
+    /**
+     * Reports an intermediate step, such as the WHOIS server being queried.
+     *
+     * @param domain  the domain the step belongs to
+     * @param message what is happening
+     */
+    public void step(String domain, String message) {
+        send(McpSchema.LoggingLevel.INFO, domain + ": " + message);
+    }
+
+    /**
+     * Reports the finished result of one domain of a multi-domain call.
+     *
+     * @param domain    the domain
+     * @param completed how many domains are finished, including this one
+     * @param total     how many domains the call covers
+     * @param text      the result text
+     * @param error     whether the lookup failed
+     */
+    public void result(String domain, int completed, int total, String text, boolean error) {
+        send(error ? McpSchema.LoggingLevel.WARNING : McpSchema.LoggingLevel.NOTICE,
+                "[" + completed + "/" + total + "] " + domain + "\n" + text);
+    }
+
+    /**
+     * Returns whether the client stopped accepting notifications.
+     *
+     * @return {@code true} if a notification could not be delivered
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void send(McpSchema.LoggingLevel level, String data) {
+        if (cancelled) return;
+        try {
+            sink.accept(new McpSchema.LoggingMessageNotification(level, tool, data));
+        } catch (RuntimeException e) {
+            cancelled = true;
+            logger.atInfo().log("Client stopped receiving {} notifications, skipping remaining work: {}", tool, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package dev.asjordi;
+
+import dev.asjordi.exceptions.ThrottledException;
+import dev.asjordi.exceptions.WhoisQueryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Records every domain lookup made through the MCP tools to a compact binary
+ * trace, so real workloads can be replayed to compare cache and concurrency
+ * settings.
+ * <p>
+ * Recording is off unless the {@code whois.trace.file} system property names a
+ * file; new records are appended to it, so one trace can span several runs. The
+ * layout is:
+ * <pre>
+ *     int    magic ("WHTR")
+ *     short  format version
+ *     then per lookup:
+ *     long   start time (epoch millis)
+ *     string requested domain
+ *     string last server queried, empty if none
+ *     byte   outcome (ordinal of {@link Outcome})
+ *     int    latency in microseconds
+ *     int    response size in bytes (UTF-8)
+ *     int    response time of the last server queried in microseconds, zero if none
+ * </pre>
+ * where a string is an unsigned byte length followed by UTF-8 bytes. The latency
+ * covers the whole lookup, including waits for rate budget and referrals; the
+ * response time is what the server itself took, as reported to
+ * {@link Call#responseTime(Duration)}. Each
+ * record is flushed as it is written, so a crash loses at most the record being
+ * written, and {@link #read} ignores such a truncated tail.
+ * </p>
+ */
+public class TraceRecorder implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceRecorder.class);
+    static final int MAGIC = 0x57485452;
+    static final short VERSION = 1;
+    private static final int MAX_STRING_BYTES = 255;
+
+    /**
+     * How a lookup ended.
+     */
+    public enum Outcome {
+        /** Answered from the response cache. */
+        CACHE_HIT,
+        /** Answered by the registry with a record. */
+        ANSWERED,
+        /** Answered by the registry with "not found". */
+        NOT_FOUND,
+        /** No response was obtained. */
+        NO_ANSWER,
+        /** The registry was throttling. */
+        THROTTLED,
+        /** The query failed. */
+        FAILED,
+        /** The lookup was rejected before any query, as invalid or because the server was overloaded. */
+        REJECTED
+    }
+
+    /**
+     * One recorded lookup.
+     *
+     * @param timestamp     when the lookup started, in epoch milliseconds
+     * @param domain        the requested domain
+     * @param server        the last WHOIS or RDAP server queried, empty if none
+     * @param outcome       how the lookup ended
+     * @param latencyMicros how long the lookup took, in microseconds
+     * @param bytes         the size of the response in UTF-8 bytes, zero if there was none
+     * @param serverMicros  how long the last server queried took to answer, in microseconds, zero if unknown
+     */
+    public record Entry(long timestamp, String domain, String server, Outcome outcome, long latencyMicros, int bytes,
+                        long serverMicros) { }
+
+    private static final TraceRecorder DISABLED = new TraceRecorder(null);
+
+    private final DataOutputStream output;
+
+    private TraceRecorder(DataOutputStream output) {
+        this.output = output;
+    }
+
+    /**
+     * Returns a recorder for the file named by {@code whois.trace.file}, or a
+     * disabled recorder if the property is unset or the file cannot be opened.
+     *
+     * @return the recorder
+     */
+    public static TraceRecorder fromSystemProperties() {
+        String file = System.getProperty("whois.trace.file");
+        if (file == null || file.isBlank()) return DISABLED;
+
+        try {
+            return open(Path.of(file));
+        } catch (IOException e) {
+            logger.atError()
+                    .setMessage("Cannot open trace file {}, lookups are not recorded")
+                    .addArgument(file)
+                    .setCause(e)
+                    .log();
+            return DISABLED;
+        }
+    }
+
+    /**
+     * Opens a trace file for appending, writing the header if the file is new.
+     *
+     * @param file the trace file
+     * @return the recorder
+     * @throws IOException if the file cannot be opened
+     */
+    public static TraceRecorder open(Path file) throws IOException {
+        boolean empty = !Files.exists(file) || Files.size(file) == 0;
+        var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+        if (empty) {
+            output.writeInt(MAGIC);
+            output.writeShort(VERSION);
+            output.flush();
+        }
+        logger.atInfo().log("Recording lookup trace to {}", file);
+        return new TraceRecorder(output);
+    }
+
+    /**
+     * Returns whether lookups are recorded.
+     *
+     * @return {@code true} if a trace file is open
+     */
+    public boolean isEnabled() {
+        return output != null;
+    }
+
+    /**
+     * Starts timing a lookup.
+     *
+     * @param domain the requested domain
+     * @return the call to complete with {@link Call#finish} or {@link Call#fail}
+     */
+    public Call start(String domain) {
+        return new Call(domain);
+    }
+
+    /**
+     * Appends a record to the trace. Does nothing if recording is disabled.
+     *
+     * @param entry the record
+     */
+    public synchronized void record(Entry entry) {
+        if (output == null) return;
+        try {
+            output.writeLong(entry.timestamp());
+            writeString(entry.domain());
+            writeString(entry.server());
+            output.writeByte(entry.outcome().ordinal());
+            output.writeInt((int) Math.min(Integer.MAX_VALUE, entry.latencyMicros()));
+            output.writeInt(entry.bytes());
+            output.writeInt((int) Math.min(Integer.MAX_VALUE, entry.serverMicros()));
+            output.flush();
+        } catch (IOException e) {
+            logger.atWarn().log("Failed to record trace entry for {}: {}", entry.domain(), e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (output != null) output.close();
+    }
+
+    /**
+     * Reads all records of a trace file, ignoring a truncated last record.
+     *
+     * @param file the trace file
+     * @return the records in the order they were written
+     * @throws IOException if the file cannot be read or is not a trace
+     */
+    public static List<Entry> read(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC) throw new IOException("Not a lookup trace: " + file);
+            short version = input.readShort();
+            if (version != VERSION) throw new IOException("Unsupported trace version " + version + ": " + file);
+
+            Outcome[] outcomes = Outcome.values();
+            while (true) {
+                try {
+                    long timestamp = input.readLong();
+                    String domain = readString(input);
+                    String server = readString(input);
+                    int outcome = input.readUnsignedByte();
+                    if (outcome >= outcomes.length) throw new IOException("Invalid outcome " + outcome + " in " + file);
+                    long latency = input.readInt();
+                    int bytes = input.readInt();
+                    long serverMicros = input.readInt();
+                    entries.add(new Entry(timestamp, domain, server, outcomes[outcome], latency, bytes, serverMicros));
+                } catch (EOFException e) {
+                    return entries;
+                }
+            }
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_STRING_BYTES);
+        output.writeByte(length);
+        output.write(bytes, 0, length);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readUnsignedByte()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A lookup being timed. It learns the servers queried from the progress steps
+     * of {@link WhoisService#performWhoisQuery(String, QueryScheduler.Priority, Consumer)}.
+     */
+    public final class Call {
+        private final String domain;
+        private final long timestamp = System.currentTimeMillis();
+        private final long start = System.nanoTime();
+        private volatile String server = "";
+        private volatile long serverMicros;
+        private volatile boolean cacheHit;
+
+        private Call(String domain) {
+            this.domain = domain == null ? "" : domain;
+        }
+
+        /**
+         * Wraps a progress consumer so the steps it receives are also observed.
+         *
+         * @param progress the consumer to forward steps to
+         * @return the observing consumer
+         */
+        public Consumer<String> observe(Consumer<String> progress) {
+            if (!isEnabled()) return progress;
+            return step -> {
+                if (step.equals(WhoisService.STEP_CACHE_HIT)) {
+                    cacheHit = true;
+                } else if (step.startsWith(WhoisService.STEP_QUERYING_RDAP)) {
+                    server = step.substring(WhoisService.STEP_QUERYING_RDAP.length());
+                } else if (step.startsWith(WhoisService.STEP_QUERYING)) {
+                    server = step.substring(WhoisService.STEP_QUERYING.length());
+                } else if (step.startsWith(WhoisService.STEP_REFERRAL)) {
+                    server = step.substring(WhoisService.STEP_REFERRAL.length());
+                }
+                progress.accept(step);
+            };
+        }
+
+        /**
+         * Notes how long a server queried for this lookup took to answer; the last one is recorded.
+         *
+         * @param elapsed the server's response time
+         */
+        public void responseTime(Duration elapsed) {
+            serverMicros = elapsed.toNanos() / 1000;
+        }
+
+        /**
+         * Records a lookup that completed.
+         *
+         * @param response the response, or empty if there was none
+         */
+        public void finish(Optional<String> response) {
+            if (!isEnabled()) return;
+            Outcome outcome = cacheHit ? Outcome.CACHE_HIT
+                    : response.isEmpty() ? Outcome.NO_ANSWER
+                    : WhoisRecord.isNotFound(response.get()) ? Outcome.NOT_FOUND
+                    : Outcome.ANSWERED;
+            complete(outcome, response.map(text -> text.getBytes(StandardCharsets.UTF_8).length).orElse(0));
+        }
+
+        /**
+         * Records a lookup that failed.
+         *
+         * @param failure the exception the lookup ended with
+         */
+        public void fail(RuntimeException failure) {
+            if (!isEnabled()) return;
+            complete(failure instanceof ThrottledException ? Outcome.THROTTLED
+                    : failure instanceof WhoisQueryException ? Outcome.FAILED
+                    : Outcome.REJECTED, 0);
+        }
+
+        private void complete(Outcome outcome, int bytes) {
+            record(new Entry(timestamp, domain, server, outcome, (System.nanoTime() - start) / 1000, bytes, serverMicros));
+        }
+    }
+}
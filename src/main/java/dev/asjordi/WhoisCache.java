@@ -1,77 +1,202 @@
 package dev.asjordi;
 
+import dev.asjordi.exceptions.ServerMappingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
 
+/**
+ * Resolves domain extensions to WHOIS servers.
+ * <p>
+ * The mappings from {@code whois-servers.properties} are compiled into
+ * {@link WhoisServerTable} at build time, so no properties have to be parsed
+ * at startup. A runtime override file, set with the {@code whois.servers.override}
+ * system property, can add or replace mappings without rebuilding; it uses the
+ * same format as the bundled properties file. An extension may map to a
+ * comma-separated list of servers, such as a registry and its mirrors, which
+ * {@link ServerSelector} chooses between per query. Mappings learned from IANA
+ * referrals are consulted last.
+ * </p>
+ * <p>
+ * The overrides are held as an immutable map behind an {@link AtomicReference}.
+ * {@link #reloadOverrides()} parses the file into a new map and swaps it in,
+ * so lookups never take a lock and never see a half-loaded table. A file with
+ * any invalid entry is rejected as a whole. {@link ServerMappingWatcher} calls
+ * the reload whenever the file changes.
+ * </p>
+ */
 public class WhoisCache {
 
     private static final Logger logger = LoggerFactory.getLogger(WhoisCache.class);
-    private final Map<String, String> cache;
+    private static final Pattern EXTENSION_PATTERN = Pattern.compile("(\\.[a-z0-9-]+)+");
+    private static final Pattern HOSTNAME_PATTERN = Pattern.compile("[a-z0-9-]+(\\.[a-z0-9-]+)+");
+    private final Path overrideFile;
+    private final AtomicReference<Map<String, List<String>>> overrides = new AtomicReference<>(Map.of());
+    private final Map<String, String> learned = new ConcurrentHashMap<>();
 
     public WhoisCache() {
-        cache = new HashMap<>();
-        initializeCache();
+        this(Optional.ofNullable(System.getProperty("whois.servers.override")).map(Path::of).orElse(null));
     }
 
-    private void initializeCache() {
-        logger.atInfo().log("Initializing WHOIS cache...");
-        Properties properties = new Properties();
+    WhoisCache(Path overrideFile) {
+        logger.atInfo().log("Initializing WHOIS cache with {} compiled WHOIS servers", WhoisServerTable.size());
+        this.overrideFile = overrideFile;
+        loadOverrides();
+    }
 
-        try (InputStream input = getClass().getClassLoader().getResourceAsStream("whois-servers.properties")) {
-            if (input != null) {
-                logger.atDebug().log("Loading WHOIS servers from properties file...");
-                properties.load(input);
+    /**
+     * Re-reads the override file and, if it is valid, atomically replaces the
+     * live override mappings. An invalid or unreadable file is rejected and the
+     * current mappings stay in place.
+     *
+     * @return {@code true} if the new mappings were published
+     */
+    public boolean reloadOverrides() {
+        return loadOverrides();
+    }
 
-                for (String key : properties.stringPropertyNames()) {
-                    cache.put(key, properties.getProperty(key));
-                    logger.atDebug().log("Loaded WHOIS server: {} -> {}", key, properties.getProperty(key));
-                }
-            } else {
-                logger.atWarn().log("WHOIS properties file not found. Loading default servers...");
-                loadDefaultServers();
-            }
-        } catch (IOException e) {
+    private boolean loadOverrides() {
+        if (overrideFile == null) return false;
+
+        try {
+            Map<String, List<String>> servers = parseOverrides(overrideFile);
+            overrides.set(servers);
+            logger.atInfo().log("Loaded {} WHOIS server overrides from {}", servers.size(), overrideFile);
+            return true;
+        } catch (ServerMappingException e) {
             logger.atError()
-                    .setMessage("Error loading WHOIS properties file")
+                    .setMessage("Rejected WHOIS server override file, keeping current mappings")
                     .setCause(e)
                     .log();
-            logger.atInfo().log("Falling back to default WHOIS servers...");
-            loadDefaultServers();
+            return false;
         }
     }
 
-    private void loadDefaultServers() {
-        logger.atInfo().log("Loading default WHOIS servers...");
-        cache.put(".com", "whois.verisign-grs.com");
-        cache.put(".net", "whois.verisign-grs.com");
-        cache.put(".org", "whois.pir.org");
-        cache.put(".io", "whois.nic.io");
-        cache.put(".co", "whois.nic.co");
-        logger.atDebug().log("Default WHOIS servers loaded.");
+    /**
+     * Returns the override file configured for this cache.
+     *
+     * @return the override file, or empty if none is configured
+     */
+    public Optional<Path> getOverrideFile() {
+        return Optional.ofNullable(overrideFile);
     }
 
+    static Map<String, List<String>> parseOverrides(Path overrideFile) {
+        Properties properties = new Properties();
+
+        try (Reader reader = Files.newBufferedReader(overrideFile, StandardCharsets.ISO_8859_1)) {
+            properties.load(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ServerMappingException("Cannot read WHOIS server override file: " + overrideFile, e);
+        }
+
+        Map<String, List<String>> servers = new HashMap<>();
+        List<String> errors = new ArrayList<>();
+        for (String key : properties.stringPropertyNames()) {
+            String extension = key.strip().toLowerCase();
+            if (!EXTENSION_PATTERN.matcher(extension).matches()) {
+                errors.add("invalid domain extension '" + key + "'");
+                continue;
+            }
+
+            List<String> route = new ArrayList<>();
+            for (String value : properties.getProperty(key).split(",")) {
+                String server = value.strip().toLowerCase();
+                if (!HOSTNAME_PATTERN.matcher(server).matches()) {
+                    errors.add("invalid WHOIS server '" + server + "' for " + key);
+                } else if (!route.contains(server)) {
+                    route.add(server);
+                }
+            }
+            servers.put(extension, List.copyOf(route));
+        }
+
+        if (!errors.isEmpty()) {
+            throw new ServerMappingException(overrideFile + ": " + String.join("; ", errors));
+        }
+        return Map.copyOf(servers);
+    }
+
+    /**
+     * Returns the primary WHOIS server for a domain extension.
+     *
+     * @param domain the domain extension, including the leading dot
+     * @return the first configured server, or empty if the extension is unknown
+     */
     public Optional<String> getWhoisServer(String domain) {
-        logger.atDebug().log("Retrieving WHOIS server for domain: {}", domain);
+        return getWhoisServers(domain).stream().findFirst();
+    }
+
+    /**
+     * Returns every WHOIS server configured for a domain extension, primary first.
+     *
+     * @param domain the domain extension, including the leading dot
+     * @return the servers, or an empty list if the extension is unknown
+     */
+    public List<String> getWhoisServers(String domain) {
+        logger.atDebug().log("Retrieving WHOIS servers for domain: {}", domain);
 
         if (domain == null || domain.isBlank() || !domain.startsWith(".")) {
             logger.atWarn().log("Invalid domain extension: {}", domain);
-            return Optional.empty();
+            return List.of();
         }
 
-        Optional<String> server = Optional.ofNullable(cache.get(domain.toLowerCase()));
-        if (server.isPresent()) {
-            logger.atInfo().log("Found WHOIS server for {}: {}", domain, server.get());
+        String extension = domain.toLowerCase();
+        List<String> servers = getConfiguredServers(extension);
+        if (servers.isEmpty() && learned.containsKey(extension)) servers = List.of(learned.get(extension));
+
+        if (!servers.isEmpty()) {
+            logger.atInfo().log("Found WHOIS servers for {}: {}", domain, servers);
         } else {
             logger.atWarn().log("No WHOIS server found for domain: {}", domain);
         }
 
-        return server;
+        return servers;
+    }
+
+    private List<String> getConfiguredServers(String extension) {
+        List<String> override = overrides.get().get(extension);
+        return override != null ? override : WhoisServerTable.lookup(extension);
+    }
+
+    /**
+     * Remembers the WHOIS server an IANA referral pointed to for an extension
+     * that is missing from the configured mappings.
+     *
+     * @param extension the domain extension, including the leading dot
+     * @param server    the referred WHOIS server
+     */
+    public void learnWhoisServer(String extension, String server) {
+        if (extension == null || !extension.startsWith(".") || server == null || server.isBlank()) return;
+
+        String key = extension.toLowerCase();
+        if (!getConfiguredServers(key).isEmpty()) return;
+
+        if (!server.equals(learned.put(key, server))) {
+            logger.atInfo().log("Learned WHOIS server from referral: {} -> {}", key, server);
+        }
+    }
+
+    /**
+     * Returns the mappings learned from referrals since startup.
+     *
+     * @return an immutable copy of the learned mappings
+     */
+    public Map<String, String> getLearnedServers() {
+        return Map.copyOf(learned);
     }
 }
@@ -0,0 +1,160 @@
+package dev.asjordi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the last-seen state of each monitored domain and reports only what
+ * changed since the previous lookup.
+ * <p>
+ * A record is reduced to four normalized sections (name servers, statuses,
+ * registrar and expiry) and each section is fingerprinted with a 64-bit FNV-1a
+ * hash. Comparing a new lookup with the stored state is then a handful of long
+ * comparisons; the normalized text is only used to describe a section that did
+ * change. The tracker keeps at most {@code whois.diff.maxDomains} domains
+ * (default 10000), dropping the least recently compared one first.
+ * </p>
+ */
+public class WhoisDiffTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(WhoisDiffTracker.class);
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * The parts of a WHOIS record that are compared.
+     */
+    public enum Section {
+        NAME_SERVERS("nameservers"),
+        STATUS("status"),
+        REGISTRAR("registrar"),
+        EXPIRY("expiry");
+
+        private final String label;
+
+        Section(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    /**
+     * A section whose value differs from the previous lookup.
+     *
+     * @param previous the previously seen normalized value
+     * @param current  the current normalized value
+     */
+    public record Change(String previous, String current) { }
+
+    /**
+     * The outcome of comparing a lookup with the stored state.
+     *
+     * @param baseline {@code true} if the domain was not tracked before
+     * @param changes  the changed sections; empty if unchanged or on the first lookup
+     * @param current  the current normalized sections
+     */
+    public record Diff(boolean baseline, Map<Section, Change> changes, Map<Section, String> current) {
+
+        public boolean unchanged() {
+            return !baseline && changes.isEmpty();
+        }
+    }
+
+    private final Map<String, Snapshot> snapshots;
+
+    /**
+     * Creates a tracker bounded by the {@code whois.diff.maxDomains} system property.
+     */
+    public WhoisDiffTracker() {
+        this(Integer.getInteger("whois.diff.maxDomains", 10_000));
+    }
+
+    WhoisDiffTracker(int maximumDomains) {
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                return size() > maximumDomains;
+            }
+        };
+    }
+
+    /**
+     * Compares the record with the last one seen for the domain and stores it as the new state.
+     *
+     * @param domain the sanitized domain
+     * @param record the freshly parsed record
+     * @return the sections that changed
+     */
+    public Diff diff(String domain, WhoisRecord record) {
+        Snapshot current = Snapshot.of(record);
+        Snapshot previous;
+        synchronized (snapshots) {
+            previous = snapshots.put(domain, current);
+        }
+
+        if (previous == null) {
+            logger.atDebug().log("Recorded baseline for domain: {}", domain);
+            return new Diff(true, Map.of(), current.values);
+        }
+
+        if (previous.fingerprint == current.fingerprint) {
+            logger.atDebug().log("No changes for domain: {}", domain);
+            return new Diff(false, Map.of(), current.values);
+        }
+
+        Map<Section, Change> changes = new EnumMap<>(Section.class);
+        for (Section section : Section.values()) {
+            if (previous.hashes[section.ordinal()] != current.hashes[section.ordinal()]) {
+                changes.put(section, new Change(previous.values.get(section), current.values.get(section)));
+            }
+        }
+        logger.atInfo().log("Detected changes for domain {}: {}", domain, changes.keySet());
+        return new Diff(false, changes, current.values);
+    }
+
+    static long fnv1a(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static final class Snapshot {
+        private final Map<Section, String> values;
+        private final long[] hashes;
+        private final long fingerprint;
+
+        private Snapshot(Map<Section, String> values) {
+            this.values = values;
+            this.hashes = new long[Section.values().length];
+            long combined = FNV_OFFSET_BASIS;
+            for (Section section : Section.values()) {
+                long hash = fnv1a(values.get(section));
+                hashes[section.ordinal()] = hash;
+                combined = (combined ^ hash) * FNV_PRIME;
+            }
+            this.fingerprint = combined;
+        }
+
+        private static Snapshot of(WhoisRecord record) {
+            Map<Section, String> values = new EnumMap<>(Section.class);
+            values.put(Section.NAME_SERVERS, String.join(", ", record.nameServers()));
+            values.put(Section.STATUS, record.notFound() ? "not found" : String.join(", ", record.statuses()));
+            values.put(Section.REGISTRAR, record.registrar().map(String::strip).orElse(""));
+            values.put(Section.EXPIRY, record.expiry().map(Object::toString).orElse(""));
+            return new Snapshot(Collections.unmodifiableMap(values));
+        }
+    }
+}
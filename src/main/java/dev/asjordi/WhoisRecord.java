@@ -0,0 +1,304 @@
+package dev.asjordi;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * The fields of a raw WHOIS response that matter for caching and monitoring.
+ * <p>
+ * WHOIS output is free-form text whose labels vary between registries, so the
+ * parser recognizes the common spellings of each field ("Registry Expiry Date",
+ * "paid-till", "expires", ...) and ignores everything else. Name servers are
+ * lower-cased, stripped of trailing dots and sorted; statuses keep only the EPP
+ * code, dropping the ICANN explanation URL.
+ * </p>
+ * <p>
+ * Responses obtained over RDAP are JSON domain objects; they are recognized by
+ * their leading brace and read into the same fields.
+ * </p>
+ *
+ * @param notFound    whether the response says the domain is not registered
+ * @param registrar   the sponsoring registrar, if present
+ * @param nameServers the sorted name servers
+ * @param statuses    the sorted EPP status codes
+ * @param created     the creation date, if present
+ * @param updated     the last update date, if present
+ * @param expiry      the expiry date, if present
+ */
+public record WhoisRecord(boolean notFound,
+                          Optional<String> registrar,
+                          List<String> nameServers,
+                          List<String> statuses,
+                          Optional<Instant> created,
+                          Optional<Instant> updated,
+                          Optional<Instant> expiry) {
+
+    private static final List<String> NOT_FOUND_SIGNATURES = List.of(
+            "no match for",
+            "not found",
+            "no data found",
+            "no entries found",
+            "no matching record",
+            "status: free",
+            "status: available",
+            "is available for registration",
+            "the queried object does not exist",
+            "object does not exist"
+    );
+
+    private static final Pattern RDAP_NOT_FOUND = Pattern.compile("\"errorCode\"\\s*:\\s*404");
+    private static final ObjectMapper RDAP_MAPPER = new ObjectMapper();
+
+    private static final Set<String> REGISTRAR_KEYS = Set.of(
+            "registrar", "registrar name", "sponsoring registrar", "registrar organization");
+    private static final Set<String> NAME_SERVER_KEYS = Set.of(
+            "name server", "name servers", "nameserver", "nameservers", "nserver");
+    private static final Set<String> STATUS_KEYS = Set.of(
+            "domain status", "status");
+    private static final Set<String> CREATED_KEYS = Set.of(
+            "creation date", "created", "created on", "registered", "registered on", "registration time",
+            "domain registration date");
+    private static final Set<String> UPDATED_KEYS = Set.of(
+            "updated date", "last updated", "last update", "last-update", "last modified", "modified", "changed",
+            "updated on");
+    private static final Set<String> EXPIRY_KEYS = Set.of(
+            "registry expiry date", "registrar registration expiration date", "expiry date", "expiration date",
+            "expiration time", "expires", "expires on", "expire", "paid-till", "renewal date",
+            "domain expiration date");
+
+    private static final List<DateTimeFormatter> DATE_TIME_FORMATS = List.of(
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.ROOT),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss", Locale.ROOT),
+            DateTimeFormatter.ofPattern("yyyy.MM.dd HH:mm:ss", Locale.ROOT),
+            DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss", Locale.ROOT));
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("yyyy.MM.dd", Locale.ROOT),
+            DateTimeFormatter.ofPattern("yyyy/MM/dd", Locale.ROOT),
+            DateTimeFormatter.ofPattern("dd.MM.yyyy", Locale.ROOT),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy", Locale.ROOT),
+            new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern("dd-MMM-yyyy").toFormatter(Locale.ENGLISH),
+            DateTimeFormatter.ofPattern("yyyyMMdd", Locale.ROOT));
+
+    /**
+     * Parses a raw WHOIS response.
+     *
+     * @param response the raw response text
+     * @return the parsed record; fields that could not be found are empty
+     */
+    public static WhoisRecord parse(String response) {
+        if (response == null || response.isBlank()) {
+            return new WhoisRecord(false, Optional.empty(), List.of(), List.of(),
+                    Optional.empty(), Optional.empty(), Optional.empty());
+        }
+        if (isRdap(response)) return parseRdap(response);
+
+        String registrar = null;
+        Set<String> nameServers = new TreeSet<>();
+        Set<String> statuses = new TreeSet<>();
+        Instant created = null;
+        Instant updated = null;
+        Instant expiry = null;
+        boolean inNameServerBlock = false;
+
+        for (String rawLine : response.split("\\R")) {
+            String line = rawLine.strip();
+            if (line.isEmpty() || line.startsWith("%") || line.startsWith("#") || line.startsWith(">>>")) {
+                inNameServerBlock = false;
+                continue;
+            }
+
+            int colon = line.indexOf(':');
+            String key = colon > 0 ? line.substring(0, colon).strip().toLowerCase(Locale.ROOT) : "";
+            String value = colon > 0 ? line.substring(colon + 1).strip() : "";
+
+            if (inNameServerBlock && (colon < 0 || !isKnownKey(key))) {
+                addNameServer(nameServers, line);
+                continue;
+            }
+            inNameServerBlock = false;
+
+            if (colon <= 0) continue;
+
+            if (NAME_SERVER_KEYS.contains(key)) {
+                if (value.isEmpty()) inNameServerBlock = true;
+                else addNameServer(nameServers, value);
+            } else if (STATUS_KEYS.contains(key) && !value.isEmpty()) {
+                statuses.add(value.split("\\s+")[0]);
+            } else if (REGISTRAR_KEYS.contains(key) && registrar == null && !value.isEmpty()) {
+                registrar = value;
+            } else if (CREATED_KEYS.contains(key) && created == null) {
+                created = parseDate(value).orElse(null);
+            } else if (UPDATED_KEYS.contains(key) && updated == null) {
+                updated = parseDate(value).orElse(null);
+            } else if (EXPIRY_KEYS.contains(key) && expiry == null) {
+                expiry = parseDate(value).orElse(null);
+            }
+        }
+
+        boolean notFound = nameServers.isEmpty() && expiry == null && isNotFound(response);
+
+        return new WhoisRecord(notFound,
+                Optional.ofNullable(registrar),
+                List.copyOf(nameServers),
+                List.copyOf(statuses),
+                Optional.ofNullable(created),
+                Optional.ofNullable(updated),
+                Optional.ofNullable(expiry));
+    }
+
+    /**
+     * Returns whether the response matches one of the generic "domain not found" signatures.
+     *
+     * @param response the raw response text
+     * @return {@code true} if the domain appears to be unregistered
+     */
+    public static boolean isNotFound(String response) {
+        if (isRdap(response)) return RDAP_NOT_FOUND.matcher(response).find();
+        String head = response.length() > 2048 ? response.substring(0, 2048) : response;
+        String lower = head.toLowerCase(Locale.ROOT);
+        return NOT_FOUND_SIGNATURES.stream().anyMatch(lower::contains);
+    }
+
+    /**
+     * Returns whether any status code matches, ignoring case.
+     *
+     * @param codes the EPP status codes to look for
+     * @return {@code true} if the record carries at least one of them
+     */
+    public boolean hasAnyStatus(Set<String> codes) {
+        return statuses.stream().anyMatch(status -> codes.contains(status.toLowerCase(Locale.ROOT)));
+    }
+
+    private static boolean isRdap(String response) {
+        return response.stripLeading().startsWith("{");
+    }
+
+    /**
+     * Reads the same fields from an RDAP domain object (RFC 9083): the registration,
+     * last changed and expiration events, the status values (converted to EPP codes,
+     * e.g. "client transfer prohibited" to "clientTransferProhibited" as in RFC 8056),
+     * the name servers and the name of the registrar entity.
+     */
+    private static WhoisRecord parseRdap(String response) {
+        JsonNode domain;
+        try {
+            domain = RDAP_MAPPER.readTree(response);
+        } catch (JsonProcessingException e) {
+            return new WhoisRecord(false, Optional.empty(), List.of(), List.of(),
+                    Optional.empty(), Optional.empty(), Optional.empty());
+        }
+
+        Set<String> nameServers = new TreeSet<>();
+        domain.path("nameservers").forEach(server -> addNameServer(nameServers, server.path("ldhName").asText()));
+
+        Set<String> statuses = new TreeSet<>();
+        domain.path("status").forEach(status -> statuses.add(toEppStatus(status.asText())));
+
+        String registrar = null;
+        for (JsonNode entity : domain.path("entities")) {
+            boolean isRegistrar = false;
+            for (JsonNode role : entity.path("roles")) isRegistrar |= "registrar".equals(role.asText());
+            if (!isRegistrar) continue;
+            for (JsonNode property : entity.path("vcardArray").path(1)) {
+                if ("fn".equals(property.path(0).asText())) registrar = property.path(3).textValue();
+            }
+        }
+
+        Instant created = null;
+        Instant updated = null;
+        Instant expiry = null;
+        for (JsonNode event : domain.path("events")) {
+            Instant date = parseDate(event.path("eventDate").asText()).orElse(null);
+            switch (event.path("eventAction").asText()) {
+                case "registration" -> created = date;
+                case "last changed" -> updated = date;
+                case "expiration" -> expiry = date;
+                default -> { }
+            }
+        }
+
+        return new WhoisRecord(domain.path("errorCode").asInt() == 404,
+                Optional.ofNullable(registrar),
+                List.copyOf(nameServers),
+                List.copyOf(statuses),
+                Optional.ofNullable(created),
+                Optional.ofNullable(updated),
+                Optional.ofNullable(expiry));
+    }
+
+    private static String toEppStatus(String rdapStatus) {
+        String[] words = rdapStatus.strip().split("\\s+");
+        StringBuilder code = new StringBuilder(words[0].toLowerCase(Locale.ROOT));
+        for (int i = 1; i < words.length; i++) {
+            if (words[i].isEmpty()) continue;
+            code.append(Character.toUpperCase(words[i].charAt(0))).append(words[i].substring(1).toLowerCase(Locale.ROOT));
+        }
+        return code.toString();
+    }
+
+    private static boolean isKnownKey(String key) {
+        return NAME_SERVER_KEYS.contains(key) || STATUS_KEYS.contains(key) || REGISTRAR_KEYS.contains(key)
+                || CREATED_KEYS.contains(key) || UPDATED_KEYS.contains(key) || EXPIRY_KEYS.contains(key);
+    }
+
+    private static void addNameServer(Set<String> nameServers, String value) {
+        String host = value.split("\\s+")[0].toLowerCase(Locale.ROOT);
+        if (host.endsWith(".")) host = host.substring(0, host.length() - 1);
+        if (host.contains(".")) nameServers.add(host);
+    }
+
+    /**
+     * Parses the date formats commonly found in WHOIS responses. Dates without
+     * a time zone are taken as UTC.
+     *
+     * @param value the field value
+     * @return the parsed instant, or empty if the format is not recognized
+     */
+    static Optional<Instant> parseDate(String value) {
+        if (value == null || value.isBlank()) return Optional.empty();
+        String text = value.strip();
+
+        try {
+            return Optional.of(OffsetDateTime.parse(text.replace(' ', 'T').split("\\s+")[0]).toInstant());
+        } catch (DateTimeParseException ignored) {
+            // not an ISO-8601 timestamp with offset
+        }
+
+        String withoutZone = text.replaceAll("(?i)\\s*(UTC|GMT|Z)$", "");
+        for (DateTimeFormatter format : DATE_TIME_FORMATS) {
+            try {
+                return Optional.of(LocalDateTime.parse(withoutZone, format).toInstant(ZoneOffset.UTC));
+            } catch (DateTimeParseException ignored) {
+                // try the next format
+            }
+        }
+
+        String firstToken = withoutZone.split("[\\sT]")[0];
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return Optional.of(LocalDate.parse(firstToken, format).atStartOfDay().toInstant(ZoneOffset.UTC));
+            } catch (DateTimeParseException ignored) {
+                // try the next format
+            }
+        }
+
+        return Optional.empty();
+    }
+}
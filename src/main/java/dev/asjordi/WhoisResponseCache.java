@@ -0,0 +1,326 @@
+package dev.asjordi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Caches raw WHOIS responses by domain.
+ * <p>
+ * The cache follows the W-TinyLFU design: new entries land in a small LRU
+ * "window" and, when pushed out of it, have to win an admission contest against
+ * the least recently used entry of the main region. The contest compares the
+ * access frequencies recorded by a {@link FrequencySketch}, so a bulk sweep of
+ * one-off domains cannot flush the domains that are queried over and over.
+ * </p>
+ * <p>
+ * Each entry gets its own time-to-live, computed from the response by an
+ * {@link AdaptiveTtlPolicy}: stable registrations stay cached for days while
+ * volatile ones expire within minutes. All operations are synchronized on the
+ * cache instance; the TTL of a new entry is computed before the lock is taken.
+ * </p>
+ */
+public class WhoisResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(WhoisResponseCache.class);
+
+    private static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+    private static final long DEFAULT_TTL_MINUTES = 60;
+
+    private final Clock clock;
+    private final Function<WhoisRecord, Duration> ttlPolicy;
+    private final boolean admissionFilter;
+    private final int windowMaximum;
+    private final int mainMaximum;
+    private final LinkedHashMap<String, Entry> window;
+    private final LinkedHashMap<String, Entry> main;
+    private final FrequencySketch sketch;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache configured from the {@code whois.cache.maxEntries} and
+     * {@code whois.cache.ttlMinutes} system properties. The latter is the base
+     * TTL of the {@link AdaptiveTtlPolicy}.
+     */
+    public WhoisResponseCache() {
+        this(Integer.getInteger("whois.cache.maxEntries", DEFAULT_MAXIMUM_SIZE),
+                new AdaptiveTtlPolicy(Duration.ofMinutes(Long.getLong("whois.cache.ttlMinutes", DEFAULT_TTL_MINUTES)))::ttlFor,
+                true,
+                Clock.systemUTC());
+    }
+
+    /**
+     * Creates a cache with a fixed TTL.
+     *
+     * @param maximumSize     the maximum number of cached responses
+     * @param ttl             how long a response stays valid
+     * @param admissionFilter {@code true} for TinyLFU admission, {@code false} for plain LRU
+     * @param clock           the clock used to expire entries
+     */
+    WhoisResponseCache(int maximumSize, Duration ttl, boolean admissionFilter, Clock clock) {
+        this(maximumSize, record -> ttl, admissionFilter, clock);
+    }
+
+    /**
+     * Creates a cache with the given settings.
+     *
+     * @param maximumSize     the maximum number of cached responses
+     * @param ttlPolicy       computes how long a parsed response stays valid
+     * @param admissionFilter {@code true} for TinyLFU admission, {@code false} for plain LRU
+     * @param clock           the clock used to expire entries
+     */
+    WhoisResponseCache(int maximumSize, Function<WhoisRecord, Duration> ttlPolicy, boolean admissionFilter, Clock clock) {
+        if (maximumSize < 1) throw new IllegalArgumentException("maximumSize must be positive");
+
+        this.clock = clock;
+        this.ttlPolicy = ttlPolicy;
+        this.admissionFilter = admissionFilter;
+        this.windowMaximum = admissionFilter ? Math.max(1, maximumSize / 100) : maximumSize;
+        this.mainMaximum = maximumSize - windowMaximum;
+        this.window = new LinkedHashMap<>(16, 0.75f, true);
+        this.main = new LinkedHashMap<>(16, 0.75f, true);
+        this.sketch = new FrequencySketch(maximumSize);
+
+        logger.atInfo().log("Response cache created (maximumSize={}, admissionFilter={})",
+                maximumSize, admissionFilter);
+    }
+
+    /**
+     * Returns the cached response for the domain if present and not expired.
+     *
+     * @param domain the sanitized domain
+     * @return the cached response, or empty on a miss
+     */
+    public synchronized Optional<String> get(String domain) {
+        sketch.increment(domain);
+
+        Entry entry = window.get(domain);
+        if (entry == null) entry = main.get(domain);
+
+        if (entry == null) {
+            misses++;
+            return Optional.empty();
+        }
+
+        if (entry.isExpired(clock.millis())) {
+            logger.atDebug().log("Cached response expired for domain: {}", domain);
+            window.remove(domain);
+            main.remove(domain);
+            misses++;
+            return Optional.empty();
+        }
+
+        entry.lastAccess = clock.millis();
+        hits++;
+        return Optional.of(entry.response);
+    }
+
+    /**
+     * Stores a response for the domain, subject to the admission policy. The
+     * entry's lifetime is computed from the response by the TTL policy.
+     *
+     * @param domain   the sanitized domain
+     * @param response the raw WHOIS response
+     */
+    public void put(String domain, String response) {
+        // Parsing the response is the expensive part, so it happens before taking the lock
+        put(domain, response, WhoisRecord.parse(response));
+    }
+
+    /**
+     * Stores a response for the domain like {@link #put(String, String)}, for
+     * callers that have already parsed it.
+     *
+     * @param domain   the sanitized domain
+     * @param response the raw WHOIS response
+     * @param record   the parsed response
+     */
+    public void put(String domain, String response, WhoisRecord record) {
+        Duration ttl = ttlPolicy.apply(record);
+
+        synchronized (this) {
+            long now = clock.millis();
+            Entry entry = new Entry(response, now + ttl.toMillis(), now);
+
+            Entry existing = window.get(domain);
+            if (existing == null) existing = main.get(domain);
+            if (existing != null) {
+                entry.lastAccess = existing.lastAccess;
+                if (window.containsKey(domain)) window.put(domain, entry);
+                else main.put(domain, entry);
+                return;
+            }
+
+            // Not counted here: the get() that missed before this fetch already recorded the access
+            insert(domain, entry);
+        }
+    }
+
+    /**
+     * Restores an entry from a snapshot with its original expiry. Expired entries
+     * and domains that are already cached are ignored.
+     *
+     * @param domain    the sanitized domain
+     * @param response  the raw WHOIS response
+     * @param expiresAt the expiry instant in epoch milliseconds
+     * @return {@code true} if the entry was restored
+     */
+    public synchronized boolean restore(String domain, String response, long expiresAt) {
+        long now = clock.millis();
+        if (expiresAt <= now || window.containsKey(domain) || main.containsKey(domain)) return false;
+
+        insert(domain, new Entry(response, expiresAt, now));
+        return true;
+    }
+
+    /**
+     * Returns a copy of all live entries, for writing a snapshot.
+     *
+     * @return the cached responses with their expiry
+     */
+    public synchronized List<CachedResponse> entries() {
+        long now = clock.millis();
+        List<CachedResponse> entries = new ArrayList<>(size());
+        for (Map<String, Entry> region : List.of(main, window)) {
+            for (Map.Entry<String, Entry> mapping : region.entrySet()) {
+                Entry entry = mapping.getValue();
+                if (!entry.isExpired(now)) {
+                    entries.add(new CachedResponse(mapping.getKey(), entry.response, entry.expiresAt));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private void insert(String domain, Entry entry) {
+        window.put(domain, entry);
+        if (window.size() > windowMaximum) {
+            evictFromWindow();
+        }
+    }
+
+    private void evictFromWindow() {
+        Iterator<Map.Entry<String, Entry>> windowIterator = window.entrySet().iterator();
+        Map.Entry<String, Entry> candidate = windowIterator.next();
+        windowIterator.remove();
+
+        if (main.size() < mainMaximum) {
+            main.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        if (main.isEmpty()) {
+            logger.atTrace().log("Evicted domain from response cache: {}", candidate.getKey());
+            return;
+        }
+
+        Iterator<Map.Entry<String, Entry>> mainIterator = main.entrySet().iterator();
+        Map.Entry<String, Entry> victim = mainIterator.next();
+
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+            mainIterator.remove();
+            main.put(candidate.getKey(), candidate.getValue());
+            logger.atTrace().log("Admitted {} into response cache, evicted {}", candidate.getKey(), victim.getKey());
+        } else {
+            logger.atTrace().log("Rejected {} from response cache in favor of {}", candidate.getKey(), victim.getKey());
+        }
+    }
+
+    /**
+     * Returns the live entries that expire before the given instant, for the
+     * refresh-ahead scheduler. Replacing an entry through {@link #put} keeps its
+     * last access time, so a refresh does not make an entry look recently used.
+     *
+     * @param deadline the instant, in epoch milliseconds, before which entries expire
+     * @return the entries nearing expiry
+     */
+    public synchronized List<RefreshCandidate> expiringBefore(long deadline) {
+        long now = clock.millis();
+        List<RefreshCandidate> candidates = new ArrayList<>();
+        collectExpiring(window, now, deadline, candidates);
+        collectExpiring(main, now, deadline, candidates);
+        return candidates;
+    }
+
+    private static void collectExpiring(Map<String, Entry> region, long now, long deadline,
+                                        List<RefreshCandidate> candidates) {
+        for (Map.Entry<String, Entry> mapping : region.entrySet()) {
+            Entry entry = mapping.getValue();
+            if (!entry.isExpired(now) && entry.expiresAt <= deadline) {
+                candidates.add(new RefreshCandidate(mapping.getKey(), entry.expiresAt, entry.lastAccess));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of cached responses, including expired ones not yet removed.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return window.size() + main.size();
+    }
+
+    /**
+     * Returns the fraction of lookups that were served from the cache.
+     *
+     * @return the hit ratio, or 0 if there were no lookups
+     */
+    public synchronized double hitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+    /**
+     * Returns whether the TinyLFU admission filter is enabled.
+     *
+     * @return {@code true} if frequency-based admission is used
+     */
+    public boolean isAdmissionFilterEnabled() {
+        return admissionFilter;
+    }
+
+    /**
+     * A cached domain that is about to expire.
+     *
+     * @param domain     the sanitized domain
+     * @param expiresAt  the expiry instant in epoch milliseconds
+     * @param lastAccess the last cache hit (or insertion) in epoch milliseconds
+     */
+    public record RefreshCandidate(String domain, long expiresAt, long lastAccess) { }
+
+    /**
+     * A cached response together with its expiry.
+     *
+     * @param domain    the sanitized domain
+     * @param response  the raw WHOIS response
+     * @param expiresAt the expiry instant in epoch milliseconds
+     */
+    public record CachedResponse(String domain, String response, long expiresAt) { }
+
+    private static final class Entry {
+        private final String response;
+        private final long expiresAt;
+        private long lastAccess;
+
+        private Entry(String response, long expiresAt, long lastAccess) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+            this.lastAccess = lastAccess;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -1,10 +1,27 @@
 package dev.asjordi;
 
 import org.apache.commons.net.whois.WhoisClient;
+import dev.asjordi.exceptions.ThrottledException;
 import dev.asjordi.exceptions.WhoisQueryException;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
 import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,7 +35,36 @@ import org.slf4j.LoggerFactory;
  * <p>
  * The service handles domain validation, sanitization, and fallback mechanisms
  * for WHOIS servers. If no specific WHOIS server is found for a domain extension,
- * it defaults to querying the IANA WHOIS server.
+ * it defaults to querying the IANA WHOIS server and follows the referral found
+ * in its answer, remembering the referred server in the {@link WhoisCache}.
+ * </p>
+ * <p>
+ * Successful responses are kept in a {@link WhoisResponseCache}, so repeated
+ * lookups of the same domain are answered without contacting the registry, and
+ * their expiry dates are filed in an {@link ExpiryIndex}.
+ * </p>
+ * <p>
+ * When several servers are configured for an extension, the {@link ServerSelector}
+ * picks one per query from the latency and error rate it has observed. Server
+ * hostnames are resolved through a {@link HostResolver}, which caches addresses
+ * and failures so DNS does not add latency to queries.
+ * </p>
+ * <p>
+ * Outbound queries draw on each server's rate budget through a {@link QueryScheduler},
+ * in the interactive lane for client lookups and in the background lane for
+ * refreshes and bulk work. Answers that a {@link ThrottleDetector} recognizes as
+ * rate-limit notices are never cached; they fail with a {@link ThrottledException}
+ * and make the {@link ServerRateLimiter} slow that server down and back off.
+ * </p>
+ * <p>
+ * For the TLDs the {@link RdapClient} policy selects, domains are looked up over
+ * RDAP instead and the JSON domain object is returned and cached as the response;
+ * if the RDAP service fails, the lookup falls back to port 43.
+ * </p>
+ * <p>
+ * Availability checks take the cheapest route to a verdict: a cached response,
+ * an RDAP {@code HEAD} request where RDAP is enabled, or a port 43 query whose
+ * answer is read only until an {@link AvailabilityDetector} signature matches.
  * </p>
  * <p>
  * Example usage:
@@ -32,10 +78,44 @@ import org.slf4j.LoggerFactory;
 public class WhoisService {
 
     private static final Logger logger = LoggerFactory.getLogger(WhoisService.class);
+    static final String IANA_WHOIS_SERVER = "whois.iana.org";
+    // Progress steps, followed by the server name where one applies
+    static final String STEP_CACHE_HIT = "served from cache";
+    static final String STEP_QUERYING = "querying ";
+    static final String STEP_QUERYING_RDAP = "querying RDAP ";
+    static final String STEP_REFERRAL = "following referral to ";
+    private static final Pattern REFERRAL_PATTERN =
+            Pattern.compile("^(?:refer|whois):\\s*(\\S+)\\s*$", Pattern.MULTILINE | Pattern.CASE_INSENSITIVE);
     private final WhoisCache whoisCache;
+    private final WhoisResponseCache responseCache;
+    private final ServerSelector serverSelector;
+    private final HostResolver hostResolver;
+    private final ServerRateLimiter rateLimiter;
+    private final QueryScheduler queryScheduler;
+    private final ThrottleDetector throttleDetector;
+    private final RdapClient rdapClient;
+    private final AvailabilityDetector availabilityDetector;
+    private final ExpiryIndex expiryIndex;
+    private final int whoisPort;
 
     public WhoisService() {
-        this.whoisCache = new WhoisCache();
+        this(new WhoisCache(), new WhoisResponseCache(), new ServerRateLimiter(), new ServerSelector(), new HostResolver(),
+                new RdapClient(), WhoisClient.DEFAULT_PORT);
+    }
+
+    WhoisService(WhoisCache whoisCache, WhoisResponseCache responseCache, ServerRateLimiter rateLimiter,
+                 ServerSelector serverSelector, HostResolver hostResolver, RdapClient rdapClient, int whoisPort) {
+        this.whoisCache = whoisCache;
+        this.responseCache = responseCache;
+        this.serverSelector = serverSelector;
+        this.hostResolver = hostResolver;
+        this.rateLimiter = rateLimiter;
+        this.queryScheduler = new QueryScheduler(rateLimiter);
+        this.throttleDetector = new ThrottleDetector();
+        this.rdapClient = rdapClient;
+        this.availabilityDetector = new AvailabilityDetector();
+        this.expiryIndex = new ExpiryIndex();
+        this.whoisPort = whoisPort;
     }
 
     /**
@@ -46,6 +126,39 @@ public class WhoisService {
      * @throws WhoisQueryException If an error occurs during the query.
      */
     public Optional<String> performWhoisQuery(String domain) throws WhoisQueryException {
+        return performWhoisQuery(domain, QueryScheduler.Priority.INTERACTIVE);
+    }
+
+    /**
+     * Performs a WHOIS query for the given domain in the given priority lane.
+     * <p>
+     * Interactive queries wait briefly for the server's rate budget and are sent
+     * anyway if it does not free up in time. Background queries wait longer but
+     * fail instead of exceeding the budget.
+     * </p>
+     *
+     * @param domain   The domain to query.
+     * @param priority The lane the outbound queries are scheduled in.
+     * @return An Optional containing the raw WHOIS response, or empty if the domain is invalid or the query fails.
+     * @throws WhoisQueryException If an error occurs during the query, or a background query gets no rate budget.
+     */
+    public Optional<String> performWhoisQuery(String domain, QueryScheduler.Priority priority) throws WhoisQueryException {
+        return performWhoisQuery(domain, priority, step -> { });
+    }
+
+    /**
+     * Performs a WHOIS query for the given domain in the given priority lane and
+     * reports each step, i.e. a cache hit, every server queried and every referral
+     * followed, as it happens.
+     *
+     * @param domain   The domain to query.
+     * @param priority The lane the outbound queries are scheduled in.
+     * @param progress Receives a short description of each step.
+     * @return An Optional containing the raw WHOIS response, or empty if the domain is invalid or the query fails.
+     * @throws WhoisQueryException If an error occurs during the query, or a background query gets no rate budget.
+     */
+    public Optional<String> performWhoisQuery(String domain, QueryScheduler.Priority priority,
+                                              Consumer<String> progress) throws WhoisQueryException {
         logger.atDebug().log("Performing WHOIS query for domain: {}", domain);
 
         if (domain == null || domain.isBlank() || !DomainValidatorUtil.isValidDomain(domain)) {
@@ -56,21 +169,466 @@ public class WhoisService {
         domain = DomainSanitizer.sanitize(domain);
         logger.atDebug().log("Sanitized domain: {}", domain);
 
+        Optional<String> cached = fromCache(domain, progress);
+        if (cached.isPresent()) return cached;
+
+        return fetch(domain, priority, progress, elapsed -> { });
+    }
+
+    /**
+     * Returns the cached response for the given domain without sending any query.
+     * Callers that bound concurrent queries use it to answer cache hits before
+     * taking a slot, then fetch misses with {@link #performFreshWhoisQuery}.
+     *
+     * @param domain   The domain to look up.
+     * @param progress Receives {@link #STEP_CACHE_HIT} on a hit.
+     * @return An Optional containing the cached response, or empty if the domain is invalid or not cached.
+     */
+    public Optional<String> cachedResponse(String domain, Consumer<String> progress) {
+        if (domain == null || domain.isBlank() || !DomainValidatorUtil.isValidDomain(domain)) return Optional.empty();
+        return fromCache(DomainSanitizer.sanitize(domain), progress);
+    }
+
+    private Optional<String> fromCache(String domain, Consumer<String> progress) {
+        Optional<String> cached = responseCache.get(domain);
+        if (cached.isPresent()) {
+            logger.atInfo().log("WHOIS response served from cache for domain: {}", domain);
+            progress.accept(STEP_CACHE_HIT);
+        }
+        return cached;
+    }
+
+    /**
+     * Queries the registry for the given domain without consulting the response
+     * cache, and caches the fresh answer. Used where a cached answer could hide a
+     * change, such as change detection.
+     *
+     * @param domain   The domain to query.
+     * @param priority The lane the outbound queries are scheduled in.
+     * @param progress Receives a short description of each step.
+     * @return An Optional containing the raw WHOIS response, or empty if the domain is invalid or the query fails.
+     * @throws WhoisQueryException If an error occurs during the query, or a background query gets no rate budget.
+     */
+    public Optional<String> performFreshWhoisQuery(String domain, QueryScheduler.Priority priority,
+                                                   Consumer<String> progress) throws WhoisQueryException {
+        return performFreshWhoisQuery(domain, priority, progress, elapsed -> { });
+    }
+
+    /**
+     * Queries the registry like {@link #performFreshWhoisQuery(String, QueryScheduler.Priority, Consumer)}
+     * and also reports how long each server queried took to answer, apart from
+     * any wait for rate budget.
+     *
+     * @param domain       The domain to query.
+     * @param priority     The lane the outbound queries are scheduled in.
+     * @param progress     Receives a short description of each step.
+     * @param responseTime Receives the response time of each server queried, in query order.
+     * @return An Optional containing the raw WHOIS response, or empty if the domain is invalid or the query fails.
+     * @throws WhoisQueryException If an error occurs during the query, or a background query gets no rate budget.
+     */
+    public Optional<String> performFreshWhoisQuery(String domain, QueryScheduler.Priority priority,
+                                                   Consumer<String> progress, Consumer<Duration> responseTime)
+            throws WhoisQueryException {
+        logger.atDebug().log("Performing uncached WHOIS query for domain: {}", domain);
+
+        if (domain == null || domain.isBlank() || !DomainValidatorUtil.isValidDomain(domain)) {
+            logger.atWarn().log("Invalid or blank domain: {}", domain);
+            return Optional.empty();
+        }
+
+        return fetch(DomainSanitizer.sanitize(domain), priority, progress, responseTime);
+    }
+
+    private Optional<String> fetch(String domain, QueryScheduler.Priority priority, Consumer<String> progress,
+                                   Consumer<Duration> responseTime) throws WhoisQueryException {
+        Optional<URI> rdapBaseUrl = rdapClient.endpointFor(domain.substring(domain.lastIndexOf('.')));
+        if (rdapBaseUrl.isPresent()) {
+            Optional<String> rdap = rdapQuery(rdapBaseUrl.get(), domain, priority, progress, responseTime);
+            if (rdap.isPresent()) {
+                cacheResponse(domain, rdap.get());
+                return rdap;
+            }
+        }
+
+        String whoisServer = resolveWhoisServer(domain);
+        logger.atInfo().log("Using WHOIS server: {}", whoisServer);
+
+        acquireBudget(whoisServer, priority);
+        progress.accept(STEP_QUERYING + whoisServer);
+        Optional<String> result = timedQuery(whoisServer, domain, responseTime);
+
+        if (result.isPresent() && IANA_WHOIS_SERVER.equals(whoisServer)) {
+            Optional<String> referral = findReferral(result.get());
+            if (referral.isPresent()) {
+                logger.atInfo().log("Following IANA referral for {} to {}", domain, referral.get());
+                whoisCache.learnWhoisServer(domain.substring(domain.lastIndexOf('.')), referral.get());
+                acquireBudget(referral.get(), priority);
+                progress.accept(STEP_REFERRAL + referral.get());
+                result = timedQuery(referral.get(), domain, responseTime);
+            }
+        }
+
+        if (result.isPresent()) cacheResponse(domain, result.get());
+        return result;
+    }
+
+    /**
+     * Finds out whether a domain is registered, doing as little work as possible:
+     * a cached response is classified without any query, domains whose TLD uses
+     * RDAP are checked with a bodiless {@code HEAD} request, and port 43 answers
+     * are only read until their first decisive line. Partly read answers are not
+     * cached.
+     *
+     * @param domain   The domain to check.
+     * @param priority The lane the outbound queries are scheduled in.
+     * @return The verdict; {@link AvailabilityDetector.Availability#UNKNOWN} if the domain is invalid or
+     *         the answer matched no signature.
+     * @throws WhoisQueryException If the query fails or the server is throttling.
+     */
+    public AvailabilityDetector.Availability checkAvailability(String domain, QueryScheduler.Priority priority)
+            throws WhoisQueryException {
+        if (domain == null || domain.isBlank() || !DomainValidatorUtil.isValidDomain(domain)) {
+            logger.atWarn().log("Invalid or blank domain: {}", domain);
+            return AvailabilityDetector.Availability.UNKNOWN;
+        }
+        domain = DomainSanitizer.sanitize(domain);
+
+        Optional<AvailabilityDetector.Availability> cached = availabilityFromCache(domain);
+        if (cached.isPresent()) return cached.get();
+
+        return probeAvailability(domain, priority);
+    }
+
+    /**
+     * Classifies the cached response for the given domain without sending any
+     * query. Callers that bound concurrent queries use it to answer cache hits
+     * before taking a slot, then check misses with {@link #queryAvailability}.
+     *
+     * @param domain The domain to check.
+     * @return The verdict, or empty if the domain is invalid or not cached.
+     */
+    public Optional<AvailabilityDetector.Availability> cachedAvailability(String domain) {
+        if (domain == null || domain.isBlank() || !DomainValidatorUtil.isValidDomain(domain)) return Optional.empty();
+        return availabilityFromCache(DomainSanitizer.sanitize(domain));
+    }
+
+    /**
+     * Checks whether a domain is registered like {@link #checkAvailability}, but
+     * without consulting the response cache.
+     *
+     * @param domain   The domain to check.
+     * @param priority The lane the outbound queries are scheduled in.
+     * @return The verdict; {@link AvailabilityDetector.Availability#UNKNOWN} if the domain is invalid or
+     *         the answer matched no signature.
+     * @throws WhoisQueryException If the query fails or the server is throttling.
+     */
+    public AvailabilityDetector.Availability queryAvailability(String domain, QueryScheduler.Priority priority)
+            throws WhoisQueryException {
+        if (domain == null || domain.isBlank() || !DomainValidatorUtil.isValidDomain(domain)) {
+            logger.atWarn().log("Invalid or blank domain: {}", domain);
+            return AvailabilityDetector.Availability.UNKNOWN;
+        }
+        return probeAvailability(DomainSanitizer.sanitize(domain), priority);
+    }
+
+    private Optional<AvailabilityDetector.Availability> availabilityFromCache(String domain) {
+        Optional<String> cached = responseCache.get(domain);
+        if (cached.isPresent()) logger.atDebug().log("Availability of {} taken from cached response", domain);
+        return cached.map(response -> availabilityDetector.classify(null, response));
+    }
+
+    private AvailabilityDetector.Availability probeAvailability(String domain, QueryScheduler.Priority priority)
+            throws WhoisQueryException {
+        Optional<URI> rdapBaseUrl = rdapClient.endpointFor(domain.substring(domain.lastIndexOf('.')));
+        if (rdapBaseUrl.isPresent()) {
+            Optional<Boolean> registered = rdapRegistered(rdapBaseUrl.get(), domain, priority);
+            if (registered.isPresent()) {
+                return registered.get() ? AvailabilityDetector.Availability.TAKEN : AvailabilityDetector.Availability.AVAILABLE;
+            }
+        }
+
+        String whoisServer = resolveWhoisServer(domain);
+        if (IANA_WHOIS_SERVER.equals(whoisServer)) {
+            acquireBudget(whoisServer, priority);
+            Optional<String> referral = timedQuery(whoisServer, domain, elapsed -> { }).flatMap(WhoisService::findReferral);
+            if (referral.isEmpty()) return AvailabilityDetector.Availability.UNKNOWN;
+
+            whoisCache.learnWhoisServer(domain.substring(domain.lastIndexOf('.')), referral.get());
+            whoisServer = referral.get();
+        }
+
+        String server = whoisServer;
+        acquireBudget(server, priority);
+        Optional<String> head = timedQuery(server, domain,
+                line -> availabilityDetector.classifyLine(server, line) != AvailabilityDetector.Availability.UNKNOWN,
+                elapsed -> { });
+        return availabilityDetector.classify(server, head.orElse(null));
+    }
+
+    /**
+     * Sends a query that is not a domain lookup, such as an IP address or AS number,
+     * to the given server, within the server's rate budget like any other query.
+     *
+     * @param whoisServer The WHOIS server hostname.
+     * @param query       The query text, in the syntax the server expects.
+     * @param priority    The lane the query is scheduled in.
+     * @param progress    Receives a short description of each step.
+     * @return An Optional containing the raw WHOIS response.
+     * @throws WhoisQueryException If the query fails or the server is throttling.
+     */
+    Optional<String> query(String whoisServer, String query, QueryScheduler.Priority priority,
+                           Consumer<String> progress) throws WhoisQueryException {
+        acquireBudget(whoisServer, priority);
+        progress.accept(STEP_QUERYING + whoisServer);
+        return timedQuery(whoisServer, query, elapsed -> { });
+    }
+
+    /**
+     * Extracts the WHOIS server an IANA response refers to.
+     *
+     * @param response The raw IANA response.
+     * @return The referred server, or empty if the response has none.
+     */
+    static Optional<String> findReferral(String response) {
+        Matcher matcher = REFERRAL_PATTERN.matcher(response);
+        if (!matcher.find()) return Optional.empty();
+
+        String server = matcher.group(1).toLowerCase();
+        return IANA_WHOIS_SERVER.equals(server) ? Optional.empty() : Optional.of(server);
+    }
+
+    /**
+     * Re-queries the registry for a cached domain and replaces the cached response,
+     * provided the WHOIS server has a spare token in the background lane.
+     *
+     * @param domain The sanitized domain to refresh.
+     * @return {@code true} if the response was refreshed, {@code false} if the refresh was skipped.
+     * @throws WhoisQueryException If the query fails.
+     */
+    boolean refresh(String domain) throws WhoisQueryException {
+        Optional<URI> rdapBaseUrl = rdapClient.endpointFor(domain.substring(domain.lastIndexOf('.')));
+        String whoisServer = rdapBaseUrl.map(URI::getHost).orElseGet(() -> resolveWhoisServer(domain));
+
+        if (!queryScheduler.acquire(whoisServer, QueryScheduler.Priority.BACKGROUND, Duration.ZERO)) {
+            logger.atDebug().log("Skipping refresh of {}: no rate budget left for {}", domain, whoisServer);
+            return false;
+        }
+
+        Optional<String> result = rdapBaseUrl.isPresent()
+                ? rdapLookup(rdapBaseUrl.get(), domain)
+                : timedQuery(whoisServer, domain, elapsed -> { });
+        result.ifPresent(response -> cacheResponse(domain, response));
+        logger.atDebug().log("Refreshed cached WHOIS response for domain: {}", domain);
+        return result.isPresent();
+    }
+
+    /**
+     * Resolves the addresses of the WHOIS servers most likely to be queried in the
+     * background: the servers of the given extensions and of the extensions that
+     * are most common among the cached responses.
+     *
+     * @param extensions extensions whose servers are always prefetched, including the leading dot
+     * @param limit      maximum number of extensions taken from the response cache
+     * @return the servers being prefetched
+     */
+    Set<String> prefetchHotServers(Collection<String> extensions, int limit) {
+        Map<String, Long> extensionCounts = responseCache.entries().stream()
+                .map(entry -> entry.domain().substring(entry.domain().lastIndexOf('.')))
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+        Set<String> servers = new LinkedHashSet<>();
+        Stream.concat(extensions.stream(), extensionCounts.entrySet().stream()
+                        .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                        .limit(limit)
+                        .map(Map.Entry::getKey))
+                .forEach(extension -> servers.addAll(whoisCache.getWhoisServers(extension)));
+        servers.add(IANA_WHOIS_SERVER);
+
+        hostResolver.prefetch(servers);
+        return servers;
+    }
+
+    WhoisResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    WhoisCache getWhoisCache() {
+        return whoisCache;
+    }
+
+    ExpiryIndex getExpiryIndex() {
+        return expiryIndex;
+    }
+
+    // Every response that reaches the cache also files its expiry date; both use the same parse
+    private void cacheResponse(String domain, String response) {
+        WhoisRecord record = WhoisRecord.parse(response);
+        responseCache.put(domain, response, record);
+        expiryIndex.update(domain, record);
+    }
+
+    private String resolveWhoisServer(String domain) {
         String domainExtension = domain.substring(domain.lastIndexOf('.'));
         logger.atDebug().log("Extracted domain extension: {}", domainExtension);
 
-        String whoisServer = whoisCache
-                .getWhoisServer(domainExtension)
-                .orElse("whois.iana.org");
-        logger.atInfo().log("Using WHOIS server: {}", whoisServer);
+        List<String> servers = whoisCache.getWhoisServers(domainExtension);
+        return servers.isEmpty() ? IANA_WHOIS_SERVER : serverSelector.select(servers);
+    }
+
+    private void acquireBudget(String whoisServer, QueryScheduler.Priority priority) throws WhoisQueryException {
+        long backoff = rateLimiter.backoffRemaining(whoisServer);
+        if (backoff > 0 && priority == QueryScheduler.Priority.INTERACTIVE) {
+            throw new ThrottledException(whoisServer, backoff);
+        }
+
+        if (queryScheduler.acquire(whoisServer, priority)) return;
+
+        if (priority == QueryScheduler.Priority.BACKGROUND) {
+            throw new WhoisQueryException("No rate budget left for WHOIS server " + whoisServer);
+        }
+        logger.atWarn().log("Rate budget for {} exhausted, sending interactive query anyway", whoisServer);
+        rateLimiter.record(whoisServer);
+    }
+
+    private Optional<String> timedQuery(String whoisServer, String domain, Consumer<Duration> responseTime)
+            throws WhoisQueryException {
+        return timedQuery(whoisServer, domain, null, responseTime);
+    }
+
+    // With a stop condition only the answer's lines up to the first that meets it are read
+    private Optional<String> timedQuery(String whoisServer, String domain, Predicate<String> stopAfter,
+                                        Consumer<Duration> responseTime) throws WhoisQueryException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Optional<String> result = stopAfter == null
+                    ? queryServer(whoisServer, domain)
+                    : queryServer(whoisServer, domain, stopAfter);
+            if (throttleDetector.isThrottled(whoisServer, result.orElse(null))) {
+                throw new ThrottledException(whoisServer, rateLimiter.onThrottled(whoisServer));
+            }
+            rateLimiter.onSuccess(whoisServer);
+            success = true;
+            return result;
+        } finally {
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            serverSelector.record(whoisServer, elapsed, success);
+            responseTime.accept(elapsed);
+        }
+    }
+
+    /**
+     * Looks the domain up over RDAP within the RDAP server's rate budget. Any
+     * failure other than throttling returns empty, so the caller falls back to
+     * port 43.
+     */
+    private Optional<String> rdapQuery(URI baseUrl, String domain, QueryScheduler.Priority priority,
+                                       Consumer<String> progress, Consumer<Duration> responseTime)
+            throws WhoisQueryException {
+        acquireBudget(baseUrl.getHost(), priority);
+        progress.accept(STEP_QUERYING_RDAP + baseUrl.getHost());
+        long start = System.nanoTime();
+        try {
+            return rdapLookup(baseUrl, domain);
+        } catch (ThrottledException e) {
+            throw e;
+        } catch (WhoisQueryException e) {
+            logger.atWarn().log("RDAP lookup of {} failed, falling back to port 43: {}", domain, e.getMessage());
+            progress.accept("RDAP failed, falling back to port 43");
+            return Optional.empty();
+        } finally {
+            responseTime.accept(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private Optional<Boolean> rdapRegistered(URI baseUrl, String domain, QueryScheduler.Priority priority)
+            throws WhoisQueryException {
+        acquireBudget(baseUrl.getHost(), priority);
+        try {
+            return Optional.of(rdapCall(baseUrl.getHost(), () -> rdapClient.isRegistered(baseUrl, domain)));
+        } catch (ThrottledException e) {
+            throw e;
+        } catch (WhoisQueryException e) {
+            logger.atWarn().log("RDAP check of {} failed, falling back to port 43: {}", domain, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Optional<String> rdapLookup(URI baseUrl, String domain) throws WhoisQueryException {
+        return rdapCall(baseUrl.getHost(), () -> rdapClient.lookupDomain(baseUrl, domain));
+    }
+
+    // A throttled RDAP answer slows the server down like a port 43 rate-limit notice
+    private <T> T rdapCall(String rdapServer, RdapRequest<T> request) throws WhoisQueryException {
+        try {
+            T result = request.send();
+            rateLimiter.onSuccess(rdapServer);
+            return result;
+        } catch (ThrottledException e) {
+            throw new ThrottledException(rdapServer, Math.max(e.getRetryAfterMillis(), rateLimiter.onThrottled(rdapServer)));
+        }
+    }
+
+    @FunctionalInterface
+    private interface RdapRequest<T> {
+        T send() throws WhoisQueryException;
+    }
+
+    @FunctionalInterface
+    private interface WhoisExchange {
+        String run(WhoisClient whoisClient) throws IOException;
+    }
+
+    /**
+     * Sends the query for the domain to the given WHOIS server.
+     *
+     * @param whoisServer The WHOIS server hostname.
+     * @param domain      The sanitized domain.
+     * @return An Optional containing the raw WHOIS response.
+     * @throws WhoisQueryException If the server cannot be reached.
+     */
+    protected Optional<String> queryServer(String whoisServer, String domain) throws WhoisQueryException {
+        return exchange(whoisServer, domain, whoisClient -> whoisClient.query(domain));
+    }
+
+    /**
+     * Sends the query for the domain to the given WHOIS server and reads the answer
+     * line by line, closing the connection after the first line that meets the
+     * stop condition.
+     *
+     * @param whoisServer The WHOIS server hostname.
+     * @param domain      The sanitized domain.
+     * @param stopAfter   Tells whether a line is the last one needed.
+     * @return An Optional containing the answer up to and including that line, or all of it.
+     * @throws WhoisQueryException If the server cannot be reached.
+     */
+    protected Optional<String> queryServer(String whoisServer, String domain, Predicate<String> stopAfter)
+            throws WhoisQueryException {
+        return exchange(whoisServer, domain, whoisClient -> {
+            StringBuilder answer = new StringBuilder();
+            try (var reader = new BufferedReader(
+                    new InputStreamReader(whoisClient.getInputStream(domain), whoisClient.getCharset()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    answer.append(line).append('\n');
+                    if (stopAfter.test(line)) {
+                        logger.atDebug().log("Stopped reading answer from {} after {} characters", whoisServer, answer.length());
+                        break;
+                    }
+                }
+            }
+            return answer.toString();
+        });
+    }
 
+    private Optional<String> exchange(String whoisServer, String domain, WhoisExchange exchange) throws WhoisQueryException {
         WhoisClient whoisClient = new WhoisClient();
 
         try {
             logger.atDebug().log("Connecting to WHOIS server: {}", whoisServer);
-            whoisClient.connect(whoisServer);
+            whoisClient.connect(hostResolver.resolve(whoisServer), whoisPort);
 
-            String result = whoisClient.query(domain);
+            String result = exchange.run(whoisClient);
             logger.atInfo().log("WHOIS query successful for domain: {}", domain);
             return Optional.ofNullable(result);
         } catch (UnknownHostException e) {
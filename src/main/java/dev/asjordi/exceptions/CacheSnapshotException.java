@@ -0,0 +1,26 @@
+package dev.asjordi.exceptions;
+
+/**
+ * Exception thrown when a cache snapshot cannot be written or read.
+ */
+public class CacheSnapshotException extends McpException {
+
+    /**
+     * Constructs a new CacheSnapshotException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public CacheSnapshotException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new CacheSnapshotException with the specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the cause of the exception
+     */
+    public CacheSnapshotException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,16 @@
+package dev.asjordi.exceptions;
+
+/**
+ * Exception thrown when a query is neither a valid IP address nor a valid AS number.
+ */
+public class InvalidQueryException extends McpException {
+
+    /**
+     * Constructs a new InvalidQueryException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public InvalidQueryException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,31 @@
+package dev.asjordi.exceptions;
+
+/**
+ * Exception thrown when a request is shed because the server is at capacity.
+ * <p>
+ * It carries a hint for how long the client should wait before retrying.
+ * </p>
+ */
+public class OverloadedException extends McpException {
+
+    private final long retryAfterMillis;
+
+    /**
+     * Constructs a new OverloadedException with the specified retry hint.
+     *
+     * @param retryAfterMillis how long the client should wait before retrying, in milliseconds
+     */
+    public OverloadedException(long retryAfterMillis) {
+        super("Server overloaded, retry after " + retryAfterMillis + " ms");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Returns how long the client should wait before retrying.
+     *
+     * @return the retry delay in milliseconds
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
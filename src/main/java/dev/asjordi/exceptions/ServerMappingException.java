@@ -0,0 +1,26 @@
+package dev.asjordi.exceptions;
+
+/**
+ * Exception thrown when a WHOIS server mapping file cannot be read or is invalid.
+ */
+public class ServerMappingException extends McpException {
+
+    /**
+     * Constructs a new ServerMappingException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public ServerMappingException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new ServerMappingException with the specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the cause of the exception
+     */
+    public ServerMappingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,33 @@
+package dev.asjordi.exceptions;
+
+/**
+ * Exception thrown when a WHOIS server answers with a rate-limit notice instead of data,
+ * or is still backing off after having done so.
+ * <p>
+ * The failure is temporary; the exception carries how long to wait before retrying.
+ * </p>
+ */
+public class ThrottledException extends WhoisQueryException {
+
+    private final long retryAfterMillis;
+
+    /**
+     * Constructs a new ThrottledException for the given server and retry hint.
+     *
+     * @param whoisServer      the throttling WHOIS server
+     * @param retryAfterMillis how long to wait before retrying, in milliseconds
+     */
+    public ThrottledException(String whoisServer, long retryAfterMillis) {
+        super("WHOIS server " + whoisServer + " is throttling queries, retry after " + retryAfterMillis + " ms");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Returns how long to wait before retrying.
+     *
+     * @return the retry delay in milliseconds
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
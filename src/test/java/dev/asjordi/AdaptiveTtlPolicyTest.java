@@ -0,0 +1,93 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveTtlPolicyTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveTtlPolicyTest.class);
+
+    private final TestClock clock = new TestClock();
+    private final AdaptiveTtlPolicy policy =
+            new AdaptiveTtlPolicy(Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofHours(72), clock);
+
+    @Test
+    void testStableLockedRecordIsCachedForDays() {
+        logger.atTrace().log("Testing TTL of a long-standing locked registration");
+        var ttl = policy.ttlFor("""
+                Domain Name: EXAMPLE.COM
+                Updated Date: 2023-01-10T00:00:00Z
+                Creation Date: 2010-05-01T00:00:00Z
+                Registry Expiry Date: 2027-05-01T00:00:00Z
+                Domain Status: clientTransferProhibited https://icann.org/epp#clientTransferProhibited
+                Name Server: NS1.EXAMPLE.COM
+                """);
+        assertEquals(Duration.ofHours(72), ttl);
+    }
+
+    @Test
+    void testPendingDeleteIsCachedForMinutes() {
+        logger.atTrace().log("Testing TTL of a domain in pendingDelete");
+        var ttl = policy.ttlFor("""
+                Domain Name: DROPPING.COM
+                Creation Date: 2010-05-01T00:00:00Z
+                Registry Expiry Date: 2027-05-01T00:00:00Z
+                Domain Status: pendingDelete https://icann.org/epp#pendingDelete
+                """);
+        assertEquals(Duration.ofMinutes(5), ttl);
+    }
+
+    @Test
+    void testDomainExpiringTomorrowIsCachedForMinutes() {
+        logger.atTrace().log("Testing TTL of a domain about to expire");
+        var ttl = policy.ttlFor("""
+                Domain Name: EXPIRING.COM
+                Creation Date: 2010-05-01T00:00:00Z
+                Registry Expiry Date: 2025-01-01T20:00:00Z
+                Domain Status: clientTransferProhibited
+                """);
+        assertEquals(Duration.ofMinutes(5), ttl);
+    }
+
+    @Test
+    void testRecentlyUpdatedRecordIsCachedBriefly() {
+        logger.atTrace().log("Testing TTL of a recently updated domain");
+        var ttl = policy.ttlFor("""
+                Domain Name: MOVED.COM
+                Updated Date: 2024-12-31T12:00:00Z
+                Creation Date: 2010-05-01T00:00:00Z
+                Registry Expiry Date: 2027-05-01T00:00:00Z
+                Domain Status: clientTransferProhibited
+                """);
+        assertEquals(Duration.ofMinutes(30), ttl);
+    }
+
+    @Test
+    void testNotFoundIsCachedBriefly() {
+        logger.atTrace().log("Testing TTL of a not found answer");
+        assertEquals(Duration.ofMinutes(15), policy.ttlFor("No match for \"FREE-NAME.COM\"."));
+    }
+
+    @Test
+    void testUnparsableResponseUsesBaseTtl() {
+        logger.atTrace().log("Testing TTL of a response without dates");
+        assertEquals(Duration.ofHours(1), policy.ttlFor("refer: whois.example\n"));
+    }
+
+    @Test
+    void testCacheUsesPolicyPerEntry() {
+        logger.atTrace().log("Testing that the response cache applies the policy per entry");
+        var cache = new WhoisResponseCache(100, policy::ttlFor, true, clock);
+        cache.put("free-name.com", "No match for \"FREE-NAME.COM\".");
+        cache.put("example.com", WhoisRecordTest.VERISIGN_RESPONSE);
+
+        clock.advance(Duration.ofMinutes(20));
+        assertTrue(cache.get("free-name.com").isEmpty());
+        assertTrue(cache.get("example.com").isPresent());
+    }
+}
@@ -0,0 +1,144 @@
+package dev.asjordi;
+
+import dev.asjordi.exceptions.OverloadedException;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControllerTest.class);
+
+    @Test
+    void testRunsCallWithinLimit() {
+        logger.atTrace().log("Testing that calls run while slots are free");
+        var controller = new AdmissionController(2, 0, Duration.ofMillis(100));
+        assertEquals("ok", controller.execute(() -> "ok"));
+        assertEquals(0, controller.inFlight());
+        assertEquals(0, controller.rejectedCount());
+    }
+
+    @Test
+    void testRejectsImmediatelyWhenQueueIsFull() throws Exception {
+        logger.atTrace().log("Testing immediate rejection once the wait queue is full");
+        var controller = new AdmissionController(1, 0, Duration.ofSeconds(10));
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> controller.execute(() -> await(release)));
+            awaitInFlight(controller, 1);
+
+            long start = System.nanoTime();
+            var e = assertThrows(OverloadedException.class, () -> controller.execute(() -> "late"));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            assertTrue(e.getRetryAfterMillis() >= 100);
+            assertTrue(e.getMessage().contains("retry after " + e.getRetryAfterMillis() + " ms"));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testQueuedCallTimesOut() throws Exception {
+        logger.atTrace().log("Testing that a queued call gives up at its deadline");
+        var controller = new AdmissionController(1, 1, Duration.ofMillis(100));
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> controller.execute(() -> await(release)));
+            awaitInFlight(controller, 1);
+
+            assertThrows(OverloadedException.class, () -> controller.execute(() -> "late"));
+            assertEquals(0, controller.queued());
+            assertEquals(1, controller.rejectedCount());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testQueuedCallRunsWhenSlotFrees() throws Exception {
+        logger.atTrace().log("Testing that a queued call runs once a slot is released");
+        var controller = new AdmissionController(1, 1, Duration.ofSeconds(10));
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.submit(() -> controller.execute(() -> await(release)));
+            awaitInFlight(controller, 1);
+
+            Future<String> queued = executor.submit(() -> controller.execute(() -> "queued"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (controller.queued() == 0 && System.nanoTime() < deadline) Thread.sleep(10);
+            assertEquals(1, controller.queued());
+
+            release.countDown();
+            assertEquals("queued", queued.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testBurstIsShed() throws Exception {
+        logger.atTrace().log("Testing that a burst beyond capacity is shed while in-flight stays bounded");
+        var controller = new AdmissionController(2, 2, Duration.ofMillis(50));
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            executor.submit(() -> controller.execute(() -> await(release)));
+            executor.submit(() -> controller.execute(() -> await(release)));
+            awaitInFlight(controller, 2);
+
+            List<Future<String>> burst = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                burst.add(executor.submit(() -> controller.execute(() -> "burst")));
+            }
+
+            int shed = 0;
+            for (Future<String> future : burst) {
+                try {
+                    future.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertInstanceOf(OverloadedException.class, e.getCause());
+                    shed++;
+                }
+            }
+            assertEquals(6, shed);
+            assertEquals(2, controller.inFlight());
+            assertEquals(6, controller.rejectedCount());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+
+    private static void awaitInFlight(AdmissionController controller, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (controller.inFlight() < expected && System.nanoTime() < deadline) Thread.sleep(10);
+        assertEquals(expected, controller.inFlight());
+    }
+}
@@ -0,0 +1,145 @@
+package dev.asjordi;
+
+import dev.asjordi.AvailabilityDetector.Availability;
+import dev.asjordi.exceptions.ThrottledException;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvailabilityCheckerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityCheckerTest.class);
+
+    @Test
+    void testVerdictsAreReportedInRequestOrder() {
+        logger.atTrace().log("Testing a concurrent check of several candidates");
+        var service = new FakeWhoisService(Map.of(
+                "free.com", Availability.AVAILABLE,
+                "taken.com", Availability.TAKEN));
+        var checker = new AvailabilityChecker(service, new AdmissionController(), domain -> false, 4);
+        List<String> reported = new CopyOnWriteArrayList<>();
+
+        var result = checker.checkAll(List.of("taken.com", "free.com", "throttled.com", "not a domain"), 0,
+                (domain, verdict) -> reported.add(domain), () -> false);
+
+        assertEquals(List.of("taken.com", "free.com", "throttled.com", "not a domain"),
+                List.copyOf(result.availability().keySet()));
+        assertEquals(List.of("free.com"), result.domains(Availability.AVAILABLE));
+        assertEquals(List.of("taken.com"), result.domains(Availability.TAKEN));
+        assertEquals(List.of("throttled.com", "not a domain"), result.domains(Availability.UNKNOWN));
+        assertTrue(result.unchecked().isEmpty());
+        assertEquals(4, reported.size());
+    }
+
+    @Test
+    void testDnsPrefilterSkipsRegistryQueries() {
+        logger.atTrace().log("Testing that resolving names are reported taken without a WHOIS query");
+        var service = new FakeWhoisService(Map.of("free.com", Availability.AVAILABLE));
+        var checker = new AvailabilityChecker(service, new AdmissionController(), Set.of("resolving.com")::contains, 2);
+
+        assertEquals(Availability.TAKEN, checker.check("RESOLVING.com"));
+        assertEquals(Availability.AVAILABLE, checker.check("free.com"));
+        assertEquals(List.of("free.com"), service.checked);
+    }
+
+    @Test
+    void testCachedResponseIsUsedBeforeDns() {
+        logger.atTrace().log("Testing that cached responses answer before the DNS pre-filter and the registry");
+        var service = new FakeWhoisService(Map.of());
+        service.getResponseCache().put("cached-free.com", "No match for \"CACHED-FREE.COM\".");
+        service.getResponseCache().put("example.com", WhoisRecordTest.VERISIGN_RESPONSE);
+        List<String> resolved = new ArrayList<>();
+        var checker = new AvailabilityChecker(service, new AdmissionController(), domain -> resolved.add(domain), 1);
+
+        assertEquals(Availability.AVAILABLE, checker.check("cached-free.com"));
+        assertEquals(Availability.TAKEN, checker.check("example.com"));
+        assertTrue(resolved.isEmpty());
+        assertTrue(service.checked.isEmpty());
+    }
+
+    @Test
+    void testDnsPrefilterResolvesAbsoluteNames() {
+        logger.atTrace().log("Testing that the DNS pre-filter resolves absolute names");
+        List<String> lookups = new CopyOnWriteArrayList<>();
+        var prefilter = AvailabilityChecker.dnsPrefilter(host -> {
+            lookups.add(host);
+            if (!host.equals("resolving.com.")) throw new UnknownHostException(host);
+            return new InetAddress[]{InetAddress.getLoopbackAddress()};
+        });
+
+        assertTrue(prefilter.test("resolving.com"));
+        assertFalse(prefilter.test("free.com"));
+        assertEquals(3, lookups.size());
+        assertTrue(lookups.get(0).startsWith("nxdomain-probe-") && lookups.get(0).endsWith(".com."));
+        assertEquals(List.of("resolving.com.", "free.com."), lookups.subList(1, 3));
+    }
+
+    @Test
+    void testDnsPrefilterIsOffWhenNxdomainIsRewritten() {
+        logger.atTrace().log("Testing that a resolver answering for every name disables the DNS pre-filter");
+        var prefilter = AvailabilityChecker.dnsPrefilter(host -> new InetAddress[]{InetAddress.getLoopbackAddress()});
+
+        assertFalse(prefilter.test("resolving.com"));
+        assertFalse(prefilter.test("free.com"));
+    }
+
+    @Test
+    void testLimitStopsTheCheck() {
+        logger.atTrace().log("Testing that the check stops once enough available names were found");
+        var service = new FakeWhoisService(Map.of(
+                "a.com", Availability.TAKEN,
+                "b.com", Availability.AVAILABLE,
+                "c.com", Availability.AVAILABLE,
+                "d.com", Availability.AVAILABLE,
+                "e.com", Availability.AVAILABLE));
+        var checker = new AvailabilityChecker(service, new AdmissionController(), domain -> false, 1);
+
+        var result = checker.checkAll(List.of("a.com", "b.com", "c.com", "d.com", "e.com"), 2,
+                (domain, verdict) -> { }, () -> false);
+
+        assertEquals(List.of("b.com", "c.com"), result.domains(Availability.AVAILABLE));
+        assertEquals(List.of("d.com", "e.com"), result.unchecked());
+        assertEquals(List.of("a.com", "b.com", "c.com"), service.checked);
+    }
+
+    @Test
+    void testStopSkipsRemainingCandidates() {
+        logger.atTrace().log("Testing that a caller that lost interest stops the check");
+        var service = new FakeWhoisService(Map.of());
+        var checker = new AvailabilityChecker(service, new AdmissionController(), domain -> false, 1);
+
+        var result = checker.checkAll(List.of("a.com", "b.com", "c.com"), 0, (domain, verdict) -> { }, () -> true);
+
+        assertEquals(1, result.availability().size());
+        assertEquals(List.of("b.com", "c.com"), result.unchecked());
+    }
+
+    // WhoisService that answers availability checks from a table and throttles unknown names
+    private static class FakeWhoisService extends WhoisServiceFixture {
+        private final Map<String, Availability> verdicts;
+        private final List<String> checked = new ArrayList<>();
+
+        FakeWhoisService(Map<String, Availability> verdicts) {
+            this.verdicts = verdicts;
+        }
+
+        @Override
+        public synchronized Availability queryAvailability(String domain, QueryScheduler.Priority priority) {
+            checked.add(domain);
+            Availability verdict = verdicts.get(domain);
+            if (verdict == null) throw new ThrottledException("whois.example", Duration.ofSeconds(1).toMillis());
+            return verdict;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package dev.asjordi;
+
+import dev.asjordi.AvailabilityDetector.Availability;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvailabilityDetectorTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityDetectorTest.class);
+
+    private final AvailabilityDetector detector = new AvailabilityDetector();
+
+    @Test
+    void testDefaultSignatures() {
+        logger.atTrace().log("Testing the signatures shared by all registries");
+        assertEquals(Availability.AVAILABLE, detector.classify("whois.example", "NOT FOUND\n>>> Last update <<<"));
+        assertEquals(Availability.AVAILABLE, detector.classify(null, "%% No entries found in the database"));
+        assertEquals(Availability.TAKEN, detector.classify("whois.example",
+                "Domain Name: EXAMPLE.NET\nRegistrar: Example Registrar, Inc.\n"));
+        assertEquals(Availability.UNKNOWN, detector.classify("whois.example", "Welcome to the registry\n"));
+        assertEquals(Availability.UNKNOWN, detector.classify("whois.example", ""));
+    }
+
+    @Test
+    void testServerSpecificSignatures() {
+        logger.atTrace().log("Testing registry-specific signatures");
+        assertEquals(Availability.AVAILABLE, detector.classifyLine("whois.denic.de", "Status: free"));
+        assertEquals(Availability.TAKEN, detector.classifyLine("whois.denic.de", "Status: connect"));
+        assertEquals(Availability.UNKNOWN, detector.classifyLine("whois.example", "Status: connect"));
+        assertEquals(Availability.TAKEN, detector.classifyLine("whois.verisign-grs.com", "   Domain Name: EXAMPLE.COM"));
+        assertEquals(Availability.AVAILABLE, detector.classifyLine("WHOIS.NIC.UK",
+                "    This domain name has not been registered."));
+    }
+
+    @Test
+    void testFirstDecisiveLineWins() {
+        logger.atTrace().log("Testing that the first matching line decides");
+        String response = "Domain: example.de\nNserver: ns1.example.net\n\n% The object was not found in the archive\n";
+        assertEquals(Availability.TAKEN, detector.classify("whois.denic.de", response));
+    }
+
+    @Test
+    void testRdapAnswers() {
+        logger.atTrace().log("Testing classification of RDAP answers");
+        assertEquals(Availability.AVAILABLE, detector.classify(null, "{\"errorCode\":404,\"title\":\"Not Found\"}"));
+        assertEquals(Availability.TAKEN, detector.classify(null, RdapClientTest.EXAMPLE_RDAP));
+    }
+
+    @Test
+    void testInvalidPatternsAreIgnored() {
+        logger.atTrace().log("Testing that invalid or unknown pattern entries are skipped");
+        Properties patterns = new Properties();
+        patterns.setProperty("default.available", "(unclosed");
+        patterns.setProperty("default.registered", "^registrar:");
+        patterns.setProperty("whois.example", "free");
+
+        var custom = new AvailabilityDetector(patterns);
+        assertEquals(Availability.UNKNOWN, custom.classify("whois.example", "(unclosed\nfree"));
+        assertEquals(Availability.TAKEN, custom.classify("whois.example", "Registrar: Example"));
+    }
+}
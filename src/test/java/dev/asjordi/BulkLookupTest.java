@@ -0,0 +1,252 @@
+package dev.asjordi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.asjordi.exceptions.ThrottledException;
+import dev.asjordi.exceptions.WhoisQueryException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkLookupTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkLookupTest.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Duration RETRY_DELAY = Duration.ofMillis(1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWritesOneRecordPerDomain() throws IOException {
+        logger.atTrace().log("Testing that every domain of the input gets an NDJSON record");
+        Path input = writeInput("# portfolio", "example.com", "", "available.com", "failing.com", "not a domain");
+        Path output = directory.resolve("results.ndjson");
+        var service = new FakeWhoisService();
+
+        var summary = new BulkLookup(service, new BulkLookup.Options(input, output, 2, 2, false, false), RETRY_DELAY).run();
+
+        assertEquals(4, summary.lookedUp());
+        assertEquals(1, summary.failed());
+        assertEquals(0, summary.resumed());
+        assertEquals(Set.of(QueryScheduler.Priority.BACKGROUND), service.priorities);
+
+        Map<String, JsonNode> records = readRecords(output);
+        assertEquals(4, records.size());
+        assertEquals("registered", records.get("example.com").get("status").asText());
+        assertEquals("Example Registrar, Inc.", records.get("example.com").get("registrar").asText());
+        assertEquals("2030-08-13T04:00:00Z", records.get("example.com").get("expiry").asText());
+        assertEquals(2, records.get("example.com").get("line").asInt());
+        assertFalse(records.get("example.com").has("response"));
+        assertEquals("not_found", records.get("available.com").get("status").asText());
+        assertEquals("error", records.get("failing.com").get("status").asText());
+        assertEquals(4, service.attempts("failing.com"));
+        assertEquals("invalid", records.get("not a domain").get("status").asText());
+
+        JsonNode checkpoint = MAPPER.readTree(output.resolveSibling("results.ndjson.checkpoint").toFile());
+        assertEquals(7, checkpoint.get("watermark").asLong());
+        assertEquals(Files.size(output), checkpoint.get("outputBytes").asLong());
+    }
+
+    @Test
+    void testResumesFromCheckpoint() throws IOException {
+        logger.atTrace().log("Testing that an interrupted run resumes without repeating lookups");
+        Path input = writeInput("a.com", "b.com", "c.com", "d.com", "e.com");
+        Path output = directory.resolve("results.ndjson");
+        new BulkLookup(new FakeWhoisService(), new BulkLookup.Options(input, output, 1, 100, true, false)).run();
+
+        // Simulate a crash: the checkpoint covers a.com only, b.com was written after it, c.com was cut off
+        List<String> lines = Files.readAllLines(output);
+        String checkpointed = lines.get(0) + "\n";
+        Files.writeString(output, checkpointed + lines.get(1) + "\n" + lines.get(2).substring(0, 10));
+        Files.writeString(output.resolveSibling("results.ndjson.checkpoint"),
+                "{\"watermark\":2,\"completed\":[],\"outputBytes\":" + checkpointed.getBytes(StandardCharsets.UTF_8).length + "}");
+
+        var service = new FakeWhoisService();
+        var summary = new BulkLookup(service, new BulkLookup.Options(input, output, 2, 100, true, false)).run();
+
+        assertEquals(2, summary.resumed());
+        assertEquals(3, summary.lookedUp());
+        assertEquals(Set.of("c.com", "d.com", "e.com"), service.queried.keySet());
+
+        Map<String, JsonNode> records = readRecords(output);
+        assertEquals(Set.of("a.com", "b.com", "c.com", "d.com", "e.com"), records.keySet());
+        assertTrue(records.get("c.com").has("response"));
+    }
+
+    @Test
+    void testConcurrencyIsBounded() throws IOException {
+        logger.atTrace().log("Testing that no more lookups run at once than configured");
+        List<String> domains = new ArrayList<>();
+        for (int i = 0; i < 40; i++) domains.add("domain" + i + ".com");
+        Path input = writeInput(domains.toArray(String[]::new));
+        Path output = directory.resolve("results.ndjson");
+        var service = new FakeWhoisService();
+        service.delayMillis = 5;
+
+        new BulkLookup(service, new BulkLookup.Options(input, output, 3, 10, false, false)).run();
+
+        assertEquals(40, readRecords(output).size());
+        assertTrue(service.maxConcurrent.get() <= 3, "max concurrent lookups: " + service.maxConcurrent.get());
+        assertEquals(40, service.queried.size());
+    }
+
+    @Test
+    void testTransientFailuresAreRetried() throws IOException {
+        logger.atTrace().log("Testing that throttling, an exhausted budget and dropped connections are retried");
+        Path input = writeInput("throttled.com", "budget.com", "flaky.com");
+        Path output = directory.resolve("results.ndjson");
+        var service = new FakeWhoisService();
+
+        var summary = new BulkLookup(service, new BulkLookup.Options(input, output, 3, 100, false, false), RETRY_DELAY).run();
+
+        assertEquals(0, summary.failed());
+        Map<String, JsonNode> records = readRecords(output);
+        for (String domain : List.of("throttled.com", "budget.com", "flaky.com")) {
+            assertEquals("registered", records.get(domain).get("status").asText(), domain);
+            assertEquals(2, service.attempts(domain), domain);
+        }
+    }
+
+    @Test
+    void testUnexpectedExceptionStillWritesRecord() throws IOException {
+        logger.atTrace().log("Testing that a lookup failing with an unexpected exception still completes its line");
+        Path input = writeInput("a.com", "broken.com", "c.com");
+        Path output = directory.resolve("results.ndjson");
+
+        var summary = new BulkLookup(new FakeWhoisService(), new BulkLookup.Options(input, output, 2, 100, false, false)).run();
+
+        assertEquals(3, summary.lookedUp());
+        assertEquals(1, summary.failed());
+        assertEquals("error", readRecords(output).get("broken.com").get("status").asText());
+        JsonNode checkpoint = MAPPER.readTree(output.resolveSibling("results.ndjson.checkpoint").toFile());
+        assertEquals(4, checkpoint.get("watermark").asLong());
+        assertTrue(checkpoint.get("completed").isEmpty());
+    }
+
+    @Test
+    void testRetryErrorsLooksUpFailedDomainsAgain() throws IOException {
+        logger.atTrace().log("Testing that --retry-errors only repeats the lookups that ended in an error");
+        Path input = writeInput("a.com", "failing.com", "c.com");
+        Path output = directory.resolve("results.ndjson");
+        new BulkLookup(new FakeWhoisService(), new BulkLookup.Options(input, output, 1, 1, false, false), RETRY_DELAY).run();
+
+        // Without the flag the error record counts as done
+        var unchanged = new FakeWhoisService();
+        assertEquals(3, new BulkLookup(unchanged, new BulkLookup.Options(input, output, 1, 1, false, false)).run().resumed());
+        assertTrue(unchanged.queried.isEmpty());
+
+        var recovered = new FakeWhoisService();
+        recovered.healthy = true;
+        var summary = new BulkLookup(recovered, new BulkLookup.Options(input, output, 1, 1, false, true)).run();
+
+        assertEquals(2, summary.resumed());
+        assertEquals(1, summary.lookedUp());
+        assertEquals(Set.of("failing.com"), recovered.queried.keySet());
+
+        List<String> lines = Files.readAllLines(output);
+        assertEquals(4, lines.size());
+        JsonNode last = MAPPER.readTree(lines.get(3));
+        assertEquals("failing.com", last.get("domain").asText());
+        assertEquals("registered", last.get("status").asText());
+
+        // Once the retry succeeded there is nothing left to retry
+        var finished = new FakeWhoisService();
+        assertEquals(3, new BulkLookup(finished, new BulkLookup.Options(input, output, 1, 1, false, true)).run().resumed());
+        assertTrue(finished.queried.isEmpty());
+    }
+
+    @Test
+    void testParseArguments() {
+        logger.atTrace().log("Testing command-line parsing");
+        var options = BulkLookup.parseArguments(new String[]{"in.txt", "out.ndjson", "--concurrency", "4", "--raw"});
+        assertEquals(Path.of("in.txt"), options.input());
+        assertEquals(Path.of("out.ndjson"), options.output());
+        assertEquals(4, options.concurrency());
+        assertEquals(500, options.checkpointEvery());
+        assertTrue(options.includeRaw());
+        assertFalse(options.retryErrors());
+        assertTrue(BulkLookup.parseArguments(new String[]{"in.txt", "out.ndjson", "--retry-errors"}).retryErrors());
+        assertEquals(Path.of("out.ndjson.checkpoint"), options.checkpointFile());
+
+        assertThrows(IllegalArgumentException.class, () -> BulkLookup.parseArguments(new String[]{"in.txt"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> BulkLookup.parseArguments(new String[]{"in.txt", "out.ndjson", "--concurrency", "0"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> BulkLookup.parseArguments(new String[]{"in.txt", "out.ndjson", "--fast"}));
+    }
+
+    private Path writeInput(String... lines) throws IOException {
+        return Files.write(directory.resolve("domains.txt"), List.of(lines), StandardOpenOption.CREATE_NEW);
+    }
+
+    private static Map<String, JsonNode> readRecords(Path output) throws IOException {
+        Map<String, JsonNode> records = new HashMap<>();
+        for (String line : Files.readAllLines(output)) {
+            JsonNode record = MAPPER.readTree(line);
+            assertNull(records.put(record.get("domain").asText(), record), "duplicate record: " + line);
+        }
+        return records;
+    }
+
+    private static class FakeWhoisService extends WhoisServiceFixture {
+        private final Map<String, AtomicInteger> queried = new ConcurrentHashMap<>();
+        private final Set<QueryScheduler.Priority> priorities = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+        private volatile long delayMillis;
+        private volatile boolean healthy;
+
+        @Override
+        public Optional<String> performWhoisQuery(String domain, QueryScheduler.Priority priority) throws WhoisQueryException {
+            int attempt = queried.computeIfAbsent(domain, key -> new AtomicInteger()).incrementAndGet();
+            priorities.add(priority);
+            maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                if (delayMillis > 0) Thread.sleep(delayMillis);
+                if (domain.equals("failing.com") && !healthy) throw new WhoisQueryException("Connection refused");
+                if (domain.equals("broken.com")) throw new IllegalStateException("Unexpected registry answer");
+                if (attempt == 1) {
+                    switch (domain) {
+                        case "throttled.com" -> throw new ThrottledException("whois.example", 1);
+                        case "budget.com" -> throw new WhoisQueryException("No rate budget left for WHOIS server whois.example");
+                        case "flaky.com" -> throw new WhoisQueryException("Connection reset");
+                        default -> { }
+                    }
+                }
+                if (domain.equals("available.com")) return Optional.of("No match for \"AVAILABLE.COM\".");
+                return Optional.of("Domain Name: " + domain.toUpperCase() + "\n"
+                        + "Registrar: Example Registrar, Inc.\n"
+                        + "Registry Expiry Date: 2030-08-13T04:00:00Z\n"
+                        + "Name Server: NS1.EXAMPLE.COM\n");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+
+        private int attempts(String domain) {
+            return queried.get(domain).get();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package dev.asjordi;
+
+import dev.asjordi.exceptions.CacheSnapshotException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSnapshotTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshotTest.class);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTripRestoresEntriesAndMappings() {
+        logger.atTrace().log("Testing snapshot save and load round trip");
+        var source = newService();
+        source.getResponseCache().put("example.com", WhoisRecordTest.VERISIGN_RESPONSE);
+        source.getResponseCache().put("ejemplo.mx", "Domain Name: ejemplo.mx\nÁrea: México");
+        source.getWhoisCache().learnWhoisServer(".zz", "whois.nic.zz");
+
+        Path file = tempDir.resolve("cache.snapshot");
+        var saved = CacheSnapshot.save(file, source);
+        assertEquals(2, saved.entries());
+        assertEquals(1, saved.mappings());
+
+        var target = newService();
+        var loaded = CacheSnapshot.load(file, target);
+        assertEquals(2, loaded.entries());
+        assertEquals(0, loaded.skipped());
+        assertEquals(WhoisRecordTest.VERISIGN_RESPONSE, target.getResponseCache().get("example.com").orElseThrow());
+        assertEquals("Domain Name: ejemplo.mx\nÁrea: México", target.getResponseCache().get("ejemplo.mx").orElseThrow());
+        assertEquals("whois.nic.zz", target.getWhoisCache().getWhoisServer(".zz").orElseThrow());
+        assertEquals("2025-08-13T04:00:00Z", target.getExpiryIndex().expiry("example.com").orElseThrow().toString());
+        assertEquals(1, target.getExpiryIndex().size());
+    }
+
+    @Test
+    void testExpiredEntriesAreSkipped() throws InterruptedException {
+        logger.atTrace().log("Testing that expired snapshot entries are not restored");
+        var cache = new WhoisResponseCache(100,
+                record -> record.notFound() ? Duration.ofMillis(50) : Duration.ofHours(1),
+                true, Clock.systemUTC());
+        var source = new WhoisServiceFixture(WhoisServiceFixture.collaborators().responseCache(cache));
+        cache.put("short.com", "No match for \"SHORT.COM\".");
+        cache.put("long.com", "Domain Name: LONG.COM");
+
+        Path file = tempDir.resolve("cache.snapshot");
+        CacheSnapshot.save(file, source);
+        Thread.sleep(100);
+
+        var target = newService();
+        var loaded = CacheSnapshot.load(file, target);
+        assertEquals(1, loaded.entries());
+        assertEquals(1, loaded.skipped());
+        assertTrue(target.getResponseCache().get("short.com").isEmpty());
+        assertTrue(target.getResponseCache().get("long.com").isPresent());
+    }
+
+    @Test
+    void testInvalidFileIsRejected() throws IOException {
+        logger.atTrace().log("Testing that a non-snapshot file is rejected");
+        Path file = tempDir.resolve("garbage.snapshot");
+        Files.writeString(file, "this is not a snapshot");
+
+        assertThrows(CacheSnapshotException.class, () -> CacheSnapshot.load(file, newService()));
+        assertThrows(CacheSnapshotException.class, () -> CacheSnapshot.load(tempDir.resolve("missing"), newService()));
+    }
+
+    @Test
+    void testCorruptEntryLengthIsRejected() throws IOException {
+        logger.atTrace().log("Testing that an entry with an impossible length is rejected");
+        var source = newService();
+        source.getResponseCache().put("example.com", "Domain Name: EXAMPLE.COM");
+        Path file = tempDir.resolve("cache.snapshot");
+        CacheSnapshot.save(file, source);
+
+        // The length field follows the domain and the expiry of the only entry
+        byte[] bytes = Files.readAllBytes(file);
+        int lengthOffset = bytes.length - "Domain Name: EXAMPLE.COM".length() - Integer.BYTES;
+        for (int value : new int[]{-1, Integer.MAX_VALUE}) {
+            ByteBuffer.wrap(bytes).putInt(lengthOffset, value);
+            Files.write(file, bytes);
+            assertThrows(CacheSnapshotException.class, () -> CacheSnapshot.load(file, newService()));
+        }
+    }
+
+    private static WhoisService newService() {
+        return new WhoisServiceFixture(WhoisServiceFixture.collaborators()
+                .responseCache(new WhoisResponseCache(100, Duration.ofHours(1), true, Clock.systemUTC())));
+    }
+}
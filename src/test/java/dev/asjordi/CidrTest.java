@@ -0,0 +1,59 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CidrTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CidrTest.class);
+
+    @Test
+    void testParse() {
+        logger.atTrace().log("Testing parsing of CIDR blocks");
+        assertEquals("192.0.2.0/24", Cidr.parse("192.0.2.0/24").toString());
+        assertEquals(Cidr.parse("192.0.2.0/24"), Cidr.parse("192.0.2.77/24"));
+        assertEquals("200.160.0.0/20", Cidr.parse("200.160/20").toString());
+        assertEquals(Cidr.parse("2001:db8::/32"), Cidr.parse("2001:0db8:ffff::/32"));
+        assertEquals(32, Cidr.parse("2001:db8::/96").hostBits());
+
+        assertThrows(IllegalArgumentException.class, () -> Cidr.parse("192.0.2.0"));
+        assertThrows(IllegalArgumentException.class, () -> Cidr.parse("192.0.2.0/33"));
+        assertThrows(IllegalArgumentException.class, () -> Cidr.parse("example.com/24"));
+    }
+
+    @Test
+    void testContains() {
+        logger.atTrace().log("Testing address containment");
+        Cidr block = Cidr.parse("10.8.0.0/13");
+        assertTrue(block.contains(Cidr.parseAddress("10.15.255.255")));
+        assertFalse(block.contains(Cidr.parseAddress("10.16.0.0")));
+        assertFalse(block.contains(Cidr.parseAddress("::a08:1")));
+        assertTrue(Cidr.parse("0.0.0.0/0").contains(Cidr.parseAddress("203.0.113.9")));
+    }
+
+    @Test
+    void testFromRange() {
+        logger.atTrace().log("Testing conversion of address ranges to CIDR blocks");
+        assertEquals(List.of(Cidr.parse("193.0.0.0/21")),
+                Cidr.fromRange(Cidr.parseAddress("193.0.0.0"), Cidr.parseAddress("193.0.7.255")));
+        assertEquals(List.of(Cidr.parse("192.0.2.1/32"), Cidr.parse("192.0.2.2/31"), Cidr.parse("192.0.2.4/30")),
+                Cidr.fromRange(Cidr.parseAddress("192.0.2.1"), Cidr.parseAddress("192.0.2.7")));
+        assertEquals(List.of(Cidr.parse("0.0.0.0/0")),
+                Cidr.fromRange(Cidr.parseAddress("0.0.0.0"), Cidr.parseAddress("255.255.255.255")));
+        assertEquals(List.of(Cidr.parse("2001:db8::/48")),
+                Cidr.fromRange(Cidr.parseAddress("2001:db8::"), Cidr.parseAddress("2001:db8:0:ffff:ffff:ffff:ffff:ffff")));
+    }
+
+    @Test
+    void testParseAddressNeverResolvesNames() {
+        logger.atTrace().log("Testing that only address literals are accepted");
+        assertEquals("8.8.8.8", Cidr.parseAddress(" 8.8.8.8 ").getHostAddress());
+        assertThrows(IllegalArgumentException.class, () -> Cidr.parseAddress("localhost"));
+        assertThrows(IllegalArgumentException.class, () -> Cidr.parseAddress("256.1.1.1"));
+    }
+}
@@ -0,0 +1,104 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CidrTrieTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CidrTrieTest.class);
+
+    @Test
+    void testLongestMatch() {
+        logger.atTrace().log("Testing that the most specific block wins");
+        var trie = new CidrTrie<String>();
+        trie.put(Cidr.parse("8.0.0.0/8"), "arin");
+        trie.put(Cidr.parse("8.8.8.0/24"), "google");
+        trie.put(Cidr.parse("8.8.0.0/16"), "level3");
+        trie.put(Cidr.parse("2001:4860::/32"), "google6");
+
+        assertEquals("google", match(trie, "8.8.8.8").orElseThrow());
+        assertEquals("level3", match(trie, "8.8.9.1").orElseThrow());
+        assertEquals("arin", match(trie, "8.200.1.1").orElseThrow());
+        assertEquals("google6", match(trie, "2001:4860:4860::8888").orElseThrow());
+        assertTrue(match(trie, "9.0.0.1").isEmpty());
+        assertTrue(match(trie, "::808:808").isEmpty());
+        assertEquals(Cidr.parse("8.8.8.0/24"), trie.longestMatch(Cidr.parseAddress("8.8.8.8")).orElseThrow().getKey());
+        assertEquals(4, trie.size());
+
+        trie.put(Cidr.parse("8.8.8.0/24"), "dns");
+        assertEquals("dns", match(trie, "8.8.8.8").orElseThrow());
+        assertEquals(4, trie.size());
+    }
+
+    @Test
+    void testRemove() {
+        logger.atTrace().log("Testing removal of blocks");
+        var trie = new CidrTrie<String>();
+        trie.put(Cidr.parse("10.0.0.0/8"), "a");
+        trie.put(Cidr.parse("10.1.0.0/16"), "b");
+        trie.put(Cidr.parse("10.2.0.0/16"), "c");
+
+        assertEquals(Optional.of("b"), trie.remove(Cidr.parse("10.1.0.0/16")));
+        assertEquals(Optional.empty(), trie.remove(Cidr.parse("10.1.0.0/16")));
+        assertEquals(Optional.empty(), trie.remove(Cidr.parse("10.3.0.0/16")));
+        assertEquals("a", match(trie, "10.1.0.1").orElseThrow());
+        assertEquals("c", match(trie, "10.2.0.1").orElseThrow());
+
+        assertEquals(Optional.of("a"), trie.remove(Cidr.parse("10.0.0.0/8")));
+        assertTrue(match(trie, "10.1.0.1").isEmpty());
+        assertEquals("c", match(trie, "10.2.0.1").orElseThrow());
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    void testMatchesLinearScan() throws UnknownHostException {
+        logger.atTrace().log("Testing the trie against a linear scan over random blocks");
+        var random = new Random(42);
+        var trie = new CidrTrie<Integer>();
+        Map<Cidr, Integer> blocks = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            Cidr block = new Cidr(randomAddress(random), 4 + random.nextInt(29));
+            blocks.put(block, i);
+            trie.put(block, i);
+        }
+        List<Cidr> removed = new ArrayList<>(blocks.keySet()).subList(0, 500);
+        for (Cidr block : List.copyOf(removed)) {
+            trie.remove(block);
+            blocks.remove(block);
+        }
+        assertEquals(blocks.size(), trie.size());
+
+        for (int i = 0; i < 5000; i++) {
+            InetAddress address = randomAddress(random);
+            Optional<Integer> expected = blocks.entrySet().stream()
+                    .filter(entry -> entry.getKey().contains(address))
+                    .max(Map.Entry.comparingByKey((a, b) -> Integer.compare(a.prefixLength(), b.prefixLength())))
+                    .map(Map.Entry::getValue);
+            assertEquals(expected, trie.longestMatch(address).map(Map.Entry::getValue), address.getHostAddress());
+        }
+    }
+
+    private static Optional<String> match(CidrTrie<String> trie, String address) {
+        return trie.longestMatch(Cidr.parseAddress(address)).map(Map.Entry::getValue);
+    }
+
+    // Addresses concentrated in a few /8s so blocks overlap often
+    private static InetAddress randomAddress(Random random) throws UnknownHostException {
+        byte[] bytes = new byte[4];
+        random.nextBytes(bytes);
+        bytes[0] = (byte) (10 + random.nextInt(4));
+        return InetAddress.getByAddress(bytes);
+    }
+}
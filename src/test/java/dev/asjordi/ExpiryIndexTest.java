@@ -0,0 +1,71 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiryIndexTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiryIndexTest.class);
+
+    private final TestClock clock = new TestClock();
+
+    @Test
+    void testExpiringWithinReturnsSoonestFirst() {
+        logger.atTrace().log("Testing range queries over the expiry index");
+        var index = new ExpiryIndex(100, clock);
+        index.update("later.com", Optional.of(clock.instant().plus(Duration.ofDays(60))));
+        index.update("soon.com", Optional.of(clock.instant().plus(Duration.ofDays(10))));
+        index.update("expired.com", Optional.of(clock.instant().minus(Duration.ofDays(3))));
+        index.update("sooner.com", Optional.of(clock.instant().plus(Duration.ofDays(5))));
+
+        assertEquals(List.of("expired.com", "sooner.com", "soon.com"), domains(index.expiringWithin(Duration.ofDays(30))));
+        assertEquals(List.of("expired.com"), domains(index.expiringWithin(Duration.ZERO)));
+
+        clock.advance(Duration.ofDays(40));
+        assertEquals(4, index.expiringWithin(Duration.ofDays(30)).size());
+    }
+
+    @Test
+    void testUpdatesReplaceAndRemoveDomains() {
+        logger.atTrace().log("Testing that newer records move or remove a domain");
+        var index = new ExpiryIndex(100, clock);
+        index.update("example.com", Optional.of(clock.instant().plus(Duration.ofDays(5))));
+        index.update("example.com", Optional.of(clock.instant().plus(Duration.ofDays(370))));
+
+        assertEquals(1, index.size());
+        assertTrue(index.expiringWithin(Duration.ofDays(30)).isEmpty());
+        assertEquals(clock.instant().plus(Duration.ofDays(370)), index.expiry("example.com").orElseThrow());
+
+        index.update("example.com", WhoisRecordTest.VERISIGN_RESPONSE);
+        assertEquals(Instant.parse("2025-08-13T04:00:00Z"), index.expiry("example.com").orElseThrow());
+
+        index.update("example.com", "No match for \"EXAMPLE.COM\".");
+        assertEquals(0, index.size());
+        assertTrue(index.expiringBefore(Instant.MAX).isEmpty());
+    }
+
+    @Test
+    void testFullIndexDropsLatestExpiry() {
+        logger.atTrace().log("Testing that a full index drops the domain expiring last");
+        var index = new ExpiryIndex(2, clock);
+        index.update("a.com", Optional.of(clock.instant().plus(Duration.ofDays(1))));
+        index.update("c.com", Optional.of(clock.instant().plus(Duration.ofDays(3))));
+        index.update("b.com", Optional.of(clock.instant().plus(Duration.ofDays(2))));
+
+        assertEquals(2, index.size());
+        assertEquals(List.of("a.com", "b.com"), domains(index.expiringBefore(Instant.MAX)));
+        assertTrue(index.expiry("c.com").isEmpty());
+    }
+
+    private static List<String> domains(List<ExpiryIndex.Entry> entries) {
+        return entries.stream().map(ExpiryIndex.Entry::domain).toList();
+    }
+}
@@ -0,0 +1,140 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostResolverTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(HostResolverTest.class);
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(30);
+    private static final Duration STALE = Duration.ofHours(1);
+
+    @Test
+    void testPositiveEntriesAreCached() throws Exception {
+        logger.atTrace().log("Testing that resolved addresses are reused until they expire");
+        var dns = new FakeDns();
+        dns.answer("whois.example.test", "192.0.2.1");
+        var resolver = new HostResolver(dns, TTL, NEGATIVE_TTL, STALE, new TestClock());
+
+        assertEquals("192.0.2.1", resolver.resolve("whois.example.test").getHostAddress());
+        assertEquals("192.0.2.1", resolver.resolve("whois.example.test").getHostAddress());
+        assertEquals(1, dns.lookups("whois.example.test"));
+    }
+
+    @Test
+    void testNegativeEntriesAreCached() throws Exception {
+        logger.atTrace().log("Testing that failed lookups fail fast until the negative TTL ends");
+        var dns = new FakeDns();
+        var clock = new TestClock();
+        var resolver = new HostResolver(dns, TTL, NEGATIVE_TTL, STALE, clock);
+
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("whois.missing.test"));
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("whois.missing.test"));
+        assertEquals(1, dns.lookups("whois.missing.test"));
+
+        dns.answer("whois.missing.test", "192.0.2.9");
+        clock.advance(NEGATIVE_TTL.plusSeconds(1));
+        assertEquals("192.0.2.9", resolver.resolve("whois.missing.test").getHostAddress());
+        assertEquals(2, dns.lookups("whois.missing.test"));
+    }
+
+    @Test
+    void testStaleWhileRevalidate() throws Exception {
+        logger.atTrace().log("Testing that expired addresses are served while they are refreshed");
+        var dns = new FakeDns();
+        var clock = new TestClock();
+        dns.answer("whois.example.test", "192.0.2.1");
+        var resolver = new HostResolver(dns, TTL, NEGATIVE_TTL, STALE, clock);
+        resolver.resolve("whois.example.test");
+
+        dns.answer("whois.example.test", "192.0.2.2");
+        clock.advance(TTL.plusSeconds(1));
+        assertEquals("192.0.2.1", resolver.resolve("whois.example.test").getHostAddress());
+
+        assertTrue(awaitAddress(resolver, "whois.example.test", "192.0.2.2"));
+        assertEquals(2, dns.lookups("whois.example.test"));
+    }
+
+    @Test
+    void testStaleAddressSurvivesResolverFailure() throws Exception {
+        logger.atTrace().log("Testing that a failing refresh keeps the stale address");
+        var dns = new FakeDns();
+        var clock = new TestClock();
+        dns.answer("whois.example.test", "192.0.2.1");
+        var resolver = new HostResolver(dns, TTL, NEGATIVE_TTL, STALE, clock);
+        resolver.resolve("whois.example.test");
+
+        dns.remove("whois.example.test");
+        clock.advance(TTL.plusSeconds(1));
+        assertEquals("192.0.2.1", resolver.resolve("whois.example.test").getHostAddress());
+        Thread.sleep(200);
+        assertEquals("192.0.2.1", resolver.resolve("whois.example.test").getHostAddress());
+
+        clock.advance(STALE);
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("whois.example.test"));
+    }
+
+    @Test
+    void testPrefetch() throws Exception {
+        logger.atTrace().log("Testing background prefetch of hosts");
+        var dns = new FakeDns();
+        dns.answer("whois.one.test", "192.0.2.1");
+        dns.answer("whois.two.test", "192.0.2.2");
+        var resolver = new HostResolver(dns, TTL, NEGATIVE_TTL, STALE, new TestClock());
+
+        resolver.prefetch(List.of("whois.one.test", "whois.two.test"));
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (resolver.size() < 2 && System.nanoTime() < deadline) Thread.sleep(20);
+
+        assertEquals(2, resolver.size());
+        assertEquals("192.0.2.2", resolver.resolve("whois.two.test").getHostAddress());
+        assertEquals(1, dns.lookups("whois.two.test"));
+    }
+
+    private static boolean awaitAddress(HostResolver resolver, String host, String expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (resolver.resolve(host).getHostAddress().equals(expected)) return true;
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    // Resolver answering from a map and counting lookups per host
+    private static class FakeDns implements HostResolver.Lookup {
+        private final Map<String, InetAddress> records = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+        void answer(String host, String address) throws UnknownHostException {
+            records.put(host, InetAddress.getByName(address));
+        }
+
+        void remove(String host) {
+            records.remove(host);
+        }
+
+        int lookups(String host) {
+            return counts.getOrDefault(host, new AtomicInteger()).get();
+        }
+
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            counts.computeIfAbsent(host, key -> new AtomicInteger()).incrementAndGet();
+            InetAddress address = records.get(host);
+            if (address == null) throw new UnknownHostException(host);
+            return new InetAddress[]{address};
+        }
+    }
+}
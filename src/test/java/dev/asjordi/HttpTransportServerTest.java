@@ -0,0 +1,53 @@
+package dev.asjordi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTransportServerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpTransportServerTest.class);
+
+    @Test
+    void testSingleServerServesSeveralClients() {
+        logger.atTrace().log("Testing that several MCP clients share one HTTP/SSE server");
+        try (var httpServer = new HttpTransportServer(new ObjectMapper(), "127.0.0.1", 0, 16)) {
+            var mcpServer = Main.createServer(httpServer.getTransportProvider());
+            httpServer.start();
+            String baseUrl = "http://127.0.0.1:" + httpServer.getPort();
+            logger.atTrace().log("HTTP transport started at {}", baseUrl);
+
+            try (var first = newClient(baseUrl); var second = newClient(baseUrl)) {
+                first.initialize();
+                second.initialize();
+
+                List<String> firstTools = first.listTools().tools().stream().map(McpSchema.Tool::name).toList();
+                List<String> secondTools = second.listTools().tools().stream().map(McpSchema.Tool::name).toList();
+
+                assertTrue(firstTools.contains("get_whois"));
+                assertEquals(firstTools, secondTools);
+            } finally {
+                mcpServer.close();
+            }
+        }
+    }
+
+    private static McpSyncClient newClient(String baseUrl) {
+        var transport = HttpClientSseClientTransport.builder(baseUrl)
+                .sseEndpoint(HttpTransportServer.SSE_ENDPOINT)
+                .build();
+        return McpClient.sync(transport)
+                .requestTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+}
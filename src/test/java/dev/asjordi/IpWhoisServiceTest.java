@@ -0,0 +1,161 @@
+package dev.asjordi;
+
+import dev.asjordi.exceptions.InvalidQueryException;
+import dev.asjordi.exceptions.WhoisQueryException;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IpWhoisServiceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(IpWhoisServiceTest.class);
+
+    private static final String RIPE_ANSWER = """
+            inetnum:        193.0.0.0 - 193.0.7.255
+            netname:        RIPE-NCC
+            country:        NL
+            """;
+    private static final String ARIN_ANSWER = """
+            NetRange:       8.0.0.0 - 8.255.255.255
+            CIDR:           8.0.0.0/8
+            NetName:        LVLT-ORG-8-8
+
+            NetRange:       8.8.8.0 - 8.8.8.255
+            CIDR:           8.8.8.0/24
+            NetName:        GOGL
+            """;
+
+    @Test
+    void testRoutesToRegistryAndCachesPerNetblock() {
+        logger.atTrace().log("Testing RIR routing and caching of the returned network block");
+        var whois = new RegistryWhoisService(Map.of("whois.ripe.net", RIPE_ANSWER, "whois.arin.net", ARIN_ANSWER));
+        var service = new IpWhoisService(whois, IpWhoisService.loadRoutes(), Duration.ofHours(1), 100, new TestClock());
+
+        assertEquals(RIPE_ANSWER, service.performIpWhoisQuery("193.0.6.139", step -> { }).orElseThrow());
+        assertEquals(RIPE_ANSWER, service.performIpWhoisQuery("193.0.1.1", step -> { }).orElseThrow());
+        service.performIpWhoisQuery("8.8.8.8", step -> { });
+        service.performIpWhoisQuery("8.8.8.200", step -> { });
+        service.performIpWhoisQuery("8.8.9.1", step -> { });
+
+        assertEquals(List.of("whois.ripe.net 193.0.6.139", "whois.arin.net n + 8.8.8.8", "whois.arin.net n + 8.8.9.1"),
+                whois.queries);
+    }
+
+    @Test
+    void testCachedAnswersExpire() {
+        logger.atTrace().log("Testing that cached network blocks expire");
+        var whois = new RegistryWhoisService(Map.of("whois.ripe.net", RIPE_ANSWER));
+        var clock = new TestClock();
+        var service = new IpWhoisService(whois, IpWhoisService.loadRoutes(), Duration.ofHours(1), 100, clock);
+        List<String> steps = new ArrayList<>();
+
+        service.performIpWhoisQuery("193.0.6.139", steps::add);
+        service.performIpWhoisQuery("193.0.6.140", steps::add);
+        clock.advance(Duration.ofMinutes(61));
+        service.performIpWhoisQuery("193.0.6.141", steps::add);
+
+        assertEquals(List.of("querying whois.ripe.net", "served from cache of 193.0.0.0/21", "querying whois.ripe.net"),
+                steps);
+    }
+
+    @Test
+    void testUnroutedAddressFollowsIanaAndLearnsBlock() {
+        logger.atTrace().log("Testing that IANA referrals for IP addresses are followed and learned");
+        var whois = new RegistryWhoisService(Map.of(
+                "whois.iana.org", "refer:        whois.apnic.net\n\ninetnum:      203.0.0.0 - 203.255.255.255\norganisation: APNIC\n",
+                "whois.apnic.net", "inetnum:        203.0.113.0 - 203.0.113.255\nnetname:        TEST-NET-3\n"));
+        var service = new IpWhoisService(whois, new CidrTrie<>(), Duration.ofHours(1), 100, new TestClock());
+
+        service.performIpWhoisQuery("203.0.113.5", step -> { });
+        service.performIpWhoisQuery("203.5.5.5", step -> { });
+
+        assertEquals(List.of("whois.iana.org 203.0.113.5", "whois.apnic.net 203.0.113.5", "whois.apnic.net 203.5.5.5"),
+                whois.queries);
+    }
+
+    @Test
+    void testReferralServerIsFollowed() {
+        logger.atTrace().log("Testing that a registry's ReferralServer is followed");
+        var whois = new RegistryWhoisService(Map.of(
+                "whois.arin.net", "NetRange:       193.0.0.0 - 193.255.255.255\nReferralServer:  whois://whois.ripe.net\n",
+                "whois.ripe.net", RIPE_ANSWER));
+        var routes = new CidrTrie<String>();
+        routes.put(Cidr.parse("193.0.0.0/8"), "whois.arin.net");
+        var service = new IpWhoisService(whois, routes, Duration.ofHours(1), 100, new TestClock());
+
+        assertEquals(RIPE_ANSWER, service.performIpWhoisQuery("193.0.6.139", step -> { }).orElseThrow());
+        assertEquals(List.of("whois.arin.net n + 193.0.6.139", "whois.ripe.net 193.0.6.139"), whois.queries);
+    }
+
+    @Test
+    void testAsNumbersAreRoutedByLearnedBlocks() {
+        logger.atTrace().log("Testing AS number lookups through IANA AS block referrals");
+        var whois = new RegistryWhoisService(Map.of(
+                "whois.iana.org", "as-block:     14336-15359\norganisation: ARIN\nrefer:        whois.arin.net\n",
+                "whois.arin.net", "ASNumber:       15169\nASName:         GOOGLE\n"));
+        var service = new IpWhoisService(whois, new CidrTrie<>(), Duration.ofHours(1), 100, new TestClock());
+
+        service.performIpWhoisQuery("AS15169", step -> { });
+        service.performIpWhoisQuery("as15169", step -> { });
+        service.performIpWhoisQuery("15000", step -> { });
+
+        assertEquals(List.of("whois.iana.org AS15169", "whois.arin.net a 15169", "whois.arin.net a 15000"), whois.queries);
+    }
+
+    @Test
+    void testInvalidAndReservedQueries() {
+        logger.atTrace().log("Testing rejection of invalid queries and reserved addresses");
+        var whois = new RegistryWhoisService(Map.of());
+        var service = new IpWhoisService(whois, IpWhoisService.loadRoutes(), Duration.ofHours(1), 100, new TestClock());
+
+        assertThrows(InvalidQueryException.class, () -> service.performIpWhoisQuery("example.com", step -> { }));
+        assertThrows(InvalidQueryException.class, () -> service.performIpWhoisQuery("AS99999999999", step -> { }));
+        assertThrows(InvalidQueryException.class, () -> service.performIpWhoisQuery(" ", step -> { }));
+        assertThrows(WhoisQueryException.class, () -> service.performIpWhoisQuery("10.1.2.3", step -> { }));
+        assertThrows(WhoisQueryException.class, () -> service.performIpWhoisQuery("127.0.0.1", step -> { }));
+        assertThrows(WhoisQueryException.class, () -> service.performIpWhoisQuery("192.168.1.1", step -> { }));
+        assertThrows(WhoisQueryException.class, () -> service.performIpWhoisQuery("172.16.0.1", step -> { }));
+        assertThrows(WhoisQueryException.class, () -> service.performIpWhoisQuery("169.254.0.1", step -> { }));
+        assertThrows(WhoisQueryException.class, () -> service.performIpWhoisQuery("100.64.0.1", step -> { }));
+        assertThrows(WhoisQueryException.class, () -> service.performIpWhoisQuery("fd12:3456::1", step -> { }));
+        assertTrue(whois.queries.isEmpty());
+    }
+
+    @Test
+    void testMostSpecificBlock() {
+        logger.atTrace().log("Testing extraction of the most specific network block");
+        assertEquals(List.of(Cidr.parse("8.8.8.0/24")),
+                IpWhoisService.mostSpecificBlock(ARIN_ANSWER, Cidr.parseAddress("8.8.8.8")));
+        assertEquals(List.of(Cidr.parse("8.0.0.0/8")),
+                IpWhoisService.mostSpecificBlock(ARIN_ANSWER, Cidr.parseAddress("8.1.1.1")));
+        assertEquals(List.of(Cidr.parse("200.160.0.0/20")),
+                IpWhoisService.mostSpecificBlock("inetnum:     200.160/20\n", Cidr.parseAddress("200.160.2.1")));
+        assertEquals(List.of(Cidr.parse("2001:67c:2e8::/48")),
+                IpWhoisService.mostSpecificBlock("inet6num:       2001:67c:2e8::/48\n", Cidr.parseAddress("2001:67c:2e8::1")));
+        assertTrue(IpWhoisService.mostSpecificBlock(RIPE_ANSWER, Cidr.parseAddress("9.9.9.9")).isEmpty());
+    }
+
+    // WhoisService answering from canned registry responses and recording "server query"
+    private static class RegistryWhoisService extends WhoisServiceFixture {
+        private final Map<String, String> answers;
+        private final List<String> queries = new ArrayList<>();
+
+        RegistryWhoisService(Map<String, String> answers) {
+            this.answers = answers;
+        }
+
+        @Override
+        protected Optional<String> queryServer(String whoisServer, String query) {
+            queries.add(whoisServer + " " + query);
+            return Optional.ofNullable(answers.get(whoisServer));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package dev.asjordi;
+
+import dev.asjordi.QueryScheduler.Priority;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuerySchedulerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuerySchedulerTest.class);
+    private static final String SERVER = "whois.example.test";
+    private static final Duration WAIT = Duration.ofSeconds(10);
+
+    @Test
+    void testBackgroundKeepsInteractiveReserve() {
+        logger.atTrace().log("Testing that idle background work leaves the interactive reserve untouched");
+        var limiter = new ServerRateLimiter(4, new TestClock());
+        var scheduler = new QueryScheduler(limiter, 9, 1, 0.5, WAIT, WAIT);
+
+        assertTrue(scheduler.acquire(SERVER, Priority.BACKGROUND, Duration.ZERO));
+        assertTrue(scheduler.acquire(SERVER, Priority.BACKGROUND, Duration.ZERO));
+        assertFalse(scheduler.acquire(SERVER, Priority.BACKGROUND, Duration.ZERO));
+
+        assertTrue(scheduler.acquire(SERVER, Priority.INTERACTIVE, Duration.ZERO));
+        assertTrue(scheduler.acquire(SERVER, Priority.INTERACTIVE, Duration.ZERO));
+        assertFalse(scheduler.acquire(SERVER, Priority.INTERACTIVE, Duration.ZERO));
+        assertEquals(0, scheduler.waiting(SERVER, Priority.INTERACTIVE));
+    }
+
+    @Test
+    void testWaitingQueryGivesUpAtDeadline() {
+        logger.atTrace().log("Testing that a query without budget returns at its deadline");
+        var limiter = new ServerRateLimiter(1, new TestClock());
+        var scheduler = new QueryScheduler(limiter, 9, 1, 0, WAIT, WAIT);
+        assertTrue(scheduler.acquire(SERVER, Priority.INTERACTIVE, Duration.ZERO));
+
+        long start = System.nanoTime();
+        assertFalse(scheduler.acquire(SERVER, Priority.BACKGROUND, Duration.ofMillis(50)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(0, scheduler.waiting(SERVER, Priority.BACKGROUND));
+    }
+
+    @Test
+    void testInteractiveQueriesPreemptQueuedBackgroundWork() throws Exception {
+        logger.atTrace().log("Testing that interactive queries overtake queued background queries");
+        // 1200 queries per minute: one token every 50 ms once the burst is spent
+        var limiter = new ServerRateLimiter(1200, Clock.systemUTC());
+        var scheduler = new QueryScheduler(limiter, 9, 1, 0, WAIT, WAIT);
+        while (limiter.tryAcquire(SERVER)) {
+            // drain the initial burst
+        }
+
+        List<Priority> grants = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            for (int i = 0; i < 5; i++) {
+                executor.submit(() -> {
+                    if (scheduler.acquire(SERVER, Priority.BACKGROUND)) grants.add(Priority.BACKGROUND);
+                });
+            }
+            awaitWaiting(scheduler, Priority.BACKGROUND, 4);
+
+            for (int i = 0; i < 5; i++) {
+                executor.submit(() -> {
+                    if (scheduler.acquire(SERVER, Priority.INTERACTIVE)) grants.add(Priority.INTERACTIVE);
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(10, grants.size());
+        // At most one background query can slip in before the interactive ones are queued
+        int firstInteractive = grants.indexOf(Priority.INTERACTIVE);
+        assertTrue(firstInteractive <= 1, "grants: " + grants);
+        assertEquals(List.of(Priority.INTERACTIVE, Priority.INTERACTIVE, Priority.INTERACTIVE,
+                        Priority.INTERACTIVE, Priority.INTERACTIVE),
+                grants.subList(firstInteractive, firstInteractive + 5), "grants: " + grants);
+    }
+
+    @Test
+    void testBackgroundProgressesUnderInteractiveLoad() throws Exception {
+        logger.atTrace().log("Testing the weighted share of the background lane under contention");
+        var limiter = new ServerRateLimiter(1200, Clock.systemUTC());
+        var scheduler = new QueryScheduler(limiter, 2, 1, 0, WAIT, WAIT);
+        while (limiter.tryAcquire(SERVER)) {
+            // drain the initial burst
+        }
+
+        List<Priority> grants = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(12);
+        try {
+            for (int i = 0; i < 6; i++) {
+                executor.submit(() -> {
+                    if (scheduler.acquire(SERVER, Priority.INTERACTIVE)) grants.add(Priority.INTERACTIVE);
+                });
+                executor.submit(() -> {
+                    if (scheduler.acquire(SERVER, Priority.BACKGROUND)) grants.add(Priority.BACKGROUND);
+                });
+            }
+            awaitWaiting(scheduler, Priority.BACKGROUND, 4);
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(12, grants.size());
+        // With weights 2:1 the background lane gets a grant within the first few tokens
+        assertTrue(grants.subList(0, 4).contains(Priority.BACKGROUND), "grants: " + grants);
+    }
+
+    private static void awaitWaiting(QueryScheduler scheduler, Priority priority, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + WAIT.toNanos();
+        while (scheduler.waiting(SERVER, priority) < expected && System.nanoTime() < deadline) Thread.sleep(5);
+    }
+}
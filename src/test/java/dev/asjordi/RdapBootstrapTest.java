@@ -0,0 +1,46 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RdapBootstrapTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RdapBootstrapTest.class);
+
+    @Test
+    void testBundledBootstrap() {
+        logger.atTrace().log("Testing the bundled RDAP bootstrap file");
+        var bootstrap = new RdapBootstrap();
+
+        assertEquals(URI.create("https://rdap.verisign.com/com/v1/"), bootstrap.baseUrl(".com").orElseThrow());
+        assertEquals(URI.create("https://pubapi.registry.google/rdap/"), bootstrap.baseUrl("DEV").orElseThrow());
+        assertTrue(bootstrap.baseUrl(".invalid").isEmpty());
+        assertTrue(bootstrap.size() > 10);
+    }
+
+    @Test
+    void testParsePrefersHttpsAndNormalizesUrls() throws IOException {
+        logger.atTrace().log("Testing parsing of an IANA-format bootstrap document");
+        String json = """
+                {"services": [
+                  [["example", "test"], ["http://rdap.example/v1", "https://rdap.example/v1"]],
+                  [["Sample"], ["https://rdap.sample.net/"]],
+                  [["empty"], []]
+                ]}
+                """;
+        var urls = RdapBootstrap.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(URI.create("https://rdap.example/v1/"), urls.get("example"));
+        assertEquals(URI.create("https://rdap.example/v1/"), urls.get("test"));
+        assertEquals(URI.create("https://rdap.sample.net/"), urls.get("sample"));
+        assertFalse(urls.containsKey("empty"));
+    }
+}
@@ -0,0 +1,171 @@
+package dev.asjordi;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.asjordi.exceptions.ThrottledException;
+import dev.asjordi.exceptions.WhoisQueryException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RdapClientTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RdapClientTest.class);
+
+    static final String EXAMPLE_RDAP = """
+            {
+              "objectClassName": "domain",
+              "ldhName": "EXAMPLE.COM",
+              "status": ["client delete prohibited", "client transfer prohibited", "client update prohibited"],
+              "events": [
+                {"eventAction": "registration", "eventDate": "1995-08-14T04:00:00Z"},
+                {"eventAction": "expiration", "eventDate": "2026-08-13T04:00:00Z"},
+                {"eventAction": "last changed", "eventDate": "2025-08-14T07:01:34Z"}
+              ],
+              "entities": [
+                {"objectClassName": "entity", "roles": ["registrar"],
+                 "vcardArray": ["vcard", [["version", {}, "text", "4.0"], ["fn", {}, "text", "RESERVED-Internet Assigned Numbers Authority"]]]}
+              ],
+              "nameservers": [
+                {"objectClassName": "nameserver", "ldhName": "A.IANA-SERVERS.NET"},
+                {"objectClassName": "nameserver", "ldhName": "B.IANA-SERVERS.NET"}
+              ]
+            }
+            """;
+
+    private HttpServer server;
+    private final List<Integer> clientPorts = new CopyOnWriteArrayList<>();
+    private final List<String> methods = new CopyOnWriteArrayList<>();
+    private RdapClient client;
+    private URI baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        logger.atTrace().log("Starting stub RDAP server");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/rdap/domain/", this::handle);
+        server.start();
+
+        baseUrl = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/rdap/");
+        client = new RdapClient(new RdapBootstrap(Map.of("com", baseUrl)), "com", Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        methods.add(exchange.getRequestMethod());
+        String domain = exchange.getRequestURI().getPath().substring("/rdap/domain/".length());
+        switch (domain) {
+            case "example.com" -> respond(exchange, 200, EXAMPLE_RDAP);
+            case "busy.com" -> {
+                exchange.getResponseHeaders().add("Retry-After", "2");
+                respond(exchange, 429, "");
+            }
+            case "broken.com" -> respond(exchange, 500, "");
+            case "html.com" -> respond(exchange, 404, "<html><body>Not Found</body></html>");
+            case "object.com" -> respond(exchange, 404, "{\"message\":\"no such domain\"}");
+            case "described.com" -> respond(exchange, 404, "{\"errorCode\":404,\"title\":\"Not Found\",\"description\":[\"described.com\"]}");
+            default -> respond(exchange, 404, "");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = "HEAD".equals(exchange.getRequestMethod()) ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/rdap+json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Test
+    void testPolicySelectsEngine() {
+        logger.atTrace().log("Testing the per-TLD RDAP policy");
+        var bootstrap = new RdapBootstrap(Map.of("com", baseUrl, "net", baseUrl));
+
+        assertTrue(new RdapClient(bootstrap, "", Duration.ofSeconds(1)).endpointFor(".com").isEmpty());
+        assertEquals(baseUrl, new RdapClient(bootstrap, "*", Duration.ofSeconds(1)).endpointFor(".net").orElseThrow());
+        assertTrue(new RdapClient(bootstrap, "*", Duration.ofSeconds(1)).endpointFor(".org").isEmpty());
+
+        var some = new RdapClient(bootstrap, " .COM , dev", Duration.ofSeconds(1));
+        assertEquals(baseUrl, some.endpointFor(".com").orElseThrow());
+        assertTrue(some.endpointFor(".net").isEmpty());
+    }
+
+    @Test
+    void testDomainObjectIsReturnedAndParsed() {
+        logger.atTrace().log("Testing a successful RDAP lookup");
+        String json = client.lookupDomain(baseUrl, "example.com").orElseThrow();
+        var record = WhoisRecord.parse(json);
+
+        assertFalse(record.notFound());
+        assertEquals("RESERVED-Internet Assigned Numbers Authority", record.registrar().orElseThrow());
+        assertEquals(List.of("a.iana-servers.net", "b.iana-servers.net"), record.nameServers());
+        assertEquals(List.of("clientDeleteProhibited", "clientTransferProhibited", "clientUpdateProhibited"), record.statuses());
+        assertEquals("2026-08-13T04:00:00Z", record.expiry().orElseThrow().toString());
+        assertEquals("1995-08-14T04:00:00Z", record.created().orElseThrow().toString());
+    }
+
+    @Test
+    void testUnregisteredDomainIsNotFound() {
+        logger.atTrace().log("Testing that RDAP 404 answers are recognized as not found");
+        String json = client.lookupDomain(baseUrl, "available.com").orElseThrow();
+
+        assertTrue(WhoisRecord.isNotFound(json));
+        assertTrue(WhoisRecord.parse(json).notFound());
+
+        for (String domain : List.of("html.com", "object.com", "described.com")) {
+            String body = client.lookupDomain(baseUrl, domain).orElseThrow();
+            assertTrue(WhoisRecord.isNotFound(body), domain);
+            assertTrue(WhoisRecord.parse(body).notFound(), domain);
+        }
+        assertTrue(client.lookupDomain(baseUrl, "described.com").orElseThrow().contains("description"));
+    }
+
+    @Test
+    void testRegistrationCheckUsesHead() {
+        logger.atTrace().log("Testing the bodiless RDAP registration check");
+        assertTrue(client.isRegistered(baseUrl, "example.com"));
+        assertFalse(client.isRegistered(baseUrl, "available.com"));
+        assertThrows(ThrottledException.class, () -> client.isRegistered(baseUrl, "busy.com"));
+        assertEquals(List.of("HEAD", "HEAD", "HEAD"), methods);
+    }
+
+    @Test
+    void testErrors() {
+        logger.atTrace().log("Testing RDAP rate limiting and server errors");
+        var throttled = assertThrows(ThrottledException.class, () -> client.lookupDomain(baseUrl, "busy.com"));
+        assertEquals(2000, throttled.getRetryAfterMillis());
+        assertThrows(WhoisQueryException.class, () -> client.lookupDomain(baseUrl, "broken.com"));
+        assertThrows(WhoisQueryException.class,
+                () -> client.lookupDomain(URI.create("http://127.0.0.1:1/rdap/"), "example.com"));
+    }
+
+    @Test
+    void testConnectionIsReused() {
+        logger.atTrace().log("Testing that consecutive lookups share one connection");
+        for (int i = 0; i < 5; i++) client.lookupDomain(baseUrl, "example.com");
+
+        assertEquals(5, clientPorts.size());
+        assertEquals(1, Set.copyOf(clientPorts).size(), "client ports: " + clientPorts);
+    }
+}
@@ -0,0 +1,103 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshAheadSchedulerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshAheadSchedulerTest.class);
+
+    @Test
+    void testSelectsHotAndWatchedEntriesNearExpiry() {
+        logger.atTrace().log("Testing refresh candidate selection");
+        var clock = new TestClock();
+        var cache = new WhoisResponseCache(100, Duration.ofMinutes(60), true, clock);
+        var service = new StaticWhoisService(cache, new ServerRateLimiter(60, clock));
+
+        cache.put("hot.com", "hot");
+        cache.put("cold.com", "cold");
+        cache.put("watched.com", "watched");
+
+        clock.advance(Duration.ofMinutes(50));
+        cache.get("hot.com");
+        clock.advance(Duration.ofMinutes(6));
+
+        try (var scheduler = new RefreshAheadScheduler(service, Set.of("watched.com"), Duration.ofSeconds(30),
+                Duration.ofMinutes(5), Duration.ofMinutes(15), clock)) {
+            var selected = scheduler.selectCandidates(clock.millis()).stream()
+                    .map(WhoisResponseCache.RefreshCandidate::domain)
+                    .sorted()
+                    .toList();
+            assertEquals(List.of("hot.com", "watched.com"), selected);
+        }
+    }
+
+    @Test
+    void testEntriesFarFromExpiryAreNotSelected() {
+        logger.atTrace().log("Testing that fresh entries are left alone");
+        var clock = new TestClock();
+        var cache = new WhoisResponseCache(100, Duration.ofMinutes(60), true, clock);
+        var service = new StaticWhoisService(cache, new ServerRateLimiter(60, clock));
+        cache.put("hot.com", "hot");
+
+        try (var scheduler = new RefreshAheadScheduler(service, Set.of("hot.com"), Duration.ofSeconds(30),
+                Duration.ofMinutes(5), Duration.ofMinutes(15), clock)) {
+            assertTrue(scheduler.selectCandidates(clock.millis()).isEmpty());
+        }
+    }
+
+    @Test
+    void testJitterStaysWithinFirstHalfOfRemainingLifetime() {
+        logger.atTrace().log("Testing jitter bounds");
+        var candidate = new WhoisResponseCache.RefreshCandidate("example.com", 10_000, 0);
+        for (int i = 0; i < 1_000; i++) {
+            long delay = RefreshAheadScheduler.jitterDelay(candidate, 2_000);
+            assertTrue(delay >= 0 && delay < 4_000, "delay out of range: " + delay);
+        }
+        assertEquals(0, RefreshAheadScheduler.jitterDelay(candidate, 10_000));
+    }
+
+    @Test
+    void testRefreshRespectsRateLimit() {
+        logger.atTrace().log("Testing that refreshes are skipped without rate budget");
+        var clock = new TestClock();
+        var cache = new WhoisResponseCache(100, Duration.ofMinutes(60), true, clock);
+        var service = new StaticWhoisService(cache, new ServerRateLimiter(1, clock));
+
+        assertTrue(service.refresh("example.com"));
+        assertFalse(service.refresh("example.com"));
+        assertEquals(1, service.queryCount);
+        assertEquals("refreshed", cache.get("example.com").orElseThrow());
+    }
+
+    @Test
+    void testParseWatchlist() {
+        logger.atTrace().log("Testing watchlist parsing");
+        assertEquals(Set.of("example.com", "example.org"),
+                RefreshAheadScheduler.parseWatchlist(" Example.com, ,www.example.org"));
+        assertTrue(RefreshAheadScheduler.parseWatchlist("").isEmpty());
+    }
+
+    // WhoisService that never touches the network
+    private static class StaticWhoisService extends WhoisServiceFixture {
+        private int queryCount;
+
+        StaticWhoisService(WhoisResponseCache cache, ServerRateLimiter rateLimiter) {
+            super(collaborators().responseCache(cache).rateLimiter(rateLimiter));
+        }
+
+        @Override
+        protected Optional<String> queryServer(String whoisServer, String domain) {
+            queryCount++;
+            return Optional.of("refreshed");
+        }
+    }
+}
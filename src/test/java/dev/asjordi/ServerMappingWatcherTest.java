@@ -0,0 +1,113 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerMappingWatcherTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerMappingWatcherTest.class);
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+    @Test
+    void testReloadsChangedFile(@TempDir Path tempDir) throws Exception {
+        logger.atTrace().log("Testing hot reload of a modified and a replaced override file");
+        Path overrideFile = tempDir.resolve("overrides.properties");
+        Files.writeString(overrideFile, ".com=whois.first.net\n");
+        var cache = new WhoisCache(overrideFile);
+
+        try (var watcher = new ServerMappingWatcher(cache, Duration.ofMillis(50))) {
+            watcher.start();
+
+            Files.writeString(overrideFile, ".com=whois.second.net\n");
+            assertTrue(awaitServer(cache, ".com", "whois.second.net"));
+
+            Path replacement = tempDir.resolve("overrides.tmp");
+            Files.writeString(replacement, ".com=whois.third.net\n.custom=whois.nic.custom\n");
+            Files.move(replacement, overrideFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            assertTrue(awaitServer(cache, ".custom", "whois.nic.custom"));
+            assertEquals("whois.third.net", cache.getWhoisServer(".com").orElseThrow());
+        }
+    }
+
+    @Test
+    void testInvalidChangeKeepsLiveTable(@TempDir Path tempDir) throws Exception {
+        logger.atTrace().log("Testing that an invalid edit does not disturb the live table");
+        Path overrideFile = tempDir.resolve("overrides.properties");
+        Files.writeString(overrideFile, ".com=whois.first.net\n");
+        var cache = new WhoisCache(overrideFile);
+
+        try (var watcher = new ServerMappingWatcher(cache, Duration.ofMillis(50))) {
+            watcher.start();
+
+            Files.writeString(overrideFile, ".com=whois.broken.net\nbroken entry\n");
+            Thread.sleep(500);
+            assertEquals("whois.first.net", cache.getWhoisServer(".com").orElseThrow());
+
+            Files.writeString(overrideFile, ".com=whois.fixed.net\n");
+            assertTrue(awaitServer(cache, ".com", "whois.fixed.net"));
+        }
+    }
+
+    @Test
+    void testFailedReloadKeepsWatching(@TempDir Path tempDir) throws Exception {
+        logger.atTrace().log("Testing that an exception during a reload does not stop the watcher");
+        Path overrideFile = tempDir.resolve("overrides.properties");
+        Files.writeString(overrideFile, ".com=whois.first.net\n");
+        var cache = new FailingOnceWhoisCache(overrideFile);
+
+        try (var watcher = new ServerMappingWatcher(cache, Duration.ofMillis(50))) {
+            watcher.start();
+
+            Files.writeString(overrideFile, ".com=whois.second.net\n");
+            long deadline = System.nanoTime() + TIMEOUT.toNanos();
+            while (cache.reloads.get() == 0 && System.nanoTime() < deadline) Thread.sleep(50);
+            assertEquals("whois.first.net", cache.getWhoisServer(".com").orElseThrow());
+
+            Files.writeString(overrideFile, ".com=whois.third.net\n");
+            assertTrue(awaitServer(cache, ".com", "whois.third.net"));
+        }
+    }
+
+    @Test
+    void testRequiresOverrideFile() {
+        logger.atTrace().log("Testing that a watcher needs an override file");
+        assertThrows(IllegalArgumentException.class, () -> new ServerMappingWatcher(new WhoisCache(null)));
+    }
+
+    private static boolean awaitServer(WhoisCache cache, String extension, String expected)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            Optional<String> server = cache.getWhoisServer(extension);
+            if (server.isPresent() && server.get().equals(expected)) return true;
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    // WhoisCache whose first reload through the watcher fails with an unexpected exception
+    private static class FailingOnceWhoisCache extends WhoisCache {
+        private final AtomicInteger reloads = new AtomicInteger();
+
+        FailingOnceWhoisCache(Path overrideFile) {
+            super(overrideFile);
+        }
+
+        @Override
+        public boolean reloadOverrides() {
+            if (reloads.getAndIncrement() == 0) throw new IllegalStateException("simulated reload failure");
+            return super.reloadOverrides();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerRateLimiterTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerRateLimiterTest.class);
+
+    @Test
+    void testBudgetIsExhaustedAndRefilled() {
+        logger.atTrace().log("Testing token bucket exhaustion and refill");
+        var clock = new TestClock();
+        var limiter = new ServerRateLimiter(2, clock);
+
+        assertTrue(limiter.tryAcquire("whois.verisign-grs.com"));
+        assertTrue(limiter.tryAcquire("whois.verisign-grs.com"));
+        assertFalse(limiter.tryAcquire("whois.verisign-grs.com"));
+
+        clock.advance(Duration.ofSeconds(30));
+        assertTrue(limiter.tryAcquire("whois.verisign-grs.com"));
+        assertFalse(limiter.tryAcquire("whois.verisign-grs.com"));
+    }
+
+    @Test
+    void testServersHaveIndependentBudgets() {
+        logger.atTrace().log("Testing that each server has its own bucket");
+        var limiter = new ServerRateLimiter(1, new TestClock());
+
+        assertTrue(limiter.tryAcquire("whois.verisign-grs.com"));
+        assertFalse(limiter.tryAcquire("whois.verisign-grs.com"));
+        assertTrue(limiter.tryAcquire("whois.pir.org"));
+    }
+
+    @Test
+    void testRecordedQueriesConsumeBudget() {
+        logger.atTrace().log("Testing that interactive queries reduce the background budget");
+        var limiter = new ServerRateLimiter(1, new TestClock());
+
+        limiter.record("whois.pir.org");
+        assertFalse(limiter.tryAcquire("whois.pir.org"));
+    }
+
+    @Test
+    void testOverageIsRepaidBeforeBackgroundWork() {
+        logger.atTrace().log("Testing that queries sent over budget put the bucket in debt");
+        var clock = new TestClock();
+        var limiter = new ServerRateLimiter(60, clock);
+        for (int i = 0; i < 60; i++) assertTrue(limiter.tryAcquire("whois.pir.org"));
+
+        limiter.record("whois.pir.org");
+        limiter.record("whois.pir.org");
+        clock.advance(Duration.ofSeconds(2));
+        assertFalse(limiter.tryAcquire("whois.pir.org"));
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(limiter.tryAcquire("whois.pir.org"));
+    }
+
+    @Test
+    void testThrottlingHalvesRateAndBacksOff() {
+        logger.atTrace().log("Testing multiplicative decrease and exponential backoff on throttling");
+        var clock = new TestClock();
+        var limiter = new ServerRateLimiter(60, clock, () -> 0.0);
+
+        assertEquals(1000 / 2, limiter.onThrottled("whois.nic.uk"));
+        assertEquals(30.0, limiter.capacity("whois.nic.uk"), 0.001);
+        assertEquals(500, limiter.backoffRemaining("whois.nic.uk"));
+        assertFalse(limiter.tryAcquire("whois.nic.uk"));
+
+        // The bucket was emptied, so after the backoff tokens come at the reduced rate
+        clock.advance(Duration.ofMillis(500));
+        assertEquals(0, limiter.backoffRemaining("whois.nic.uk"));
+        assertEquals(1500, limiter.millisUntilAvailable("whois.nic.uk", 0));
+
+        assertEquals(2000 / 2, limiter.onThrottled("whois.nic.uk"));
+        assertEquals(15.0, limiter.capacity("whois.nic.uk"), 0.001);
+        assertEquals(60.0, limiter.capacity("whois.pir.org"), 0.001);
+    }
+
+    @Test
+    void testSuccessRaisesRateAdditively() {
+        logger.atTrace().log("Testing additive increase after throttling");
+        var limiter = new ServerRateLimiter(10, new TestClock(), () -> 1.0);
+
+        assertEquals(1000, limiter.onThrottled("whois.nic.uk"));
+        assertEquals(5.0, limiter.capacity("whois.nic.uk"), 0.001);
+
+        limiter.onSuccess("whois.nic.uk");
+        limiter.onSuccess("whois.nic.uk");
+        assertEquals(7.0, limiter.capacity("whois.nic.uk"), 0.001);
+        for (int i = 0; i < 10; i++) limiter.onSuccess("whois.nic.uk");
+        assertEquals(10.0, limiter.capacity("whois.nic.uk"), 0.001);
+
+        // A success resets the backoff exponent
+        assertEquals(1000, limiter.onThrottled("whois.nic.uk"));
+    }
+}
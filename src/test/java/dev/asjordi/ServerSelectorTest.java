@@ -0,0 +1,86 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerSelectorTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerSelectorTest.class);
+    private static final List<String> SERVERS = List.of("whois.primary.test", "whois.mirror.test");
+
+    @Test
+    void testSingleServerIsReturned() {
+        logger.atTrace().log("Testing that a single candidate is always selected");
+        var selector = new ServerSelector(0.3, 1.0, 0.5, () -> 0.0);
+        assertEquals("whois.only.test", selector.select(List.of("whois.only.test")));
+    }
+
+    @Test
+    void testUntriedServersAreSampledFirst() {
+        logger.atTrace().log("Testing that every candidate gets a sample before routing by latency");
+        var selector = new ServerSelector(0.3, 0.0, 0.5, () -> 0.5);
+        assertEquals("whois.primary.test", selector.select(SERVERS));
+
+        selector.record("whois.primary.test", Duration.ofMillis(50), true);
+        assertEquals("whois.mirror.test", selector.select(SERVERS));
+    }
+
+    @Test
+    void testFastestHealthyServerIsSelected() {
+        logger.atTrace().log("Testing routing to the fastest healthy server");
+        var selector = new ServerSelector(0.3, 0.0, 0.5, () -> 0.5);
+        selector.record("whois.primary.test", Duration.ofMillis(400), true);
+        selector.record("whois.mirror.test", Duration.ofMillis(80), true);
+        assertEquals("whois.mirror.test", selector.select(SERVERS));
+
+        // The faster server starts failing and loses its traffic
+        selector.record("whois.mirror.test", Duration.ofMillis(5), false);
+        selector.record("whois.mirror.test", Duration.ofMillis(5), false);
+        selector.record("whois.mirror.test", Duration.ofMillis(5), false);
+        assertTrue(selector.statsFor("whois.mirror.test").orElseThrow().errorRate() > 0.5);
+        assertEquals("whois.primary.test", selector.select(SERVERS));
+    }
+
+    @Test
+    void testLeastFailingServerWhenAllUnhealthy() {
+        logger.atTrace().log("Testing fallback when every server is unhealthy");
+        var selector = new ServerSelector(0.5, 0.0, 0.5, () -> 0.5);
+        selector.record("whois.primary.test", Duration.ofMillis(10), false);
+        selector.record("whois.mirror.test", Duration.ofMillis(10), false);
+        selector.record("whois.mirror.test", Duration.ofMillis(10), true);
+        assertEquals("whois.mirror.test", selector.select(SERVERS));
+    }
+
+    @Test
+    void testLatencyAverage() {
+        logger.atTrace().log("Testing the EWMA latency update");
+        var selector = new ServerSelector(0.5, 0.0, 0.5, () -> 0.5);
+        selector.record("whois.primary.test", Duration.ofMillis(100), true);
+        selector.record("whois.primary.test", Duration.ofMillis(200), true);
+        selector.record("whois.primary.test", Duration.ofMillis(1000), false);
+
+        var stats = selector.statsFor("whois.primary.test").orElseThrow();
+        assertEquals(150.0, stats.latencyMillis(), 0.001);
+        assertEquals(0.5, stats.errorRate(), 0.001);
+    }
+
+    @Test
+    void testExploration() {
+        logger.atTrace().log("Testing that exploration occasionally picks a slower server");
+        var next = new AtomicReference<>(0.5);
+        var selector = new ServerSelector(0.3, 0.1, 0.5, next::get);
+        selector.record("whois.primary.test", Duration.ofMillis(400), true);
+        selector.record("whois.mirror.test", Duration.ofMillis(80), true);
+        assertEquals("whois.mirror.test", selector.select(SERVERS));
+
+        next.set(0.05);
+        assertEquals("whois.primary.test", selector.select(SERVERS));
+    }
+}
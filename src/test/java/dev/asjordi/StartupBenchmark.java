@@ -0,0 +1,128 @@
+package dev.asjordi;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from launching the server process to the first successful
+ * {@code tools/list} response over stdio.
+ * <p>
+ * Each iteration starts a fresh JVM with {@code java [jvm options] -jar <jar>},
+ * performs the MCP handshake ({@code initialize}, {@code notifications/initialized})
+ * and requests the tool list, then closes standard input so the server exits
+ * normally. Lines on standard output that are not JSON-RPC responses (such as
+ * console logging) are ignored. Because the server exits normally, running a
+ * single iteration with {@code -XX:ArchiveClassesAtExit} produces a dynamic CDS
+ * archive; see the {@code cds} Maven profile.
+ * </p>
+ * <pre>
+ *     java -cp target/test-classes dev.asjordi.StartupBenchmark &lt;jar&gt; [iterations] [jvm options...]
+ * </pre>
+ */
+public final class StartupBenchmark {
+
+    private static final String INITIALIZE = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":"
+            + "{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{},"
+            + "\"clientInfo\":{\"name\":\"startup-benchmark\",\"version\":\"1.0\"}}}";
+    private static final String INITIALIZED = "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}";
+    private static final String LIST_TOOLS = "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\",\"params\":{}}";
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private StartupBenchmark() { }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: StartupBenchmark <jar> [iterations] [jvm options...]");
+            System.exit(2);
+        }
+
+        Path jar = Path.of(args[0]);
+        if (!Files.isRegularFile(jar)) {
+            System.err.println("Jar not found: " + jar);
+            System.exit(2);
+        }
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<String> jvmOptions = args.length > 2 ? Arrays.asList(args).subList(2, args.length) : List.of();
+
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            samples[i] = measure(jar, jvmOptions);
+            System.out.printf("run %d: %d ms%n", i + 1, samples[i]);
+        }
+
+        Arrays.sort(samples);
+        System.out.printf("startup to first tools/list (%s): min %d ms, median %d ms, max %d ms over %d runs%n",
+                jvmOptions.isEmpty() ? "default JVM options" : String.join(" ", jvmOptions),
+                samples[0], samples[samples.length / 2], samples[samples.length - 1], samples.length);
+    }
+
+    /**
+     * Launches the server once and returns the milliseconds until the tool list arrived.
+     */
+    static long measure(Path jar, List<String> jvmOptions) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-Dwhois.refresh.enabled=false");
+        command.add("-jar");
+        command.add(jar.toString());
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        try (var stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            long elapsed;
+            try (OutputStream stdin = process.getOutputStream()) {
+                send(stdin, INITIALIZE);
+                awaitResponse(stdout, 1);
+                send(stdin, INITIALIZED);
+                send(stdin, LIST_TOOLS);
+                awaitResponse(stdout, 2);
+                elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            }
+
+            // Standard input is closed now, which tells the server to exit
+            drain(stdout);
+            return elapsed;
+        } finally {
+            if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IllegalStateException("Server did not exit after standard input was closed");
+            }
+        }
+    }
+
+    private static void send(OutputStream stdin, String message) throws IOException {
+        stdin.write((message + "\n").getBytes(StandardCharsets.UTF_8));
+        stdin.flush();
+    }
+
+    private static void awaitResponse(BufferedReader stdout, int id) throws IOException {
+        String marker = "\"id\":" + id + ",";
+        String line;
+        while ((line = stdout.readLine()) != null) {
+            if (line.contains(marker) && line.contains("\"result\"")) return;
+            if (line.contains(marker) && line.contains("\"error\"")) {
+                throw new IllegalStateException("Request " + id + " failed: " + line);
+            }
+        }
+        throw new IllegalStateException("Server closed standard output before answering request " + id);
+    }
+
+    private static void drain(BufferedReader stdout) throws IOException {
+        while (stdout.readLine() != null) {
+            // discard remaining output until the server exits
+        }
+    }
+}
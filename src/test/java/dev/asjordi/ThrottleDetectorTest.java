@@ -0,0 +1,70 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThrottleDetectorTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThrottleDetectorTest.class);
+    private static ThrottleDetector detector;
+
+    @BeforeAll
+    static void setUp() {
+        logger.atTrace().log("Loading the bundled throttle patterns");
+        detector = new ThrottleDetector();
+    }
+
+    @Test
+    void testGenericThrottleNotices() {
+        logger.atTrace().log("Testing throttle notices recognized for every server");
+        assertTrue(detector.isThrottled("whois.nic.example", "Query rate limit exceeded\r\n"));
+        assertTrue(detector.isThrottled("whois.nic.example", "% Too many queries from your IP, please try again later."));
+        assertTrue(detector.isThrottled("whois.nic.example", "WHOIS LIMIT EXCEEDED - SEE WWW.PIR.ORG/WHOIS FOR DETAILS"));
+    }
+
+    @Test
+    void testServerSpecificNotices() {
+        logger.atTrace().log("Testing throttle notices specific to one registry");
+        String denic = "55000000002 Connection refused; access control limit reached.";
+        assertTrue(detector.isThrottled("whois.denic.de", denic));
+        assertTrue(detector.isThrottled("WHOIS.DENIC.DE", denic));
+        assertTrue(detector.isThrottled("whois.nic.it", "Your IP address has been blocked"));
+        assertFalse(detector.isThrottled("whois.nic.example", "Your IP address has been blocked"));
+    }
+
+    @Test
+    void testEmptyAnswersAreThrottled() {
+        logger.atTrace().log("Testing that empty answers count as throttled");
+        assertTrue(detector.isThrottled("whois.verisign-grs.com", null));
+        assertTrue(detector.isThrottled("whois.verisign-grs.com", ""));
+        assertTrue(detector.isThrottled("whois.verisign-grs.com", " \r\n"));
+    }
+
+    @Test
+    void testRegularAnswersAreNotThrottled() {
+        logger.atTrace().log("Testing that registry data is not mistaken for a throttle notice");
+        assertFalse(detector.isThrottled("whois.verisign-grs.com", WhoisRecordTest.VERISIGN_RESPONSE));
+        assertFalse(detector.isThrottled("whois.pir.org", "Domain Name: EXAMPLE.ORG\nRegistry Domain ID: D1-LROR\n"));
+
+        String longTerms = "Domain Name: EXAMPLE.COM\n" + "x".repeat(600) + "\nQueries beyond the rate limit are refused.";
+        assertFalse(detector.isThrottled("whois.verisign-grs.com", longTerms));
+    }
+
+    @Test
+    void testInvalidPatternIsIgnored() {
+        logger.atTrace().log("Testing that an invalid pattern does not break the detector");
+        var patterns = new Properties();
+        patterns.setProperty("default", "slow down");
+        patterns.setProperty("whois.broken.test", "([unclosed");
+        var custom = new ThrottleDetector(patterns);
+
+        assertTrue(custom.isThrottled("whois.broken.test", "Please SLOW DOWN"));
+        assertFalse(custom.isThrottled("whois.broken.test", "Domain Name: EXAMPLE.TEST"));
+    }
+}
@@ -0,0 +1,51 @@
+package dev.asjordi;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolProgressTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolProgressTest.class);
+
+    @Test
+    void testStepsAndResultsAreSentAsLoggingNotifications() {
+        logger.atTrace().log("Testing the notifications sent for steps and results");
+        List<McpSchema.LoggingMessageNotification> sent = new ArrayList<>();
+        var progress = new ToolProgress("get_whois", sent::add);
+
+        progress.step("example.com", "querying whois.verisign-grs.com");
+        progress.result("example.com", 1, 3, "Domain Name: EXAMPLE.COM", false);
+        progress.result("broken.test", 2, 3, "Error: Invalid domain: broken.test", true);
+
+        assertEquals(3, sent.size());
+        assertEquals(new McpSchema.LoggingMessageNotification(McpSchema.LoggingLevel.INFO, "get_whois",
+                "example.com: querying whois.verisign-grs.com"), sent.get(0));
+        assertEquals(McpSchema.LoggingLevel.NOTICE, sent.get(1).level());
+        assertEquals("[1/3] example.com\nDomain Name: EXAMPLE.COM", sent.get(1).data());
+        assertEquals(McpSchema.LoggingLevel.WARNING, sent.get(2).level());
+        assertFalse(progress.isCancelled());
+    }
+
+    @Test
+    void testUndeliverableNotificationCancels() {
+        logger.atTrace().log("Testing that a failed notification marks the call as cancelled");
+        List<String> attempts = new ArrayList<>();
+        var progress = new ToolProgress("get_whois", notification -> {
+            attempts.add(notification.data());
+            throw new IllegalStateException("Session closed");
+        });
+
+        progress.step("example.com", "querying whois.verisign-grs.com");
+        progress.result("example.com", 1, 2, "Domain Name: EXAMPLE.COM", false);
+
+        assertTrue(progress.isCancelled());
+        assertEquals(1, attempts.size());
+    }
+}
@@ -0,0 +1,119 @@
+package dev.asjordi;
+
+import dev.asjordi.exceptions.DomainValidationException;
+import dev.asjordi.exceptions.ThrottledException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceRecorderTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceRecorderTest.class);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRecordsRoundTripAcrossRuns() throws IOException {
+        logger.atTrace().log("Testing that trace records are read back, also after reopening the file");
+        Path file = tempDir.resolve("lookups.trace");
+        var first = new TraceRecorder.Entry(1_700_000_000_000L, "example.com", "whois.verisign-grs.com",
+                TraceRecorder.Outcome.ANSWERED, 183_000, 3_512, 180_500);
+        var second = new TraceRecorder.Entry(1_700_000_000_250L, "ejemplo.mx", "",
+                TraceRecorder.Outcome.CACHE_HIT, 42, 1_024, 0);
+
+        try (var recorder = TraceRecorder.open(file)) {
+            recorder.record(first);
+        }
+        try (var recorder = TraceRecorder.open(file)) {
+            recorder.record(second);
+        }
+
+        assertEquals(List.of(first, second), TraceRecorder.read(file));
+    }
+
+    @Test
+    void testTruncatedTailIsIgnored() throws IOException {
+        logger.atTrace().log("Testing that a partly written last record is skipped");
+        Path file = tempDir.resolve("crashed.trace");
+        try (var recorder = TraceRecorder.open(file)) {
+            recorder.record(new TraceRecorder.Entry(1L, "example.com", "", TraceRecorder.Outcome.NO_ANSWER, 1, 0, 0));
+            recorder.record(new TraceRecorder.Entry(2L, "example.net", "", TraceRecorder.Outcome.NO_ANSWER, 1, 0, 0));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertEquals(List.of("example.com"), TraceRecorder.read(file).stream().map(TraceRecorder.Entry::domain).toList());
+
+        Files.writeString(file, "not a trace at all");
+        assertThrows(IOException.class, () -> TraceRecorder.read(file));
+    }
+
+    @Test
+    void testCallsLearnServerAndOutcome() throws IOException {
+        logger.atTrace().log("Testing that calls derive server and outcome from the lookup");
+        Path file = tempDir.resolve("calls.trace");
+        List<String> forwarded = new ArrayList<>();
+
+        try (var recorder = TraceRecorder.open(file)) {
+            var referred = recorder.start("example.zz");
+            var progress = referred.observe(forwarded::add);
+            progress.accept(WhoisService.STEP_QUERYING + WhoisService.IANA_WHOIS_SERVER);
+            progress.accept(WhoisService.STEP_REFERRAL + "whois.nic.zz");
+            referred.finish(Optional.of("Domain Name: EXAMPLE.ZZ"));
+
+            var timed = recorder.start("example.org");
+            timed.observe(step -> { }).accept(WhoisService.STEP_QUERYING + "whois.pir.org");
+            timed.responseTime(Duration.ofNanos(183_042_500));
+            timed.finish(Optional.of("Domain Name: EXAMPLE.ORG"));
+
+            var cached = recorder.start("example.com");
+            cached.observe(step -> { }).accept(WhoisService.STEP_CACHE_HIT);
+            cached.finish(Optional.of("Domain Name: EXAMPLE.COM"));
+
+            var rdap = recorder.start("free.com");
+            rdap.observe(step -> { }).accept(WhoisService.STEP_QUERYING_RDAP + "rdap.verisign.com");
+            rdap.finish(Optional.of("{\"errorCode\":404}"));
+
+            recorder.start("busy.com").fail(new ThrottledException("whois.verisign-grs.com", 1000));
+            recorder.start("not a domain").fail(new DomainValidationException("Invalid domain: not a domain"));
+        }
+
+        var entries = TraceRecorder.read(file);
+        assertEquals(List.of("whois.nic.zz", "whois.pir.org", "", "rdap.verisign.com", "", ""),
+                entries.stream().map(TraceRecorder.Entry::server).toList());
+        assertEquals(List.of(TraceRecorder.Outcome.ANSWERED, TraceRecorder.Outcome.ANSWERED, TraceRecorder.Outcome.CACHE_HIT,
+                        TraceRecorder.Outcome.NOT_FOUND, TraceRecorder.Outcome.THROTTLED, TraceRecorder.Outcome.REJECTED),
+                entries.stream().map(TraceRecorder.Entry::outcome).toList());
+        assertEquals(23, entries.get(0).bytes());
+        assertEquals(183_042, entries.get(1).serverMicros());
+        assertEquals(0, entries.get(2).serverMicros());
+        assertEquals(2, forwarded.size());
+    }
+
+    @Test
+    void testDisabledRecorderDoesNothing() {
+        logger.atTrace().log("Testing that recording is off without a trace file");
+        System.clearProperty("whois.trace.file");
+        var recorder = TraceRecorder.fromSystemProperties();
+
+        assertFalse(recorder.isEnabled());
+        var call = recorder.start("example.com");
+        List<String> forwarded = new ArrayList<>();
+        call.observe(forwarded::add).accept(WhoisService.STEP_CACHE_HIT);
+        call.finish(Optional.empty());
+        assertEquals(List.of(WhoisService.STEP_CACHE_HIT), forwarded);
+    }
+}
@@ -0,0 +1,282 @@
+package dev.asjordi;
+
+import dev.asjordi.exceptions.WhoisQueryException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a lookup trace written by {@link TraceRecorder} through a fresh
+ * {@link WhoisService} and reports throughput, latency percentiles and the
+ * response cache hit ratio.
+ * <p>
+ * Every WHOIS server is replaced by a local stub that answers each domain the
+ * way the trace says its registry did: a record padded to the recorded size, a
+ * "no match" answer, a rate-limit notice or a reset connection for lookups that
+ * failed, after the recorded server response time. Lookups that failed before
+ * any server answered fall back to the end-to-end latency.
+ * Lookups are issued at the recorded times, compressed by {@code --speed} (so 1
+ * is real time and 10 is ten times faster), or back to back with
+ * {@code --speed 0}; registry latencies are never compressed. The stub's answers
+ * are the same on every run, so two runs with different system properties (cache
+ * size, rate limits, ...) can be compared on the same traffic. When lookups are
+ * paced, latency is measured from the time a lookup was due rather than from when
+ * a worker picked it up, so queueing behind slow lookups is not hidden.
+ * </p>
+ * <pre>
+ *     java -cp &lt;classpath&gt; dev.asjordi.TraceReplay &lt;trace&gt; [--speed N] [--concurrency N]
+ * </pre>
+ */
+public final class TraceReplay {
+
+    private static final String USAGE = "Usage: TraceReplay <trace> [--speed N] [--concurrency N]";
+
+    /**
+     * The measurements of one replay.
+     *
+     * @param lookups           the number of lookups replayed
+     * @param errors            the number of lookups that failed
+     * @param elapsed           the wall-clock time of the replay
+     * @param latencyMicros     the sorted lookup latencies in microseconds
+     * @param cacheHitRatio     the response cache hit ratio of the replay
+     * @param recordedHitRatio  the share of cache hits in the trace
+     * @param registryQueries   the number of queries the stub registry answered
+     */
+    record Report(int lookups, int errors, Duration elapsed, long[] latencyMicros, double cacheHitRatio,
+                  double recordedHitRatio, int registryQueries) {
+
+        double throughput() {
+            return lookups / Math.max(elapsed.toNanos() / 1e9, 1e-9);
+        }
+
+        double percentileMillis(double percentile) {
+            if (latencyMicros.length == 0) return 0;
+            int rank = (int) Math.ceil(percentile / 100 * latencyMicros.length) - 1;
+            return latencyMicros[Math.max(0, Math.min(rank, latencyMicros.length - 1))] / 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, """
+                    replayed %d lookups in %.1f s: %.1f lookups/s, %d errors
+                    latency ms: p50 %.1f, p90 %.1f, p99 %.1f, max %.1f
+                    cache hit ratio: %.1f%% (recorded %.1f%%), registry queries: %d""",
+                    lookups, elapsed.toNanos() / 1e9, throughput(), errors,
+                    percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(100),
+                    cacheHitRatio * 100, recordedHitRatio * 100, registryQueries);
+        }
+    }
+
+    private TraceReplay() { }
+
+    public static void main(String[] args) throws IOException {
+        Path trace = null;
+        double speed = 1;
+        int concurrency = 16;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--speed" -> speed = Double.parseDouble(args[++i]);
+                    case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                    default -> {
+                        if (args[i].startsWith("--") || trace != null) throw new IllegalArgumentException(args[i]);
+                        trace = Path.of(args[i]);
+                    }
+                }
+            }
+            if (trace == null || speed < 0 || concurrency < 1) throw new IllegalArgumentException();
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        System.out.println(replay(TraceRecorder.read(trace), speed, concurrency));
+    }
+
+    /**
+     * Replays the trace against a stub registry.
+     *
+     * @param entries     the recorded lookups
+     * @param speed       how much faster than recorded to issue lookups, or 0 for back to back
+     * @param concurrency the number of lookups running at once
+     * @return the measurements
+     * @throws IOException if the stub registry cannot be started
+     */
+    static Report replay(List<TraceRecorder.Entry> entries, double speed, int concurrency) throws IOException {
+        List<TraceRecorder.Entry> ordered = entries.stream()
+                .sorted(Comparator.comparingLong(TraceRecorder.Entry::timestamp))
+                .toList();
+
+        try (var registry = new StubRegistry(ordered)) {
+            var loopback = new InetAddress[]{InetAddress.getLoopbackAddress()};
+            var service = new WhoisService(new WhoisCache(), new WhoisResponseCache(), new ServerRateLimiter(),
+                    new ServerSelector(),
+                    new HostResolver(host -> loopback, Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(1),
+                            Clock.systemUTC()),
+                    new RdapClient(new RdapBootstrap(Map.of()), "", Duration.ofSeconds(1)),
+                    registry.port());
+
+            long[] latencies = new long[ordered.size()];
+            AtomicInteger errors = new AtomicInteger();
+            long origin = ordered.isEmpty() ? 0 : ordered.get(0).timestamp();
+            long start = System.nanoTime();
+
+            try (ExecutorService workers = Executors.newFixedThreadPool(concurrency)) {
+                for (int i = 0; i < ordered.size(); i++) {
+                    TraceRecorder.Entry entry = ordered.get(i);
+                    long due = speed > 0 ? start + (long) ((entry.timestamp() - origin) * 1_000_000 / speed) : 0;
+                    for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                        LockSupport.parkNanos(wait);
+                    }
+
+                    int index = i;
+                    workers.execute(() -> {
+                        long begin = due > 0 ? due : System.nanoTime();
+                        try {
+                            service.performWhoisQuery(entry.domain());
+                        } catch (WhoisQueryException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[index] = (System.nanoTime() - begin) / 1000;
+                    });
+                }
+            }
+
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            Arrays.sort(latencies);
+            double recordedHits = ordered.isEmpty() ? 0 : (double) ordered.stream()
+                    .filter(entry -> entry.outcome() == TraceRecorder.Outcome.CACHE_HIT)
+                    .count() / ordered.size();
+            return new Report(ordered.size(), errors.get(), elapsed, latencies,
+                    service.getResponseCache().hitRatio(), recordedHits, registry.queries.get());
+        }
+    }
+
+    /**
+     * A WHOIS server on the loopback interface that answers each domain as its
+     * registry did in the trace.
+     */
+    private static final class StubRegistry implements AutoCloseable {
+        private static final int LINE_LENGTH = 72;
+
+        /**
+         * How the registry answered a domain.
+         */
+        private record Answer(TraceRecorder.Outcome outcome, long latencyMicros, int bytes) { }
+
+        private final ServerSocket socket;
+        private final Map<String, Answer> answers = new HashMap<>();
+        private final Answer typical;
+        private final ExecutorService handlers = Executors.newVirtualThreadPerTaskExecutor();
+        private final AtomicInteger queries = new AtomicInteger();
+
+        StubRegistry(List<TraceRecorder.Entry> entries) throws IOException {
+            // The first registry answer per domain stands for it; cache hits carry no registry timing
+            for (TraceRecorder.Entry entry : entries) {
+                if (entry.outcome() == TraceRecorder.Outcome.CACHE_HIT || entry.outcome() == TraceRecorder.Outcome.REJECTED) {
+                    continue;
+                }
+                long serviceMicros = entry.serverMicros() > 0 ? entry.serverMicros() : entry.latencyMicros();
+                answers.putIfAbsent(key(entry.domain()), new Answer(entry.outcome(), serviceMicros, entry.bytes()));
+            }
+            long[] latencies = answers.values().stream().mapToLong(Answer::latencyMicros).sorted().toArray();
+            int[] sizes = answers.values().stream().mapToInt(Answer::bytes).sorted().toArray();
+            typical = new Answer(TraceRecorder.Outcome.ANSWERED,
+                    latencies.length == 0 ? 100_000 : latencies[latencies.length / 2],
+                    sizes.length == 0 ? 2048 : sizes[sizes.length / 2]);
+
+            socket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+            Thread acceptor = new Thread(this::accept, "whois-replay-stub");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return socket.getLocalPort();
+        }
+
+        private void accept() {
+            while (!socket.isClosed()) {
+                try {
+                    Socket connection = socket.accept();
+                    handlers.execute(() -> answer(connection));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void answer(Socket connection) {
+            try (connection) {
+                var reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+                String domain = reader.readLine();
+                if (domain == null) return;
+                queries.incrementAndGet();
+
+                Answer answer = answers.getOrDefault(key(domain), typical);
+                Thread.sleep(Duration.ofNanos(answer.latencyMicros() * 1000));
+                if (answer.outcome() == TraceRecorder.Outcome.FAILED || answer.outcome() == TraceRecorder.Outcome.NO_ANSWER) {
+                    // A reset fails the query like a lost connection; an empty answer would count as throttling
+                    connection.setSoLinger(true, 0);
+                    return;
+                }
+                OutputStream output = connection.getOutputStream();
+                output.write(body(domain.strip(), answer).getBytes(StandardCharsets.UTF_8));
+                output.flush();
+            } catch (IOException e) {
+                // The client gave up; nothing to answer
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private static String body(String domain, Answer answer) {
+            return switch (answer.outcome()) {
+                case NOT_FOUND -> "No match for \"" + domain.toUpperCase(Locale.ROOT) + "\".\r\n";
+                case THROTTLED -> "Query rate limit exceeded\r\n";
+                default -> {
+                    StringBuilder text = new StringBuilder()
+                            .append("Domain Name: ").append(domain.toUpperCase(Locale.ROOT)).append("\r\n")
+                            .append("Registrar: Replay Registrar\r\n")
+                            .append("Registry Expiry Date: ").append(Instant.now().plus(Duration.ofDays(365))).append("\r\n")
+                            .append("Name Server: NS1.EXAMPLE.NET\r\n");
+                    while (text.length() < answer.bytes()) {
+                        text.append("% ").append("x".repeat(LINE_LENGTH)).append("\r\n");
+                    }
+                    yield text.toString();
+                }
+            };
+        }
+
+        private static String key(String domain) {
+            return domain.strip().toLowerCase(Locale.ROOT);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+            handlers.shutdownNow();
+        }
+    }
+}
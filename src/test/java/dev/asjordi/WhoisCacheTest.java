@@ -2,9 +2,15 @@ package dev.asjordi;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class WhoisCacheTest {
@@ -197,4 +203,78 @@ class WhoisCacheTest {
         assertTrue(howServer.isPresent());
         assertEquals("whois.nic.google", howServer.get());
     }
+
+    @Test
+    void testLearnedServers() {
+        logger.atTrace().log("Testing servers learned from referrals");
+        var cache = new WhoisCache();
+        assertTrue(cache.getWhoisServer(".learnedtld").isEmpty());
+
+        cache.learnWhoisServer(".LearnedTld", "whois.nic.learnedtld");
+        assertEquals("whois.nic.learnedtld", cache.getWhoisServer(".learnedtld").orElseThrow());
+        assertEquals("whois.nic.learnedtld", cache.getLearnedServers().get(".learnedtld"));
+
+        cache.learnWhoisServer(".com", "whois.example.net");
+        assertEquals("whois.verisign-grs.com", cache.getWhoisServer(".com").orElseThrow());
+        assertFalse(cache.getLearnedServers().containsKey(".com"));
+    }
+
+    @Test
+    void testOverrideFile(@TempDir Path tempDir) throws IOException {
+        logger.atTrace().log("Testing runtime override file on top of the compiled table");
+        Path overrideFile = tempDir.resolve("overrides.properties");
+        Files.writeString(overrideFile, """
+                # local overrides
+                .com=whois.example.net
+                .Custom=whois.nic.custom
+                """);
+
+        var cache = new WhoisCache(overrideFile);
+        assertEquals("whois.example.net", cache.getWhoisServer(".com").orElseThrow());
+        assertEquals("whois.nic.custom", cache.getWhoisServer(".custom").orElseThrow());
+        assertEquals("whois.pir.org", cache.getWhoisServer(".org").orElseThrow());
+
+        cache.learnWhoisServer(".custom", "whois.other.custom");
+        assertFalse(cache.getLearnedServers().containsKey(".custom"));
+    }
+
+    @Test
+    void testMissingOverrideFile(@TempDir Path tempDir) {
+        logger.atTrace().log("Testing that a missing override file falls back to the compiled table");
+        var cache = new WhoisCache(tempDir.resolve("missing.properties"));
+        assertEquals("whois.verisign-grs.com", cache.getWhoisServer(".com").orElseThrow());
+    }
+
+    @Test
+    void testInvalidOverrideFileIsRejected(@TempDir Path tempDir) throws IOException {
+        logger.atTrace().log("Testing that an invalid override file leaves the live mappings in place");
+        Path overrideFile = tempDir.resolve("overrides.properties");
+        Files.writeString(overrideFile, ".com=whois.example.net\n");
+        var cache = new WhoisCache(overrideFile);
+
+        Files.writeString(overrideFile, ".com=whois.other.net\ninvalid=whois.example.org\n");
+        assertFalse(cache.reloadOverrides());
+        assertEquals("whois.example.net", cache.getWhoisServer(".com").orElseThrow());
+
+        Files.writeString(overrideFile, ".com=whois.other.net\n.org=not a host\n");
+        assertFalse(cache.reloadOverrides());
+        assertEquals("whois.example.net", cache.getWhoisServer(".com").orElseThrow());
+
+        Files.writeString(overrideFile, ".com=whois.other.net\n");
+        assertTrue(cache.reloadOverrides());
+        assertEquals("whois.other.net", cache.getWhoisServer(".com").orElseThrow());
+    }
+
+    @Test
+    void testMultipleServersPerExtension(@TempDir Path tempDir) throws IOException {
+        logger.atTrace().log("Testing override entries with several servers");
+        Path overrideFile = tempDir.resolve("overrides.properties");
+        Files.writeString(overrideFile, ".custom=whois.nic.custom, whois.mirror.custom,whois.nic.custom\n");
+
+        var cache = new WhoisCache(overrideFile);
+        assertEquals(List.of("whois.nic.custom", "whois.mirror.custom"), cache.getWhoisServers(".custom"));
+        assertEquals("whois.nic.custom", cache.getWhoisServer(".custom").orElseThrow());
+        assertEquals(List.of("whois.verisign-grs.com"), cache.getWhoisServers(".com"));
+        assertTrue(cache.getWhoisServers(".nonexistent").isEmpty());
+    }
 }
@@ -0,0 +1,78 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WhoisDiffTrackerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(WhoisDiffTrackerTest.class);
+
+    @Test
+    void testFirstLookupRecordsBaseline() {
+        logger.atTrace().log("Testing baseline on first lookup");
+        var tracker = new WhoisDiffTracker(100);
+        var diff = tracker.diff("example.com", WhoisRecord.parse(WhoisRecordTest.VERISIGN_RESPONSE));
+
+        assertTrue(diff.baseline());
+        assertFalse(diff.unchanged());
+        assertEquals("a.iana-servers.net, b.iana-servers.net", diff.current().get(WhoisDiffTracker.Section.NAME_SERVERS));
+        assertEquals("2025-08-13T04:00:00Z", diff.current().get(WhoisDiffTracker.Section.EXPIRY));
+    }
+
+    @Test
+    void testIdenticalRecordIsUnchanged() {
+        logger.atTrace().log("Testing unchanged detection, ignoring irrelevant lines");
+        var tracker = new WhoisDiffTracker(100);
+        tracker.diff("example.com", WhoisRecord.parse(WhoisRecordTest.VERISIGN_RESPONSE));
+
+        String reordered = WhoisRecordTest.VERISIGN_RESPONSE
+                .replace("Last update of whois database: 2025-01-01T00:00:00Z", "Last update of whois database: 2025-01-02T00:00:00Z")
+                .replace("Name Server: A.IANA-SERVERS.NET", "Name Server: a.iana-servers.net.");
+        var diff = tracker.diff("example.com", WhoisRecord.parse(reordered));
+
+        assertTrue(diff.unchanged());
+    }
+
+    @Test
+    void testOnlyChangedSectionsAreReported() {
+        logger.atTrace().log("Testing that only changed sections are reported");
+        var tracker = new WhoisDiffTracker(100);
+        tracker.diff("example.com", WhoisRecord.parse(WhoisRecordTest.VERISIGN_RESPONSE));
+
+        String changed = WhoisRecordTest.VERISIGN_RESPONSE
+                .replace("Name Server: B.IANA-SERVERS.NET", "Name Server: C.IANA-SERVERS.NET")
+                .replace("Registry Expiry Date: 2025-08-13T04:00:00Z", "Registry Expiry Date: 2026-08-13T04:00:00Z");
+        var diff = tracker.diff("example.com", WhoisRecord.parse(changed));
+
+        assertFalse(diff.unchanged());
+        assertEquals(2, diff.changes().size());
+        var nameServers = diff.changes().get(WhoisDiffTracker.Section.NAME_SERVERS);
+        assertEquals("a.iana-servers.net, b.iana-servers.net", nameServers.previous());
+        assertEquals("a.iana-servers.net, c.iana-servers.net", nameServers.current());
+        assertEquals("2026-08-13T04:00:00Z", diff.changes().get(WhoisDiffTracker.Section.EXPIRY).current());
+        assertFalse(diff.changes().containsKey(WhoisDiffTracker.Section.STATUS));
+    }
+
+    @Test
+    void testTrackerIsBounded() {
+        logger.atTrace().log("Testing that the least recently compared domain is dropped");
+        var tracker = new WhoisDiffTracker(2);
+        var record = WhoisRecord.parse(WhoisRecordTest.VERISIGN_RESPONSE);
+        tracker.diff("a.com", record);
+        tracker.diff("b.com", record);
+        tracker.diff("c.com", record);
+
+        assertTrue(tracker.diff("a.com", record).baseline());
+        assertFalse(tracker.diff("c.com", record).baseline());
+    }
+
+    @Test
+    void testFnv1a() {
+        logger.atTrace().log("Testing the FNV-1a reference values");
+        assertEquals(0xcbf29ce484222325L, WhoisDiffTracker.fnv1a(""));
+        assertEquals(0xaf63dc4c8601ec8cL, WhoisDiffTracker.fnv1a("a"));
+    }
+}
@@ -0,0 +1,102 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WhoisRecordTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(WhoisRecordTest.class);
+
+    static final String VERISIGN_RESPONSE = """
+               Domain Name: EXAMPLE.COM
+               Registry Domain ID: 2336799_DOMAIN_COM-VRSN
+               Registrar WHOIS Server: whois.iana.org
+               Updated Date: 2024-08-14T07:01:34Z
+               Creation Date: 1995-08-14T04:00:00Z
+               Registry Expiry Date: 2025-08-13T04:00:00Z
+               Registrar: RESERVED-Internet Assigned Numbers Authority
+               Domain Status: clientDeleteProhibited https://icann.org/epp#clientDeleteProhibited
+               Domain Status: clientTransferProhibited https://icann.org/epp#clientTransferProhibited
+               Name Server: A.IANA-SERVERS.NET
+               Name Server: B.IANA-SERVERS.NET
+               DNSSEC: signedDelegation
+            >>> Last update of whois database: 2025-01-01T00:00:00Z <<<
+            """;
+
+    @Test
+    void testParseVerisignResponse() {
+        logger.atTrace().log("Testing parsing of a thin registry response");
+        var record = WhoisRecord.parse(VERISIGN_RESPONSE);
+
+        assertFalse(record.notFound());
+        assertEquals("RESERVED-Internet Assigned Numbers Authority", record.registrar().orElseThrow());
+        assertEquals(List.of("a.iana-servers.net", "b.iana-servers.net"), record.nameServers());
+        assertEquals(List.of("clientDeleteProhibited", "clientTransferProhibited"), record.statuses());
+        assertEquals(Instant.parse("1995-08-14T04:00:00Z"), record.created().orElseThrow());
+        assertEquals(Instant.parse("2024-08-14T07:01:34Z"), record.updated().orElseThrow());
+        assertEquals(Instant.parse("2025-08-13T04:00:00Z"), record.expiry().orElseThrow());
+    }
+
+    @Test
+    void testParseNameServerBlock() {
+        logger.atTrace().log("Testing parsing of indented name server blocks");
+        var record = WhoisRecord.parse("""
+                    Domain name:
+                        example.co.uk
+
+                    Registrar:
+                        Example Registrar Ltd
+
+                    Relevant dates:
+                        Registered on: 26-Aug-2010
+                        Expiry date:  26-aug-2030
+
+                    Name servers:
+                        ns1.example.net
+                        ns2.example.net   192.0.2.1
+
+                """);
+
+        assertEquals(List.of("ns1.example.net", "ns2.example.net"), record.nameServers());
+        assertEquals(Instant.parse("2010-08-26T00:00:00Z"), record.created().orElseThrow());
+        assertEquals(Instant.parse("2030-08-26T00:00:00Z"), record.expiry().orElseThrow());
+    }
+
+    @Test
+    void testParseNotFoundResponse() {
+        logger.atTrace().log("Testing detection of unregistered domains");
+        assertTrue(WhoisRecord.parse("No match for \"UNREGISTERED-EXAMPLE.COM\".\r\n").notFound());
+        assertTrue(WhoisRecord.parse("Domain not found.\n").notFound());
+        assertTrue(WhoisRecord.parse("%% NOT FOUND\n").notFound());
+        assertFalse(WhoisRecord.parse(VERISIGN_RESPONSE).notFound());
+    }
+
+    @Test
+    void testParseBlankResponse() {
+        logger.atTrace().log("Testing parsing of blank responses");
+        var record = WhoisRecord.parse("");
+        assertFalse(record.notFound());
+        assertTrue(record.nameServers().isEmpty());
+        assertTrue(record.expiry().isEmpty());
+    }
+
+    @Test
+    void testParseDateFormats() {
+        logger.atTrace().log("Testing supported date formats");
+        var expected = Instant.parse("2026-03-15T00:00:00Z");
+        assertEquals(expected, WhoisRecord.parseDate("2026-03-15T00:00:00Z").orElseThrow());
+        assertEquals(expected, WhoisRecord.parseDate("2026-03-15T00:00:00.000+00:00").orElseThrow());
+        assertEquals(expected, WhoisRecord.parseDate("2026-03-15 00:00:00 UTC").orElseThrow());
+        assertEquals(expected, WhoisRecord.parseDate("2026-03-15").orElseThrow());
+        assertEquals(expected, WhoisRecord.parseDate("2026.03.15").orElseThrow());
+        assertEquals(expected, WhoisRecord.parseDate("15.03.2026").orElseThrow());
+        assertEquals(expected, WhoisRecord.parseDate("15-Mar-2026").orElseThrow());
+        assertTrue(WhoisRecord.parseDate("next tuesday").isEmpty());
+    }
+}
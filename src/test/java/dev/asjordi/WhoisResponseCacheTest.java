@@ -0,0 +1,217 @@
+package dev.asjordi;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WhoisResponseCacheTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(WhoisResponseCacheTest.class);
+
+    @Test
+    void testPutAndGet() {
+        logger.atTrace().log("Testing basic put and get");
+        var cache = new WhoisResponseCache(100, Duration.ofHours(1), true, new TestClock());
+        cache.put("example.com", "Domain Name: EXAMPLE.COM");
+
+        var result = cache.get("example.com");
+        assertTrue(result.isPresent());
+        assertEquals("Domain Name: EXAMPLE.COM", result.get());
+        assertTrue(cache.get("example.org").isEmpty());
+    }
+
+    @Test
+    void testEntriesExpireAfterTtl() {
+        logger.atTrace().log("Testing expiration of cached responses");
+        var clock = new TestClock();
+        var cache = new WhoisResponseCache(100, Duration.ofMinutes(10), true, clock);
+        cache.put("example.com", "Domain Name: EXAMPLE.COM");
+
+        clock.advance(Duration.ofMinutes(9));
+        assertTrue(cache.get("example.com").isPresent());
+
+        clock.advance(Duration.ofMinutes(1));
+        assertTrue(cache.get("example.com").isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testExpiringBeforeKeepsLastAccessAcrossRefresh() {
+        logger.atTrace().log("Testing refresh candidates and last access tracking");
+        var clock = new TestClock();
+        var cache = new WhoisResponseCache(100, Duration.ofMinutes(10), true, clock);
+        cache.put("example.com", "old");
+        long insertedAt = clock.millis();
+
+        clock.advance(Duration.ofMinutes(8));
+        var candidates = cache.expiringBefore(clock.millis() + Duration.ofMinutes(5).toMillis());
+        assertEquals(1, candidates.size());
+        assertEquals("example.com", candidates.get(0).domain());
+        assertEquals(insertedAt, candidates.get(0).lastAccess());
+
+        cache.put("example.com", "new");
+        assertTrue(cache.expiringBefore(clock.millis() + Duration.ofMinutes(5).toMillis()).isEmpty());
+        var refreshed = cache.expiringBefore(clock.millis() + Duration.ofMinutes(10).toMillis());
+        assertEquals(insertedAt, refreshed.get(0).lastAccess());
+        assertEquals("new", cache.get("example.com").orElseThrow());
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        logger.atTrace().log("Testing that the cache never exceeds its maximum size");
+        var cache = new WhoisResponseCache(50, Duration.ofHours(1), true, new TestClock());
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("domain" + i + ".com", "response " + i);
+            assertTrue(cache.size() <= 50);
+        }
+
+        var lru = new WhoisResponseCache(50, Duration.ofHours(1), false, new TestClock());
+        for (int i = 0; i < 1_000; i++) {
+            lru.put("domain" + i + ".com", "response " + i);
+        }
+        assertEquals(50, lru.size());
+    }
+
+    @Test
+    void testFrequentEntriesSurviveScan() {
+        logger.atTrace().log("Testing that a one-off scan does not flush hot entries");
+        var cache = new WhoisResponseCache(100, Duration.ofHours(1), true, new TestClock());
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 10; i++) {
+                String domain = "hot" + i + ".com";
+                if (cache.get(domain).isEmpty()) cache.put(domain, "hot response");
+            }
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            String domain = "scan" + i + ".com";
+            if (cache.get(domain).isEmpty()) cache.put(domain, "scan response");
+            if (i % 100 == 0) {
+                for (int j = 0; j < 10; j++) cache.get("hot" + j + ".com");
+            }
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(cache.get("hot" + i + ".com").isPresent(), "hot" + i + ".com was evicted");
+        }
+    }
+
+    @Test
+    void testParsedRecordIsPassedToTtlPolicy() {
+        logger.atTrace().log("Testing that a record parsed by the caller is not parsed again");
+        List<WhoisRecord> seen = new ArrayList<>();
+        var cache = new WhoisResponseCache(100, record -> {
+            seen.add(record);
+            return Duration.ofHours(1);
+        }, true, new TestClock());
+        var record = WhoisRecord.parse("Domain Name: EXAMPLE.COM");
+
+        cache.put("example.com", "Domain Name: EXAMPLE.COM", record);
+
+        assertEquals(1, seen.size());
+        assertSame(record, seen.get(0));
+        assertTrue(cache.get("example.com").isPresent());
+    }
+
+    @Test
+    void testTtlIsComputedOutsideTheLock() throws Exception {
+        logger.atTrace().log("Testing that a slow TTL computation does not block readers");
+        var parsing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var cache = new WhoisResponseCache(100, record -> {
+            parsing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Duration.ofHours(1);
+        }, true, new TestClock());
+        cache.restore("cached.com", "cached response", Long.MAX_VALUE);
+
+        Thread writer = Thread.ofPlatform().start(() -> cache.put("slow.com", "slow response"));
+        assertTrue(parsing.await(5, TimeUnit.SECONDS));
+        var reader = CompletableFuture.supplyAsync(() -> cache.get("cached.com"));
+        assertEquals("cached response", reader.get(5, TimeUnit.SECONDS).orElseThrow());
+
+        release.countDown();
+        writer.join();
+        assertTrue(cache.get("slow.com").isPresent());
+    }
+
+    @Test
+    void testFetchedDomainIsCountedOnce() {
+        logger.atTrace().log("Testing that a miss followed by a put records a single access");
+        var cache = new WhoisResponseCache(100, Duration.ofHours(1), true, new TestClock());
+        for (int i = 0; i < 100; i++) cache.restore("kept" + i + ".com", "kept response", Long.MAX_VALUE);
+        for (int i = 0; i < 100; i++) cache.get("kept" + i + ".com");
+
+        for (String domain : List.of("once.com", "later.com")) {
+            if (cache.get(domain).isEmpty()) cache.put(domain, "one-off response");
+        }
+
+        assertTrue(cache.get("kept0.com").isPresent(), "a one-off fetch outranked a domain read once");
+    }
+
+    @Test
+    void testHitRatioOnReplayedTraceComparedWithLru() {
+        logger.atTrace().log("Replaying a mixed hot/scan trace against TinyLFU and LRU");
+        List<String> trace = buildTrace();
+
+        var tinyLfu = new WhoisResponseCache(200, Duration.ofHours(1), true, new TestClock());
+        var lru = new WhoisResponseCache(200, Duration.ofHours(1), false, new TestClock());
+        replay(tinyLfu, trace);
+        replay(lru, trace);
+
+        logger.atInfo().log("Hit ratio over {} requests: TinyLFU={}, LRU={}",
+                trace.size(), String.format("%.3f", tinyLfu.hitRatio()), String.format("%.3f", lru.hitRatio()));
+        assertTrue(tinyLfu.hitRatio() > lru.hitRatio() + 0.05,
+                "TinyLFU hit ratio " + tinyLfu.hitRatio() + " should clearly beat LRU " + lru.hitRatio());
+    }
+
+    /**
+     * Builds a trace mixing a Zipf-distributed set of 500 watched domains with
+     * sweeps of one-off domains that are never requested again.
+     */
+    private static List<String> buildTrace() {
+        var random = new Random(42);
+        int hotDomains = 500;
+        double[] cumulative = new double[hotDomains];
+        double total = 0;
+        for (int i = 0; i < hotDomains; i++) {
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+
+        List<String> trace = new ArrayList<>();
+        int oneOff = 0;
+        for (int burst = 0; burst < 100; burst++) {
+            for (int i = 0; i < 300; i++) {
+                double target = random.nextDouble() * total;
+                int rank = 0;
+                while (cumulative[rank] < target) rank++;
+                trace.add("watched" + rank + ".com");
+            }
+            for (int i = 0; i < 300; i++) {
+                trace.add("sweep" + (oneOff++) + ".net");
+            }
+        }
+        return trace;
+    }
+
+    private static void replay(WhoisResponseCache cache, List<String> trace) {
+        for (String domain : trace) {
+            if (cache.get(domain).isEmpty()) cache.put(domain, "response for " + domain);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package dev.asjordi;
+
+import org.apache.commons.net.whois.WhoisClient;
+
+/**
+ * A {@link WhoisService} for tests, built from default collaborators except those a test replaces.
+ */
+class WhoisServiceFixture extends WhoisService {
+
+    WhoisServiceFixture() {
+        this(collaborators());
+    }
+
+    WhoisServiceFixture(Collaborators collaborators) {
+        super(collaborators.whoisCache, collaborators.responseCache, collaborators.rateLimiter,
+                collaborators.serverSelector, collaborators.hostResolver, collaborators.rdapClient,
+                WhoisClient.DEFAULT_PORT);
+    }
+
+    static Collaborators collaborators() {
+        return new Collaborators();
+    }
+
+    /**
+     * The collaborators of the service, each a fresh default until replaced.
+     */
+    static final class Collaborators {
+        private WhoisCache whoisCache = new WhoisCache();
+        private WhoisResponseCache responseCache = new WhoisResponseCache();
+        private ServerRateLimiter rateLimiter = new ServerRateLimiter();
+        private ServerSelector serverSelector = new ServerSelector();
+        private HostResolver hostResolver = new HostResolver();
+        private RdapClient rdapClient = new RdapClient();
+
+        Collaborators whoisCache(WhoisCache whoisCache) {
+            this.whoisCache = whoisCache;
+            return this;
+        }
+
+        Collaborators responseCache(WhoisResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        Collaborators rateLimiter(ServerRateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        Collaborators serverSelector(ServerSelector serverSelector) {
+            this.serverSelector = serverSelector;
+            return this;
+        }
+
+        Collaborators hostResolver(HostResolver hostResolver) {
+            this.hostResolver = hostResolver;
+            return this;
+        }
+
+        Collaborators rdapClient(RdapClient rdapClient) {
+            this.rdapClient = rdapClient;
+            return this;
+        }
+    }
+}
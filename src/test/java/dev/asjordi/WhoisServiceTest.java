@@ -1,5 +1,7 @@
 package dev.asjordi;
 
+import dev.asjordi.exceptions.ThrottledException;
+import dev.asjordi.exceptions.WhoisQueryException;
 import org.apache.commons.net.whois.WhoisClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -7,8 +9,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
 import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -136,6 +150,329 @@ class WhoisServiceTest {
         assertEquals(sanitizedDomain, mockWhoisClient.getLastQuery());
     }
 
+    @Test
+    void testRepeatedQueryServedFromResponseCache() {
+        logger.atTrace().log("Testing that repeated queries are answered from the response cache");
+        var service = new CountingWhoisService("Domain Name: example.com");
+
+        Optional<String> first = service.performWhoisQuery("example.com");
+        Optional<String> second = service.performWhoisQuery("  EXAMPLE.COM  ");
+
+        assertEquals(first, second);
+        assertEquals(1, service.getQueryCount());
+    }
+
+    @Test
+    void testLookupsFileExpiryDates() {
+        logger.atTrace().log("Testing that every cached response updates the expiry index");
+        var service = new CountingWhoisService(WhoisRecordTest.VERISIGN_RESPONSE);
+
+        service.performWhoisQuery("example.com");
+        service.performWhoisQuery("example.com");
+        service.performWhoisQuery("example.net");
+
+        var index = service.getExpiryIndex();
+        assertEquals(2, index.size());
+        assertEquals("2025-08-13T04:00:00Z", index.expiry("example.com").orElseThrow().toString());
+        assertEquals(List.of("example.com", "example.net"), index.expiringBefore(Instant.parse("2026-01-01T00:00:00Z"))
+                .stream().map(ExpiryIndex.Entry::domain).toList());
+    }
+
+    @Test
+    void testFindReferral() {
+        logger.atTrace().log("Testing extraction of IANA referrals");
+        assertEquals(Optional.of("whois.nic.xyz"), WhoisService.findReferral("domain: XYZ\r\nrefer:        whois.nic.xyz\r\n"));
+        assertEquals(Optional.of("whois.nic.xyz"), WhoisService.findReferral("whois:        WHOIS.NIC.XYZ\n"));
+        assertTrue(WhoisService.findReferral("domain: EXAMPLE\nstatus: ACTIVE\n").isEmpty());
+    }
+
+    @Test
+    void testIanaReferralIsFollowedAndLearned() {
+        logger.atTrace().log("Testing that IANA referrals are followed and remembered");
+        var cache = new TestWhoisCache();
+        var service = new ReferralWhoisService(cache);
+
+        Optional<String> result = service.performWhoisQuery("example.museum");
+
+        assertEquals("Domain Name: EXAMPLE.MUSEUM", result.orElseThrow());
+        assertEquals(List.of("whois.iana.org", "whois.nic.museum"), service.servers);
+        assertEquals("whois.nic.museum", cache.getLearnedServers().get(".museum"));
+    }
+
+    @Test
+    void testProgressReportsEveryHop() {
+        logger.atTrace().log("Testing that queried servers and referrals are reported as they happen");
+        var service = new ReferralWhoisService(new TestWhoisCache());
+        List<String> steps = new ArrayList<>();
+
+        service.performWhoisQuery("example.museum", QueryScheduler.Priority.INTERACTIVE, steps::add);
+        service.performWhoisQuery("example.museum", QueryScheduler.Priority.INTERACTIVE, steps::add);
+
+        assertEquals(List.of("querying whois.iana.org", "following referral to whois.nic.museum", "served from cache"),
+                steps);
+    }
+
+    @Test
+    void testResponseTimeOfEveryServerIsReported() {
+        logger.atTrace().log("Testing that each server's response time is reported apart from the progress steps");
+        var service = new ReferralWhoisService(new TestWhoisCache());
+        List<String> steps = new ArrayList<>();
+        List<Duration> responseTimes = new ArrayList<>();
+
+        service.performFreshWhoisQuery("example.museum", QueryScheduler.Priority.INTERACTIVE, steps::add, responseTimes::add);
+
+        assertEquals(List.of("querying whois.iana.org", "following referral to whois.nic.museum"), steps);
+        assertEquals(2, responseTimes.size());
+        assertTrue(responseTimes.stream().noneMatch(Duration::isNegative));
+    }
+
+    @Test
+    void testRdapPolicyRoutesLookupsOverRdap() {
+        logger.atTrace().log("Testing that TLDs selected for RDAP skip port 43 and fall back to it on failure");
+        var rdap = new FakeRdapClient();
+        var service = new RdapWhoisService(rdap);
+
+        assertEquals(RdapClientTest.EXAMPLE_RDAP, service.performWhoisQuery("example.com").orElseThrow());
+        assertEquals(0, service.queryCount);
+        assertEquals(List.of("example.com"), rdap.lookups);
+
+        rdap.failing = true;
+        assertEquals("Domain Name: OTHER.COM", service.performWhoisQuery("other.com").orElseThrow());
+        assertEquals(1, service.queryCount);
+
+        assertEquals("Domain Name: EXAMPLE.NET", service.performWhoisQuery("example.net").orElseThrow());
+        assertEquals(List.of("example.com", "other.com"), rdap.lookups);
+    }
+
+    @Test
+    void testFreshQueryBypassesCachedResponse() {
+        logger.atTrace().log("Testing that a fresh query ignores and then replaces the cached response");
+        var service = new CountingWhoisService("Domain Name: EXAMPLE.COM\nName Server: NS1.OLD.EXAMPLE");
+        service.performWhoisQuery("example.com");
+
+        service.setResponse("Domain Name: EXAMPLE.COM\nName Server: NS1.NEW.EXAMPLE");
+        assertEquals("Domain Name: EXAMPLE.COM\nName Server: NS1.OLD.EXAMPLE",
+                service.performWhoisQuery("example.com").orElseThrow());
+        assertEquals(1, service.getQueryCount());
+
+        List<String> steps = new ArrayList<>();
+        assertEquals("Domain Name: EXAMPLE.COM\nName Server: NS1.NEW.EXAMPLE",
+                service.performFreshWhoisQuery("example.com", QueryScheduler.Priority.INTERACTIVE, steps::add)
+                        .orElseThrow());
+        assertEquals(List.of(WhoisService.STEP_QUERYING + "whois.verisign-grs.com"), steps);
+        assertEquals("Domain Name: EXAMPLE.COM\nName Server: NS1.NEW.EXAMPLE",
+                service.performWhoisQuery("example.com").orElseThrow());
+        assertEquals(2, service.getQueryCount());
+    }
+
+    @Test
+    void testCachedResponseNeverQueries() {
+        logger.atTrace().log("Testing that a cache-only lookup answers hits and sends no query on a miss");
+        var service = new CountingWhoisService("Domain Name: EXAMPLE.COM");
+        List<String> steps = new ArrayList<>();
+
+        assertTrue(service.cachedResponse("example.com", steps::add).isEmpty());
+        assertTrue(service.cachedResponse("not a domain", steps::add).isEmpty());
+        assertEquals(0, service.getQueryCount());
+
+        service.performWhoisQuery("example.com");
+        assertEquals("Domain Name: EXAMPLE.COM", service.cachedResponse("EXAMPLE.com", steps::add).orElseThrow());
+        assertEquals(List.of(WhoisService.STEP_CACHE_HIT), steps);
+        assertEquals(1, service.getQueryCount());
+    }
+
+    @Test
+    void testQueriesAreRoutedAwayFromFailingMirror() {
+        logger.atTrace().log("Testing that queries move to the healthy server of an extension");
+        var service = new MirroredWhoisService();
+
+        assertThrows(WhoisQueryException.class, () -> service.performWhoisQuery("first.com"));
+        assertEquals("Domain Name: SECOND.COM", service.performWhoisQuery("second.com").orElseThrow());
+        assertEquals("Domain Name: THIRD.COM", service.performWhoisQuery("third.com").orElseThrow());
+
+        assertEquals(List.of("whois.primary.test", "whois.mirror.test", "whois.mirror.test"), service.servers);
+    }
+
+    @Test
+    void testPrefetchHotServers() {
+        logger.atTrace().log("Testing selection of WHOIS servers to pre-resolve");
+        var responseCache = new WhoisResponseCache();
+        responseCache.put("one.org", "Domain Name: ONE.ORG");
+        responseCache.put("two.org", "Domain Name: TWO.ORG");
+        responseCache.put("one.io", "Domain Name: ONE.IO");
+        var resolved = ConcurrentHashMap.<String>newKeySet();
+        var resolver = new HostResolver(host -> {
+            resolved.add(host);
+            return new InetAddress[]{InetAddress.getLoopbackAddress()};
+        }, Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofHours(1), Clock.systemUTC());
+        var service = new WhoisServiceFixture(WhoisServiceFixture.collaborators()
+                .responseCache(responseCache).hostResolver(resolver));
+
+        var servers = service.prefetchHotServers(List.of(".com"), 1);
+
+        assertEquals(Set.of("whois.verisign-grs.com", "whois.pir.org", "whois.iana.org"), servers);
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (resolved.size() < servers.size() && System.nanoTime() < deadline) Thread.onSpinWait();
+        assertEquals(servers, resolved);
+    }
+
+    @Test
+    void testAvailabilityCheckStopsReadingAtVerdict() {
+        logger.atTrace().log("Testing that availability checks read answers only up to the first decisive line");
+        var service = new StreamingWhoisService();
+
+        assertEquals(AvailabilityDetector.Availability.AVAILABLE,
+                service.checkAvailability("free-name.com", QueryScheduler.Priority.INTERACTIVE));
+        assertEquals(1, service.linesRead);
+        assertEquals(0, service.getResponseCache().size());
+
+        assertEquals(AvailabilityDetector.Availability.TAKEN,
+                service.checkAvailability("example.com", QueryScheduler.Priority.INTERACTIVE));
+        assertEquals(2, service.linesRead);
+
+        // A cached response answers without any query
+        service.performWhoisQuery("cached.com");
+        assertEquals(AvailabilityDetector.Availability.TAKEN,
+                service.checkAvailability("cached.com", QueryScheduler.Priority.INTERACTIVE));
+        assertEquals(2, service.linesRead);
+    }
+
+    @Test
+    void testThrottledAnswersAreNotCached() {
+        logger.atTrace().log("Testing that rate-limit notices fail, are not cached and trigger backoff");
+        var service = new CountingWhoisService("Error: Query rate limit exceeded");
+
+        var e = assertThrows(ThrottledException.class, () -> service.performWhoisQuery("example.com"));
+        assertTrue(e.getRetryAfterMillis() > 0);
+        assertEquals(1, service.getQueryCount());
+        assertEquals(0, service.getResponseCache().size());
+
+        // While the server backs off, interactive lookups fail fast without querying it
+        assertThrows(ThrottledException.class, () -> service.performWhoisQuery("example.com"));
+        assertEquals(1, service.getQueryCount());
+    }
+
+    // WhoisService that streams canned .com answers followed by a long terms-of-use text
+    private static class StreamingWhoisService extends WhoisServiceFixture {
+        private static final List<String> TERMS = Collections.nCopies(50, "TERMS OF USE: You are not authorized to ...");
+        private int linesRead;
+
+        @Override
+        protected Optional<String> queryServer(String whoisServer, String domain) {
+            return Optional.of("   Domain Name: " + domain.toUpperCase() + "\n   Registry Domain ID: 1_DOMAIN_COM-VRSN");
+        }
+
+        @Override
+        protected Optional<String> queryServer(String whoisServer, String domain, Predicate<String> stopAfter) {
+            List<String> lines = new ArrayList<>(domain.startsWith("free")
+                    ? List.of("No match for \"" + domain.toUpperCase() + "\".", ">>> Last update of whois database <<<")
+                    : List.of("   Domain Name: " + domain.toUpperCase(), "   Registry Domain ID: 1_DOMAIN_COM-VRSN"));
+            lines.addAll(TERMS);
+
+            StringBuilder answer = new StringBuilder();
+            for (String line : lines) {
+                linesRead++;
+                answer.append(line).append('\n');
+                if (stopAfter.test(line)) break;
+            }
+            return Optional.of(answer.toString());
+        }
+    }
+
+    // WhoisService with two .com servers where the primary is down
+    private static class MirroredWhoisService extends WhoisServiceFixture {
+        private final List<String> servers = new ArrayList<>();
+
+        MirroredWhoisService() {
+            super(collaborators().whoisCache(new WhoisCache() {
+                @Override
+                public List<String> getWhoisServers(String domain) {
+                    return List.of("whois.primary.test", "whois.mirror.test");
+                }
+            }).serverSelector(new ServerSelector(0.3, 0.0, 0.5, () -> 0.5)));
+        }
+
+        @Override
+        protected Optional<String> queryServer(String whoisServer, String domain) {
+            servers.add(whoisServer);
+            if (whoisServer.equals("whois.primary.test")) throw new WhoisQueryException("Connection failed to WHOIS server");
+            return Optional.of("Domain Name: " + domain.toUpperCase());
+        }
+    }
+
+    // WhoisService where IANA refers every query to the .museum registry
+    private static class ReferralWhoisService extends WhoisServiceFixture {
+        private final List<String> servers = new ArrayList<>();
+
+        ReferralWhoisService(WhoisCache cache) {
+            super(collaborators().whoisCache(cache));
+        }
+
+        @Override
+        protected Optional<String> queryServer(String whoisServer, String domain) {
+            servers.add(whoisServer);
+            return Optional.of(whoisServer.equals("whois.iana.org")
+                    ? "refer:        whois.nic.museum\n\ndomain:       MUSEUM\n"
+                    : "Domain Name: EXAMPLE.MUSEUM");
+        }
+    }
+
+    // RDAP client enabled for .com that answers from memory or fails
+    private static class FakeRdapClient extends RdapClient {
+        private final List<String> lookups = new ArrayList<>();
+        private boolean failing;
+
+        FakeRdapClient() {
+            super(new RdapBootstrap(Map.of("com", URI.create("https://rdap.example.test/com/"))), "com", Duration.ofSeconds(1));
+        }
+
+        @Override
+        public Optional<String> lookupDomain(URI baseUrl, String domain) {
+            lookups.add(domain);
+            if (failing) throw new WhoisQueryException("RDAP server rdap.example.test answered HTTP 503");
+            return Optional.of(RdapClientTest.EXAMPLE_RDAP);
+        }
+    }
+
+    // WhoisService with an RDAP client whose port 43 queries answer from memory
+    private static class RdapWhoisService extends WhoisServiceFixture {
+        private int queryCount;
+
+        RdapWhoisService(RdapClient rdapClient) {
+            super(collaborators().rdapClient(rdapClient));
+        }
+
+        @Override
+        protected Optional<String> queryServer(String whoisServer, String domain) {
+            queryCount++;
+            return Optional.of("Domain Name: " + domain.toUpperCase());
+        }
+    }
+
+    // WhoisService that answers from memory and counts outbound queries
+    private static class CountingWhoisService extends WhoisServiceFixture {
+        private String response;
+        private int queryCount;
+
+        CountingWhoisService(String response) {
+            this.response = response;
+        }
+
+        void setResponse(String response) {
+            this.response = response;
+        }
+
+        int getQueryCount() {
+            return queryCount;
+        }
+
+        @Override
+        protected Optional<String> queryServer(String whoisServer, String domain) {
+            queryCount++;
+            return Optional.of(response);
+        }
+    }
+
     // Custom test implementation of WhoisService that uses our mock dependencies
     private static class TestWhoisService extends WhoisService {
         private final TestWhoisCache whoisCache;